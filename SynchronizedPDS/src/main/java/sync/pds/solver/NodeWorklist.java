@@ -0,0 +1,178 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package sync.pds.solver;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Maps;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import sync.pds.solver.nodes.Node;
+import wpds.interfaces.Location;
+
+/**
+ * The nodes a {@link SyncPDSSolver} reached but did not yet compute the successors of, see {@link
+ * SyncPDSSolver#setNodeWorklist(NodeWorklist)}. Pending nodes are grouped by their method, the
+ * nodes of one method are drained together before the nodes of the next method are processed,
+ * which keeps the control flow graph and statements of the method in the caches.
+ *
+ * <p>Methods are drained in the order they became pending unless a method order is given, e.g.,
+ * methods of a shallow call depth first. Within a method, nodes are drained in the order they were
+ * reached unless a node order is given, e.g., the reverse post order of the statements.
+ */
+public class NodeWorklist<Stmt extends Location, Fact, M> {
+  private final Function<? super Stmt, ? extends M> methodOf;
+  private final Comparator<? super Node<Stmt, Fact>> nodeOrder;
+  // Pending nodes per method, in the order the methods became pending
+  private final Map<M, Queue<Node<Stmt, Fact>>> pending = Maps.newLinkedHashMap();
+  private final PriorityQueue<M> pendingMethods;
+  private M current;
+  private Queue<Node<Stmt, Fact>> currentNodes;
+  private int size;
+  private int maxSize;
+  private long processed;
+  private long batches;
+  // Runs while nodes are pending
+  private final Stopwatch watch = Stopwatch.createUnstarted();
+
+  public NodeWorklist(Function<? super Stmt, ? extends M> methodOf) {
+    this(methodOf, null, null);
+  }
+
+  /**
+   * @param methodOf Maps a statement to the method it belongs to
+   * @param methodOrder The order in which methods are drained, or null to drain them in the order
+   *     they became pending
+   * @param nodeOrder The order in which the nodes of a method are drained, or null to drain them in
+   *     the order they were reached
+   */
+  public NodeWorklist(
+      Function<? super Stmt, ? extends M> methodOf,
+      Comparator<? super M> methodOrder,
+      Comparator<? super Node<Stmt, Fact>> nodeOrder) {
+    this.methodOf = methodOf;
+    this.nodeOrder = nodeOrder;
+    this.pendingMethods = methodOrder == null ? null : new PriorityQueue<>(methodOrder);
+  }
+
+  public void add(Node<Stmt, Fact> node) {
+    M method = methodOf.apply(node.stmt());
+    Queue<Node<Stmt, Fact>> nodes;
+    if (currentNodes != null && Objects.equals(method, current)) {
+      nodes = currentNodes;
+    } else {
+      nodes = pending.get(method);
+      if (nodes == null) {
+        nodes = nodeOrder == null ? new ArrayDeque<>() : new PriorityQueue<>(nodeOrder);
+        pending.put(method, nodes);
+        if (pendingMethods != null) {
+          pendingMethods.add(method);
+        }
+      }
+    }
+    nodes.add(node);
+    if (size++ == 0) {
+      watch.start();
+    }
+    maxSize = Math.max(maxSize, size);
+  }
+
+  /** Removes the next node, or returns null if no node is pending. */
+  public Node<Stmt, Fact> poll() {
+    if (currentNodes == null || currentNodes.isEmpty()) {
+      if (!nextMethod()) {
+        return null;
+      }
+    }
+    Node<Stmt, Fact> node = currentNodes.poll();
+    processed++;
+    if (--size == 0) {
+      watch.stop();
+    }
+    return node;
+  }
+
+  private boolean nextMethod() {
+    if (currentNodes != null) {
+      pending.remove(current);
+      current = null;
+      currentNodes = null;
+    }
+    if (pending.isEmpty()) {
+      return false;
+    }
+    if (pendingMethods != null) {
+      current = pendingMethods.poll();
+    } else {
+      current = pending.keySet().iterator().next();
+    }
+    currentNodes = pending.get(current);
+    batches++;
+    return true;
+  }
+
+  /** Discards all pending nodes, e.g. when the propagation that reached them was aborted. */
+  public void clear() {
+    pending.clear();
+    if (pendingMethods != null) {
+      pendingMethods.clear();
+    }
+    current = null;
+    currentNodes = null;
+    if (size > 0) {
+      size = 0;
+      watch.stop();
+    }
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** @return The number of pending nodes. */
+  public int size() {
+    return size;
+  }
+
+  /** @return The largest number of nodes that were pending at the same time. */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /** @return The number of nodes that were removed from the worklist. */
+  public long getProcessedNodes() {
+    return processed;
+  }
+
+  /** @return The number of times the worklist switched to the nodes of another method. */
+  public long getMethodBatches() {
+    return batches;
+  }
+
+  /** @return The processed nodes per second of the time nodes were pending. */
+  public double getNodesPerSecond() {
+    long micros = watch.elapsed(TimeUnit.MICROSECONDS);
+    return micros == 0 ? 0 : processed * 1_000_000.0 / micros;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "NodeWorklist (pending: %s, max: %s, processed: %s, batches: %s, nodes/s: %.0f)",
+        size, maxSize, processed, batches, getNodesPerSecond());
+  }
+}
@@ -38,9 +38,11 @@ import wpds.impl.NormalRule;
 import wpds.impl.PopRule;
 import wpds.impl.PushRule;
 import wpds.impl.Rule;
+import wpds.impl.SharedStore;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
 import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
 import wpds.impl.WeightedPushdownSystem;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
@@ -78,6 +80,8 @@ public abstract class SyncPDSSolver<
       reachedStateUpdateListeners = HashMultimap.create();
   protected final WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> fieldAutomaton;
   protected final WeightedPAutomaton<Stmt, INode<Fact>, W> callAutomaton;
+  private NodeWorklist<Stmt, Fact, ?> nodeWorklist;
+  private boolean drainingNodes;
 
   protected boolean preventFieldTransitionAdd(
       Transition<Field, INode<Node<Stmt, Fact>>> trans, W weight) {
@@ -96,6 +100,26 @@ public abstract class SyncPDSSolver<
       int maxCallDepth,
       int maxFieldDepth,
       int maxUnbalancedCallDepth) {
+    this(
+        useCallSummaries,
+        callSummaries,
+        useFieldSummaries,
+        fieldSummaries,
+        maxCallDepth,
+        maxFieldDepth,
+        maxUnbalancedCallDepth,
+        SaturationStrategy.RECURSIVE);
+  }
+
+  public SyncPDSSolver(
+      final boolean useCallSummaries,
+      NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+      final boolean useFieldSummaries,
+      NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries,
+      int maxCallDepth,
+      int maxFieldDepth,
+      int maxUnbalancedCallDepth,
+      SaturationStrategy saturationStrategy) {
     fieldAutomaton =
         new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>() {
           @Override
@@ -124,6 +148,11 @@ public abstract class SyncPDSSolver<
             return maxFieldDepth;
           }
 
+          @Override
+          public SaturationStrategy getSaturationStrategy() {
+            return saturationStrategy;
+          }
+
           public boolean addWeightForTransition(
               Transition<Field, INode<Node<Stmt, Fact>>> trans, W weight) {
             if (preventFieldTransitionAdd(trans, weight)) return false;
@@ -179,6 +208,11 @@ public abstract class SyncPDSSolver<
           public int getMaxUnbalancedDepth() {
             return maxUnbalancedCallDepth;
           }
+
+          @Override
+          public SaturationStrategy getSaturationStrategy() {
+            return saturationStrategy;
+          }
         };
 
     callAutomaton.registerListener(new CallAutomatonListener());
@@ -479,7 +513,44 @@ public abstract class SyncPDSSolver<
 
   public void processNode(Node<Stmt, Fact> curr) {
     if (!addReachableState(curr)) return;
-    computeSuccessor(curr);
+    if (nodeWorklist == null) {
+      computeSuccessor(curr);
+      return;
+    }
+    nodeWorklist.add(curr);
+    if (drainingNodes) {
+      return;
+    }
+    drainingNodes = true;
+    boolean drained = false;
+    try {
+      Node<Stmt, Fact> node;
+      while ((node = nodeWorklist.poll()) != null) {
+        computeSuccessor(node);
+      }
+      drained = true;
+    } finally {
+      drainingNodes = false;
+      if (!drained) {
+        // The propagation was aborted (e.g. by a timeout), the pending nodes must not be drained
+        // by whichever propagation reaches the next node
+        nodeWorklist.clear();
+      }
+    }
+  }
+
+  /**
+   * Computes the successors of reached nodes in the order of the worklist rather than directly
+   * when a node is reached, which bounds the depth of the call stack by the propagation of a single
+   * node. Must be set before the solver propagates.
+   */
+  public void setNodeWorklist(NodeWorklist<Stmt, Fact, ?> nodeWorklist) {
+    this.nodeWorklist = nodeWorklist;
+  }
+
+  /** @return The worklist of the solver, or null if successors are computed directly. */
+  public NodeWorklist<Stmt, Fact, ?> getNodeWorklist() {
+    return nodeWorklist;
   }
 
   public void propagate(Node<Stmt, Fact> curr, State s) {
@@ -502,12 +573,15 @@ public abstract class SyncPDSSolver<
   private boolean addReachableState(Node<Stmt, Fact> curr) {
     if (reachedStates.contains(curr)) return false;
     reachedStates.add(curr);
-    for (SyncPDSUpdateListener<Stmt, Fact> l : Lists.newLinkedList(updateListeners)) {
+    for (SyncPDSUpdateListener<Stmt, Fact> l : Lists.newArrayList(updateListeners)) {
       l.onReachableNodeAdded(curr);
     }
-    for (SyncStatePDSUpdateListener<Stmt, Fact> l :
-        Lists.newLinkedList(reachedStateUpdateListeners.get(curr))) {
-      l.reachable();
+    Collection<SyncStatePDSUpdateListener<Stmt, Fact>> stateListeners =
+        reachedStateUpdateListeners.get(curr);
+    if (!stateListeners.isEmpty()) {
+      for (SyncStatePDSUpdateListener<Stmt, Fact> l : Lists.newArrayList(stateListeners)) {
+        l.reachable();
+      }
     }
     return true;
   }
@@ -690,6 +764,19 @@ public abstract class SyncPDSSolver<
     }
   }
 
+  /**
+   * Shares the rules, transitions and weights of this solver with the other users of the stores.
+   * Must be called before the solver propagates.
+   */
+  public void setSharedStores(
+      SharedStore<Stmt, INode<Fact>, W> callStore,
+      SharedStore<Field, INode<Node<Stmt, Fact>>, W> fieldStore) {
+    callingPDS.setSharedStore(callStore);
+    callAutomaton.setSharedStore(callStore);
+    fieldPDS.setSharedStore(fieldStore);
+    fieldAutomaton.setSharedStore(fieldStore);
+  }
+
   public void addCallRule(Rule<Stmt, INode<Fact>, W> rule) {
     callingPDS.addRule(rule);
   }
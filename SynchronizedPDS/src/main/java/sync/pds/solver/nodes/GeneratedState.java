@@ -13,8 +13,9 @@ package sync.pds.solver.nodes;
 
 public class GeneratedState<L, N> implements INode<L> {
 
-  private INode<L> node;
-  private N loc;
+  private final INode<L> node;
+  private final N loc;
+  private int hashCode;
 
   public GeneratedState(INode<L> node, N loc) {
     this.node = node;
@@ -42,10 +43,12 @@ public class GeneratedState<L, N> implements INode<L> {
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((loc == null) ? 0 : loc.hashCode());
     result = prime * result + ((node == null) ? 0 : node.hashCode());
+    hashCode = result;
     return result;
   }
 
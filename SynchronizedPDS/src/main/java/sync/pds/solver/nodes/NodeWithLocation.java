@@ -13,8 +13,9 @@ package sync.pds.solver.nodes;
 
 public class NodeWithLocation<Stmt, Fact, Location> implements INode<Node<Stmt, Fact>> {
 
-  private Location loc;
-  private Node<Stmt, Fact> fact;
+  private final Location loc;
+  private final Node<Stmt, Fact> fact;
+  private int hashCode;
 
   public NodeWithLocation(Stmt stmt, Fact variable, Location loc) {
     this.fact = new Node<>(stmt, variable);
@@ -32,10 +33,12 @@ public class NodeWithLocation<Stmt, Fact, Location> implements INode<Node<Stmt,
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((fact == null) ? 0 : fact.hashCode());
     result = prime * result + ((loc == null) ? 0 : loc.hashCode());
+    hashCode = result;
     return result;
   }
 
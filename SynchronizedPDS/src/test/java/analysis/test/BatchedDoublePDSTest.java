@@ -0,0 +1,21 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package analysis.test;
+
+/** Runs the tests of {@link DoublePDSTest} with the reached nodes drained from a worklist. */
+public class BatchedDoublePDSTest extends DoublePDSTest {
+
+  @Override
+  protected boolean batchNodes() {
+    return true;
+  }
+}
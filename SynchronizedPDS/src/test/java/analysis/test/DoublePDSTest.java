@@ -11,15 +11,20 @@
  */
 package analysis.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sync.pds.solver.NodeWorklist;
 import sync.pds.solver.OneWeightFunctions;
 import sync.pds.solver.SyncPDSSolver;
 import sync.pds.solver.SyncPDSSolver.PDSSystem;
@@ -86,6 +91,7 @@ public class DoublePDSTest {
   private Statement epsilonCallSite = new Statement(-1);
 
   private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = new TestSyncPDSSolver();
+  private Node<Statement, Variable> abortAt;
 
   private class TestSyncPDSSolver extends SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> {
 
@@ -98,10 +104,21 @@ public class DoublePDSTest {
           -1,
           -1,
           -1);
+      if (batchNodes()) {
+        // Statements with the same parity form a method, nodes are drained by variable name
+        setNodeWorklist(
+            new NodeWorklist<>(
+                s -> Integer.parseInt(s.toString()) % 2,
+                null,
+                Comparator.comparing(n -> n.fact().toString())));
+      }
     }
 
     @Override
     public void computeSuccessor(Node<Statement, Variable> node) {
+      if (node.equals(abortAt)) {
+        throw new IllegalStateException("Propagation aborted at " + node);
+      }
       Collection<State> states = successorMap.get(node);
       for (State s : states) {
         propagate(node, s);
@@ -158,6 +175,11 @@ public class DoublePDSTest {
     }
   }
 
+  /** Subclasses return true to run the tests with a worklist of reached nodes. */
+  protected boolean batchNodes() {
+    return false;
+  }
+
   private void solve(Node<Statement, Variable> node) {
     solver.solve(
         node,
@@ -422,6 +444,26 @@ public class DoublePDSTest {
     assertTrue(solver.getReachedStates().contains(node(2, "x")));
   }
 
+  @Test
+  public void abortedPropagationLeavesNoPendingNodes() {
+    addNormal(node(0, "u"), node(1, "v"));
+    addNormal(node(0, "u"), node(1, "w"));
+    addNormal(node(1, "w"), node(2, "w"));
+    addNormal(node(3, "z"), node(4, "z"));
+    abortAt = node(1, "v");
+    try {
+      solve(node(0, "u"));
+      fail("Propagation was not aborted");
+    } catch (IllegalStateException expected) {
+    }
+    // Only the nodes reachable from the new start node may be added by the next propagation
+    Set<Node<Statement, Variable>> expected = solver.getReachedStates();
+    expected.add(node(3, "z"));
+    expected.add(node(4, "z"));
+    solve(node(3, "z"));
+    assertEquals(expected, solver.getReachedStates());
+  }
+
   @Test
   public void negativeTestFieldPushAndPopPop() {
     addFieldPush(node(0, "u"), f("h"), node(1, "u"));
@@ -15,8 +15,9 @@ import wpds.interfaces.Location;
 import wpds.interfaces.State;
 
 public class Configuration<N extends Location, D extends State> {
-  private D state;
-  private N location;
+  private final D state;
+  private final N location;
+  private int hashCode;
 
   public Configuration(N location, D state) {
     this.location = location;
@@ -25,10 +26,12 @@ public class Configuration<N extends Location, D extends State> {
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((location == null) ? 0 : location.hashCode());
     result = prime * result + ((state == null) ? 0 : state.hashCode());
+    hashCode = result;
     return result;
   }
 
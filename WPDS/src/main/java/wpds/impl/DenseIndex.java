@@ -0,0 +1,170 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package wpds.impl;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Assigns dense int ids to objects and keeps one canonical instance per equivalence class. Once an
+ * object is indexed, equality checks against the canonical instance succeed on identity and its id
+ * can be used as index into array based tables.
+ *
+ * <p>The objects are stored in an array in the order of their ids. An open-addressing table of
+ * primitive ids maps objects to their ids, so no entry objects or boxed ids are allocated.
+ */
+public class DenseIndex<T> {
+  private static final int EMPTY = -1;
+
+  private int[] table = newTable(16);
+  private Object[] values = new Object[8];
+  private int[] hashes = new int[8];
+  private int size;
+  private final Set<T> elements = new Elements();
+
+  /** Returns the id of the given object, assigning the next free id if it is not yet known. */
+  public int intern(T value) {
+    int hash = Objects.hashCode(value);
+    int slot = slot(value, hash);
+    if (table[slot] != EMPTY) {
+      return table[slot];
+    }
+    int id = size++;
+    if (id == values.length) {
+      values = Arrays.copyOf(values, id * 2);
+      hashes = Arrays.copyOf(hashes, id * 2);
+    }
+    values[id] = value;
+    hashes[id] = hash;
+    table[slot] = id;
+    // Keep the load factor at most one half
+    if (size * 2 > table.length) {
+      rehash();
+    }
+    return id;
+  }
+
+  /** Returns the id of the given object or -1 if it has not been interned. */
+  public int getId(T value) {
+    return table[slot(value, Objects.hashCode(value))];
+  }
+
+  public T get(int id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException(String.valueOf(id));
+    }
+    return value(id);
+  }
+
+  /** Returns the canonical instance equal to the given object, interning it if necessary. */
+  public T canonical(T value) {
+    return value(intern(value));
+  }
+
+  /** Returns the canonical instance equal to the given object or null if it is not interned. */
+  public T find(T value) {
+    int id = getId(value);
+    return id == EMPTY ? null : value(id);
+  }
+
+  public boolean contains(T value) {
+    return getId(value) != EMPTY;
+  }
+
+  /** A read-only view of the interned objects, iterated in the order of their ids. */
+  public Set<T> elements() {
+    return elements;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T value(int id) {
+    return (T) values[id];
+  }
+
+  /** Returns the slot of the table that holds the id of the object or the empty slot to use. */
+  private int slot(Object value, int hash) {
+    int mask = table.length - 1;
+    int i = mix(hash) & mask;
+    int id;
+    while ((id = table[i]) != EMPTY) {
+      if (hashes[id] == hash && Objects.equals(values[id], value)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private void rehash() {
+    table = newTable(table.length * 2);
+    int mask = table.length - 1;
+    for (int id = 0; id < size; id++) {
+      int i = mix(hashes[id]) & mask;
+      while (table[i] != EMPTY) {
+        i = (i + 1) & mask;
+      }
+      table[i] = id;
+    }
+  }
+
+  private static int[] newTable(int capacity) {
+    int[] table = new int[capacity];
+    Arrays.fill(table, EMPTY);
+    return table;
+  }
+
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private class Elements extends AbstractSet<T> {
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+          return next < size;
+        }
+
+        @Override
+        public T next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return value(next++);
+        }
+      };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object o) {
+      return DenseIndex.this.contains((T) o);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package wpds.impl;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.concurrent.atomic.LongAdder;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * Canonical transitions, rules and weights shared by the automata and pushdown systems of several
+ * solvers, see {@link WeightedPAutomaton#setSharedStore(SharedStore)} and {@link
+ * WeightedPushdownSystem#setSharedStore(SharedStore)}. Solvers of related queries derive many equal
+ * transitions and rules, with a shared store each of them is materialized once. The store refers
+ * to its elements weakly, such that the content of discarded solvers can be collected.
+ *
+ * <p>Weights, and the rules that carry a weight, are only shared if requested, which requires the
+ * weights of the domain to be immutable and their equality to cover all their state. The store is thread-safe, its interners
+ * are concurrent and its counters are only approximate while solvers add content.
+ */
+public class SharedStore<N extends Location, D extends State, W extends Weight> {
+  // Approximate shallow sizes with compressed references, used to estimate the memory saved
+  private static final int TRANSITION_BYTES = 32;
+  private static final int RULE_BYTES = 32;
+
+  private final Interner<D> states = Interners.newWeakInterner();
+  private final Interner<N> labels = Interners.newWeakInterner();
+  private final Interner<Transition<N, D>> transitions = Interners.newWeakInterner();
+  private final Interner<Rule<N, D, W>> rules = Interners.newWeakInterner();
+  private final Interner<W> weights = Interners.newWeakInterner();
+  private final boolean shareWeights;
+  private final LongAdder transitionRequests = new LongAdder();
+  private final LongAdder sharedTransitions = new LongAdder();
+  private final LongAdder ruleRequests = new LongAdder();
+  private final LongAdder sharedRules = new LongAdder();
+  private final LongAdder sharedWeights = new LongAdder();
+
+  public SharedStore(boolean shareWeights) {
+    this.shareWeights = shareWeights;
+  }
+
+  /**
+   * Returns the canonical transition equal to the given one. Its states and label are canonical as
+   * well, such that the automata that use the store intern the same instances.
+   */
+  public Transition<N, D> canonical(Transition<N, D> trans) {
+    transitionRequests.increment();
+    D start = states.intern(trans.getStart());
+    N label = labels.intern(trans.getLabel());
+    D target = states.intern(trans.getTarget());
+    if (start != trans.getStart() || label != trans.getLabel() || target != trans.getTarget()) {
+      trans = new Transition<>(start, label, target);
+    }
+    Transition<N, D> res = transitions.intern(trans);
+    if (res != trans) {
+      sharedTransitions.increment();
+    }
+    return res;
+  }
+
+  /**
+   * Returns the canonical rule equal to the given one. The equality of rules covers their weights,
+   * hence weighted rules are only shared if the weights are, otherwise a rule of another solver
+   * could carry a weight that is equal, but differs in state the equality ignores.
+   */
+  public Rule<N, D, W> canonical(Rule<N, D, W> rule) {
+    if (!shareWeights && !(rule.getWeight() instanceof Weight.NoWeight)) {
+      return rule;
+    }
+    ruleRequests.increment();
+    Rule<N, D, W> res = rules.intern(rule);
+    if (res != rule) {
+      sharedRules.increment();
+    }
+    return res;
+  }
+
+  public W canonical(W weight) {
+    if (!shareWeights) {
+      return weight;
+    }
+    W res = weights.intern(weight);
+    if (res != weight) {
+      sharedWeights.increment();
+    }
+    return res;
+  }
+
+  public long getTransitionRequests() {
+    return transitionRequests.sum();
+  }
+
+  /** The number of transitions that were replaced by an equal instance of the store. */
+  public long getSharedTransitions() {
+    return sharedTransitions.sum();
+  }
+
+  public long getRuleRequests() {
+    return ruleRequests.sum();
+  }
+
+  /** The number of rules that were replaced by an equal instance of the store. */
+  public long getSharedRules() {
+    return sharedRules.sum();
+  }
+
+  /** The number of weights that were replaced by an equal instance of the store. */
+  public long getSharedWeights() {
+    return sharedWeights.sum();
+  }
+
+  /**
+   * An estimate of the memory the shared transitions and rules would otherwise occupy, in bytes.
+   * Shared weights are not included, their size depends on the weight domain.
+   */
+  public long getEstimatedSavedBytes() {
+    return sharedTransitions.sum() * TRANSITION_BYTES + sharedRules.sum() * RULE_BYTES;
+  }
+}
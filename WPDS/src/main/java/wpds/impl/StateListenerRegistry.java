@@ -0,0 +1,142 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package wpds.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+import wpds.interfaces.WPAStateListener;
+
+/**
+ * The {@link WPAStateListener}s of a {@link WeightedPAutomaton}, grouped by their state. The
+ * listeners of a state are kept in an append-only array, a notification iterates the listeners
+ * present when it starts, such that listeners registered meanwhile are neither notified nor cause a
+ * copy. Listeners of the same state are deduplicated by equality, which is checked by a linear scan
+ * for the few listeners most states have. Only states with many listeners maintain a hash index.
+ */
+class StateListenerRegistry<N extends Location, D extends State, W extends Weight> {
+  private static final int INDEX_THRESHOLD = 8;
+
+  private final Map<D, Bucket> buckets = Maps.newHashMap();
+  private int size;
+
+  /** Returns false if an equal listener is already registered for the state. */
+  boolean add(WPAStateListener<N, D, W> l) {
+    Bucket bucket = buckets.get(l.getState());
+    if (bucket == null) {
+      bucket = new Bucket();
+      buckets.put(l.getState(), bucket);
+    }
+    if (!bucket.add(l)) {
+      return false;
+    }
+    size++;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  void notifyOutTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+    Bucket bucket = buckets.get(t.getStart());
+    if (bucket == null) {
+      return;
+    }
+    WPAStateListener<?, ?, ?>[] listeners = bucket.listeners;
+    int count = bucket.size;
+    for (int i = 0; i < count; i++) {
+      ((WPAStateListener<N, D, W>) listeners[i]).onOutTransitionAdded(t, w, aut);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  void notifyInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
+    Bucket bucket = buckets.get(t.getTarget());
+    if (bucket == null) {
+      return;
+    }
+    WPAStateListener<?, ?, ?>[] listeners = bucket.listeners;
+    int count = bucket.size;
+    for (int i = 0; i < count; i++) {
+      ((WPAStateListener<N, D, W>) listeners[i]).onInTransitionAdded(t, w, aut);
+    }
+  }
+
+  /** A copy of all registered listeners. */
+  @SuppressWarnings("unchecked")
+  List<WPAStateListener<N, D, W>> values() {
+    List<WPAStateListener<N, D, W>> res = Lists.newArrayListWithCapacity(size);
+    for (Bucket bucket : buckets.values()) {
+      for (int i = 0; i < bucket.size; i++) {
+        res.add((WPAStateListener<N, D, W>) bucket.listeners[i]);
+      }
+    }
+    return res;
+  }
+
+  int count(D state) {
+    Bucket bucket = buckets.get(state);
+    return bucket == null ? 0 : bucket.size;
+  }
+
+  /** The states with the most listeners, in descending order of their number of listeners. */
+  List<D> hottestStates(int limit) {
+    List<D> res = Lists.newArrayList(buckets.keySet());
+    res.sort((a, b) -> Integer.compare(buckets.get(b).size, buckets.get(a).size));
+    return res.subList(0, Math.min(limit, res.size()));
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    buckets.clear();
+    size = 0;
+  }
+
+  private static final class Bucket {
+    private static final WPAStateListener<?, ?, ?>[] EMPTY = new WPAStateListener<?, ?, ?>[0];
+
+    // Slots beyond size are unused, a full array is replaced rather than modified
+    private WPAStateListener<?, ?, ?>[] listeners = EMPTY;
+    private int size;
+    private Set<WPAStateListener<?, ?, ?>> index;
+
+    private boolean add(WPAStateListener<?, ?, ?> l) {
+      if (index != null) {
+        if (!index.add(l)) {
+          return false;
+        }
+      } else {
+        for (int i = 0; i < size; i++) {
+          if (listeners[i].equals(l)) {
+            return false;
+          }
+        }
+        if (size == INDEX_THRESHOLD) {
+          index = Sets.newHashSet(Arrays.asList(listeners).subList(0, size));
+          index.add(l);
+        }
+      }
+      if (size == listeners.length) {
+        listeners = Arrays.copyOf(listeners, Math.max(2, 2 * size));
+      }
+      listeners[size++] = l;
+      return true;
+    }
+  }
+}
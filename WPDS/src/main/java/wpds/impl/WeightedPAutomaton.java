@@ -15,18 +15,25 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import org.slf4j.Logger;
@@ -51,16 +58,20 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
   // Set Q is implicit
   // Weighted Pushdown Systems and their Application to Interprocedural
   // Dataflow Analysis
-  protected Set<Transition<N, D>> transitions = Sets.newHashSet();
+  private final DenseIndex<Transition<N, D>> transitions = new DenseIndex<>();
   // set F in paper [Reps2003]
   protected Set<D> finalState = Sets.newHashSet();
   protected Multimap<D, D> initialStatesToSource = HashMultimap.create();
   // set P in paper [Reps2003]
-  protected Set<D> states = Sets.newHashSet();
-  private final Multimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
-  private final Multimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
+  // States and labels are interned, transitions are indexed by the ids of their states
+  private final DenseIndex<D> states = new DenseIndex<>();
+  private final DenseIndex<N> labels = new DenseIndex<>();
+  private final List<List<Transition<N, D>>> transitionsOutOf = Lists.newArrayList();
+  private final List<List<Transition<N, D>>> transitionsInto = Lists.newArrayList();
   private Set<WPAUpdateListener<N, D, W>> listeners = Sets.newHashSet();
-  private Multimap<D, WPAStateListener<N, D, W>> stateListeners = HashMultimap.create();
+  // Append-only view of listeners, iterated by index to avoid copying on each update
+  private List<WPAUpdateListener<N, D, W>> listenerList = Lists.newArrayList();
+  private final StateListenerRegistry<N, D, W> stateListeners = new StateListenerRegistry<>();
   private Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS = Maps.newHashMap();
   private Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS = Maps.newHashMap();
   private Set<WeightedPAutomaton<N, D, W>> nestedAutomatons = Sets.newHashSet();
@@ -77,19 +88,41 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
   public int failedAdditions;
   public int failedDirectAdditions;
   private WeightedPAutomaton<N, D, W> initialAutomaton;
+  // Memoizes the path expressions per source state, valid for the states and transitions counted
   private PathExpressionComputer<D, N> pathExpressionComputer;
-  private int lastStates = 0;
+  private int lastStates = -1;
+  private int lastTransitions = -1;
+  private int pathExpressionComputers;
   private Stopwatch watch = Stopwatch.createUnstarted();
   private Map<D, Integer> stateToDistanceToInitial = Maps.newHashMap();
   private Map<D, Integer> stateToUnbalancedDistance = Maps.newHashMap();
   private final Map<D, Transition<N, D>> stateCreatingTransition = Maps.newHashMap();
+  private Queue<PendingUpdate> worklist;
+  // The transitions of the queued updates, a registered listener receives them from the queue
+  private final Multiset<Transition<N, D>> pendingTransitions = HashMultiset.create();
+  private boolean draining;
+  private long pendingUpdateCounter;
+  private SharedStore<N, D, W> sharedStore;
+
+  /**
+   * Determines how listeners are notified about updated transitions. {@link #RECURSIVE} notifies
+   * all listeners directly within {@link #addWeightForTransition(Transition, Weight)}, hence the
+   * depth of the saturation equals the depth of the call stack. The other strategies enqueue the
+   * update and drain the queue in a loop, which bounds the stack usage.
+   */
+  public enum SaturationStrategy {
+    RECURSIVE,
+    FIFO,
+    LIFO,
+    PRIORITY
+  }
 
   public abstract D createState(D d, N loc);
 
   public abstract boolean isGeneratedState(D d);
 
   public Collection<Transition<N, D>> getTransitions() {
-    return Lists.newArrayList(transitions);
+    return Lists.newArrayList(transitions.elements());
   }
 
   public boolean addTransition(Transition<N, D> trans) {
@@ -142,9 +175,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     Set<Transition<N, D>> removableTrans = Sets.newHashSet();
     if (SUMMARIZE) {
       Table<N, D, Set<Transition<N, D>>> mergableStates = HashBasedTable.create();
-      for (D source : states) {
-        if (transitionsInto.get(source).isEmpty() && transitionsOutOf.get(source).size() == 1) {
-          for (Transition<N, D> t : transitionsOutOf.get(source)) {
+      for (D source : states.elements()) {
+        if (getTransitionsInto(source).isEmpty() && getTransitionsOutOf(source).size() == 1) {
+          for (Transition<N, D> t : getTransitionsOutOf(source)) {
             Set<Transition<N, D>> set = mergableStates.get(t.getLabel(), t.getTarget());
             if (set == null) {
               set = Sets.newHashSet();
@@ -173,10 +206,10 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
       }
     }
-    for (D source : states) {
-      Collection<Transition<N, D>> collection = transitionsOutOf.get(source);
+    for (D source : states.elements()) {
+      Collection<Transition<N, D>> collection = getTransitionsOutOf(source);
 
-      for (D target : states) {
+      for (D target : states.elements()) {
         List<String> labels = Lists.newLinkedList();
         for (Transition<N, D> t : collection) {
           if (removableTrans.contains(t)) continue;
@@ -222,7 +255,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
   public String toLabelGroupedDotString() {
     HashBasedTable<D, N, Collection<D>> groupedByTargetAndLabel = HashBasedTable.create();
-    for (Transition<N, D> t : transitions) {
+    for (Transition<N, D> t : transitions.elements()) {
       Collection<D> collection = groupedByTargetAndLabel.get(t.getTarget(), t.getLabel());
       if (collection == null) collection = Sets.newHashSet();
       collection.add(t.getStart());
@@ -250,7 +283,24 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
   public abstract N epsilon();
 
   public IRegEx<N> extractLanguage(D from) {
-    PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
+    return extractLanguage(from, pathExpressionComputer());
+  }
+
+  /**
+   * The languages of {@link #extractLanguage(State)} for many states. All languages are computed by
+   * the same path expression computer, hence the path sequence of the automaton is computed once
+   * for all states.
+   */
+  public Map<D, IRegEx<N>> extractLanguages(Collection<D> from) {
+    PathExpressionComputer<D, N> expr = pathExpressionComputer();
+    Map<D, IRegEx<N>> res = Maps.newHashMap();
+    for (D state : from) {
+      res.put(state, extractLanguage(state, expr));
+    }
+    return res;
+  }
+
+  private IRegEx<N> extractLanguage(D from, PathExpressionComputer<D, N> expr) {
     IRegEx<N> res = null;
     for (D finalState : getFinalState()) {
       IRegEx<N> regEx = expr.getExpressionBetween(from, finalState);
@@ -265,19 +315,38 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
   }
 
   public IRegEx<N> extractLanguage(D from, D to) {
-    PathExpressionComputer<D, N> expr = new PathExpressionComputer<>(this);
-    IRegEx<N> res = expr.getExpressionBetween(from, to);
+    IRegEx<N> res = pathExpressionComputer().getExpressionBetween(from, to);
     if (res == null) return new RegEx.EmptySet<N>();
     return res;
   }
 
+  /**
+   * The path expression computer of the current automaton. The computer memoizes the path
+   * expressions from each state it was queried for, it is replaced once a state or a transition is
+   * added. Adding a weight to an existing transition does not change any path expression.
+   */
+  private PathExpressionComputer<D, N> pathExpressionComputer() {
+    if (lastStates != states.size() || lastTransitions != transitions.size()) {
+      pathExpressionComputer = new PathExpressionComputer<>(this);
+      lastStates = states.size();
+      lastTransitions = transitions.size();
+      pathExpressionComputers++;
+    }
+    return pathExpressionComputer;
+  }
+
+  /** @return The number of path expression computers created for this automaton. */
+  public int getPathExpressionComputers() {
+    return pathExpressionComputers;
+  }
+
   public Set<D> getStates() {
-    return states;
+    return states.elements();
   }
 
   public Set<Edge<D, N>> getEdges() {
     Set<Edge<D, N>> trans = Sets.newHashSet();
-    for (Edge<D, N> tran : transitions) {
+    for (Edge<D, N> tran : transitions.elements()) {
       if (!tran.getLabel().equals(epsilon())) {
         trans.add(new Transition<N, D>(tran.getTarget(), tran.getLabel(), tran.getStart()));
       }
@@ -302,28 +371,37 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     if (!watch.isRunning()) {
       watch.start();
     }
-    transitionsOutOf.get(trans.getStart()).add(trans);
-    transitionsInto.get(trans.getTarget()).add(trans);
-    if (states.add(trans.getTarget())) {
-      stateCreatingTransition.put(trans.getTarget(), trans);
+    // A known transition is looked up without rebuilding it on the canonical states and label
+    Transition<N, D> known = transitions.find(trans);
+    boolean added = known == null;
+    if (added) {
+      int knownStates = states.size();
+      if (sharedStore != null) {
+        trans = sharedStore.canonical(trans);
+      }
+      trans = canonical(trans);
+      int target = states.getId(trans.getTarget());
+      if (target == knownStates) {
+        stateCreatingTransition.put(trans.getTarget(), trans);
+      }
+      transitions.intern(trans);
+      adjacent(transitionsOutOf, states.getId(trans.getStart())).add(trans);
+      adjacent(transitionsInto, target).add(trans);
+    } else {
+      trans = known;
     }
-    states.add(trans.getStart());
-    boolean added = transitions.add(trans);
     W oldWeight = transitionToWeights.get(trans);
     W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
 
     if (!newWeight.equals(oldWeight)) {
-      transitionToWeights.put(trans, newWeight);
-
-      for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-        l.onWeightAdded(trans, newWeight, this);
+      if (sharedStore != null) {
+        newWeight = sharedStore.canonical(newWeight);
       }
-      for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getStart()))) {
-        l.onOutTransitionAdded(trans, newWeight, this);
-      }
-      for (WPAStateListener<N, D, W> l :
-          Lists.newArrayList(stateListeners.get(trans.getTarget()))) {
-        l.onInTransitionAdded(trans, newWeight, this);
+      transitionToWeights.put(trans, newWeight);
+      if (getSaturationStrategy() == SaturationStrategy.RECURSIVE) {
+        notifyListeners(trans, newWeight);
+      } else {
+        enqueueUpdate(trans, newWeight, distanceToInitial);
       }
       added = true;
     }
@@ -332,6 +410,128 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     return added;
   }
 
+  /**
+   * Shares the transitions and weights of this automaton with the other users of the store. Must be
+   * set before the first transition is added.
+   */
+  public void setSharedStore(SharedStore<N, D, W> sharedStore) {
+    this.sharedStore = sharedStore;
+  }
+
+  /**
+   * Returns a transition equal to the given one that refers to the interned instances of its
+   * states and label. The target is interned first, so a previously unknown target receives the
+   * next free id.
+   */
+  private Transition<N, D> canonical(Transition<N, D> trans) {
+    D target = states.canonical(trans.getTarget());
+    D start = states.canonical(trans.getStart());
+    N label = labels.canonical(trans.getLabel());
+    if (start == trans.getStart() && label == trans.getLabel() && target == trans.getTarget()) {
+      return trans;
+    }
+    return new Transition<>(start, label, target);
+  }
+
+  private static <T> List<T> adjacent(List<List<T>> table, int id) {
+    while (table.size() <= id) {
+      table.add(null);
+    }
+    List<T> list = table.get(id);
+    if (list == null) {
+      list = Lists.newArrayListWithCapacity(2);
+      table.set(id, list);
+    }
+    return list;
+  }
+
+  private Collection<Transition<N, D>> getTransitionsOutOf(D state) {
+    return adjacentTo(transitionsOutOf, state);
+  }
+
+  private Collection<Transition<N, D>> getTransitionsInto(D state) {
+    return adjacentTo(transitionsInto, state);
+  }
+
+  private Collection<Transition<N, D>> adjacentTo(List<List<Transition<N, D>>> table, D state) {
+    int id = states.getId(state);
+    if (id < 0 || id >= table.size() || table.get(id) == null) {
+      return Collections.emptyList();
+    }
+    return table.get(id);
+  }
+
+  private void notifyListeners(Transition<N, D> trans, W newWeight) {
+    int size = listenerList.size();
+    for (int i = 0; i < size && i < listenerList.size(); i++) {
+      listenerList.get(i).onWeightAdded(trans, newWeight, this);
+    }
+    stateListeners.notifyOutTransitionAdded(trans, newWeight, this);
+    stateListeners.notifyInTransitionAdded(trans, newWeight, this);
+  }
+
+  private void enqueueUpdate(Transition<N, D> trans, W newWeight, int distanceToInitial) {
+    if (worklist == null) {
+      worklist = createWorklist(getSaturationStrategy());
+    }
+    worklist.add(
+        new PendingUpdate(
+            trans,
+            newWeight,
+            getSaturationPriority(trans, distanceToInitial),
+            pendingUpdateCounter++));
+    pendingTransitions.add(trans);
+    if (draining) {
+      return;
+    }
+    draining = true;
+    try {
+      PendingUpdate update;
+      while ((update = worklist.poll()) != null) {
+        pendingTransitions.remove(update.trans);
+        notifyListeners(update.trans, update.weight);
+      }
+    } finally {
+      draining = false;
+    }
+  }
+
+  private Queue<PendingUpdate> createWorklist(SaturationStrategy strategy) {
+    switch (strategy) {
+      case FIFO:
+        return new ArrayDeque<>();
+      case LIFO:
+        return Collections.asLifoQueue(new ArrayDeque<>());
+      case PRIORITY:
+        return new PriorityQueue<>(
+            Comparator.<PendingUpdate>comparingInt(u -> u.priority)
+                .thenComparingLong(u -> u.sequence));
+      default:
+        throw new IllegalStateException("No worklist for saturation strategy " + strategy);
+    }
+  }
+
+  /**
+   * The strategy used to propagate transition updates to the registered listeners. Subclasses
+   * override this method to opt into worklist-based saturation.
+   */
+  public SaturationStrategy getSaturationStrategy() {
+    return SaturationStrategy.RECURSIVE;
+  }
+
+  /**
+   * Priority of an update when using {@link SaturationStrategy#PRIORITY}, lower values are
+   * processed first. By default, transitions closer to an initial state are processed first.
+   */
+  protected int getSaturationPriority(Transition<N, D> trans, int distanceToInitial) {
+    return distanceToInitial;
+  }
+
+  /** @return The number of transition updates that are not yet propagated to the listeners. */
+  public int getPendingUpdates() {
+    return worklist == null ? 0 : worklist.size();
+  }
+
   protected int computeDistance(Transition<N, D> trans) {
     Integer distance;
     if (isUnbalancedState(trans.getTarget())) {
@@ -357,9 +557,12 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
   public void registerListener(WPAUpdateListener<N, D, W> listener) {
     if (!listeners.add(listener)) return;
+    listenerList.add(listener);
     for (Entry<Transition<N, D>, W> transAndWeight :
         Lists.newArrayList(transitionToWeights.entrySet())) {
-      listener.onWeightAdded(transAndWeight.getKey(), transAndWeight.getValue(), this);
+      if (!pendingTransitions.contains(transAndWeight.getKey())) {
+        listener.onWeightAdded(transAndWeight.getKey(), transAndWeight.getValue(), this);
+      }
     }
     for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
       nested.registerListener(listener);
@@ -377,16 +580,35 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
   public void onManyStateListenerRegister() {}
 
+  /** @return The number of state listeners registered for the state. */
+  public int getStateListenerCount(D state) {
+    return stateListeners.count(state);
+  }
+
+  /** @return The number of state listeners registered for any state. */
+  public int getStateListenerCount() {
+    return stateListeners.size();
+  }
+
+  /** @return The states with the most state listeners, at most limit many, most listeners first. */
+  public List<D> getStatesWithMostListeners(int limit) {
+    return stateListeners.hottestStates(limit);
+  }
+
   public void registerListener(WPAStateListener<N, D, W> l) {
-    if (!stateListeners.put(l.getState(), l)) {
+    if (!stateListeners.add(l)) {
       return;
     }
     increaseListenerCount(l);
-    for (Transition<N, D> t : Lists.newArrayList(transitionsOutOf.get(l.getState()))) {
-      l.onOutTransitionAdded(t, transitionToWeights.get(t), this);
+    for (Transition<N, D> t : Lists.newArrayList(getTransitionsOutOf(l.getState()))) {
+      if (!pendingTransitions.contains(t)) {
+        l.onOutTransitionAdded(t, transitionToWeights.get(t), this);
+      }
     }
-    for (Transition<N, D> t : Lists.newArrayList(transitionsInto.get(l.getState()))) {
-      l.onInTransitionAdded(t, transitionToWeights.get(t), this);
+    for (Transition<N, D> t : Lists.newArrayList(getTransitionsInto(l.getState()))) {
+      if (!pendingTransitions.contains(t)) {
+        l.onInTransitionAdded(t, transitionToWeights.get(t), this);
+      }
     }
 
     for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
@@ -468,6 +690,16 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             return true;
           }
 
+          @Override
+          public SaturationStrategy getSaturationStrategy() {
+            return WeightedPAutomaton.this.getSaturationStrategy();
+          }
+
+          @Override
+          protected int getSaturationPriority(Transition<N, D> trans, int distanceToInitial) {
+            return WeightedPAutomaton.this.getSaturationPriority(trans, distanceToInitial);
+          }
+
           @Override
           public String toString() {
             return "NESTED: \n" + super.toString();
@@ -611,6 +843,20 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     }
   }
 
+  private class PendingUpdate {
+    private final Transition<N, D> trans;
+    private final W weight;
+    private final int priority;
+    private final long sequence;
+
+    private PendingUpdate(Transition<N, D> trans, W weight, int priority, long sequence) {
+      this.trans = trans;
+      this.weight = weight;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+  }
+
   public Map<Transition<N, D>, W> getTransitionsToFinalWeights() {
     LOGGER.trace("Start computing final weights");
     final Stopwatch w = Stopwatch.createStarted();
@@ -677,7 +923,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
   public void addNestedAutomaton(WeightedPAutomaton<N, D, W> nested) {
     if (!nestedAutomatons.add(nested)) return;
-    for (WPAStateListener<N, D, W> e : Lists.newArrayList(stateListeners.values())) {
+    for (WPAStateListener<N, D, W> e : stateListeners.values()) {
       nested.registerListener(e);
     }
     for (WPAUpdateListener<N, D, W> e : Lists.newArrayList(listeners)) {
@@ -729,12 +975,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
   }
 
   public IRegEx<N> toRegEx(D start, D end) {
-    if (lastStates < states.size()) {
-      pathExpressionComputer = new PathExpressionComputer<D, N>(this);
-      lastStates = states.size();
-    }
-
-    return RegEx.reverse(pathExpressionComputer.getExpressionBetween(end, start));
+    return RegEx.reverse(pathExpressionComputer().getExpressionBetween(end, start));
   }
 
   public boolean containsLoop() {
@@ -745,7 +986,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     while (!worklist.isEmpty()) {
       D pop = worklist.pop();
       visited.add(pop);
-      Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+      Collection<Transition<N, D>> inTrans = getTransitionsInto(pop);
       for (Transition<N, D> t : inTrans) {
         if (t.getLabel().equals(this.epsilon())) continue;
         if (!isGeneratedState(t.getStart())) continue;
@@ -766,7 +1007,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     while (!worklist.isEmpty()) {
       D pop = worklist.pop();
       Set<N> atCurr = getOrCreate(pathReachingD, pop);
-      Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+      Collection<Transition<N, D>> inTrans = getTransitionsInto(pop);
       for (Transition<N, D> t : inTrans) {
         if (t.getLabel().equals(this.epsilon())) continue;
         D next = t.getStart();
@@ -831,6 +1072,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     this.nestedAutomataListeners.clear();
     this.stateListeners.clear();
     this.listeners.clear();
+    this.listenerList.clear();
     this.stateToEpsilonReachabilityListener.clear();
     this.stateToReachabilityListener.clear();
     this.summaryEdgeListener.clear();
@@ -12,8 +12,13 @@
 package wpds.impl;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import wpds.interfaces.IPushdownSystem;
@@ -27,10 +32,21 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
   protected final Set<PushRule<N, D, W>> pushRules = Sets.newHashSet();
   protected final Set<PopRule<N, D, W>> popRules = Sets.newHashSet();
   protected final Set<NormalRule<N, D, W>> normalRules = Sets.newHashSet();
+  private final Set<Rule<N, D, W>> allRules = Sets.newHashSet();
   protected final Set<WPDSUpdateListener<N, D, W>> listeners = Sets.newHashSet();
+  // Rules indexed by (s1,l1), rules with a wildcard as l1 are kept per s1 in a separate bucket
+  private final Table<D, N, Set<Rule<N, D, W>>> rulesStarting = HashBasedTable.create();
+  private final Multimap<D, Rule<N, D, W>> wildcardRulesStarting = HashMultimap.create();
+  // Rules indexed by (s2,l2)
+  private final Table<D, N, Set<NormalRule<N, D, W>>> normalRulesEnding = HashBasedTable.create();
+  private final Table<D, N, Set<PushRule<N, D, W>>> pushRulesEnding = HashBasedTable.create();
+  private SharedStore<N, D, W> sharedStore;
 
   @Override
   public boolean addRule(Rule<N, D, W> rule) {
+    if (sharedStore != null) {
+      rule = sharedStore.canonical(rule);
+    }
     if (addRuleInternal(rule)) {
       for (WPDSUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
         l.onRuleAdded(rule);
@@ -41,17 +57,53 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
   }
 
   private boolean addRuleInternal(Rule<N, D, W> rule) {
-    if (rule instanceof PushRule) return pushRules.add((PushRule) rule);
-    else if (rule instanceof PopRule) return popRules.add((PopRule) rule);
-    else if (rule instanceof NormalRule) return normalRules.add((NormalRule) rule);
-    throw new RuntimeException("Try to add a rule of wrong type");
+    boolean added;
+    if (rule instanceof PushRule) {
+      PushRule<N, D, W> pushRule = (PushRule<N, D, W>) rule;
+      added = pushRules.add(pushRule);
+      if (added) getOrCreate(pushRulesEnding, rule.getS2(), rule.getL2()).add(pushRule);
+    } else if (rule instanceof PopRule) {
+      added = popRules.add((PopRule<N, D, W>) rule);
+    } else if (rule instanceof NormalRule) {
+      NormalRule<N, D, W> normalRule = (NormalRule<N, D, W>) rule;
+      added = normalRules.add(normalRule);
+      if (added) getOrCreate(normalRulesEnding, rule.getS2(), rule.getL2()).add(normalRule);
+    } else {
+      throw new RuntimeException("Try to add a rule of wrong type");
+    }
+    if (added) {
+      allRules.add(rule);
+      if (rule.getL1() instanceof Wildcard) {
+        wildcardRulesStarting.put(rule.getS1(), rule);
+      } else {
+        getOrCreate(rulesStarting, rule.getS1(), rule.getL1()).add(rule);
+      }
+    }
+    return added;
+  }
+
+  private static <R, C, V> Set<V> getOrCreate(Table<R, C, Set<V>> table, R row, C column) {
+    Set<V> set = table.get(row, column);
+    if (set == null) {
+      set = Sets.newHashSet();
+      table.put(row, column, set);
+    }
+    return set;
+  }
+
+  /**
+   * Shares the rules of this pushdown system with the other users of the store. Must be set before
+   * the first rule is added.
+   */
+  public void setSharedStore(SharedStore<N, D, W> sharedStore) {
+    this.sharedStore = sharedStore;
   }
 
   public void registerUpdateListener(WPDSUpdateListener<N, D, W> listener) {
     if (!listeners.add(listener)) {
       return;
     }
-    for (Rule<N, D, W> r : getAllRules()) {
+    for (Rule<N, D, W> r : Lists.newArrayList(allRules)) {
       listener.onRuleAdded(r);
     }
   }
@@ -73,57 +125,43 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
 
   @Override
   public Set<Rule<N, D, W>> getAllRules() {
-    Set<Rule<N, D, W>> rules = Sets.newHashSet();
-    rules.addAll(normalRules);
-    rules.addAll(popRules);
-    rules.addAll(pushRules);
-    return rules;
+    return Collections.unmodifiableSet(allRules);
   }
 
   @Override
   public Set<Rule<N, D, W>> getRulesStarting(D start, N string) {
-    Set<Rule<N, D, W>> result = new HashSet<>();
-    getRulesStartingWithinSet(start, string, popRules, result);
-    getRulesStartingWithinSet(start, string, normalRules, result);
-    getRulesStartingWithinSet(start, string, pushRules, result);
-    return result;
-  }
-
-  private void getRulesStartingWithinSet(
-      D start, N string, Set<? extends Rule<N, D, W>> rules, Set<Rule<N, D, W>> res) {
-    for (Rule<N, D, W> r : rules) {
-      if (r.getS1().equals(start) && (r.getL1().equals(string) || r.getL1() instanceof Wildcard))
-        res.add(r);
-      if (string instanceof Wildcard && r.getS1().equals(start)) {
-        res.add(r);
+    Set<Rule<N, D, W>> result = new HashSet<>(wildcardRulesStarting.get(start));
+    if (string instanceof Wildcard) {
+      for (Set<Rule<N, D, W>> rules : rulesStarting.row(start).values()) {
+        result.addAll(rules);
+      }
+    } else {
+      Set<Rule<N, D, W>> rules = rulesStarting.get(start, string);
+      if (rules != null) {
+        result.addAll(rules);
       }
     }
+    return result;
   }
 
   @Override
   public Set<NormalRule<N, D, W>> getNormalRulesEnding(D start, N string) {
-    Set<NormalRule<N, D, W>> allRules = getNormalRules();
-    Set<NormalRule<N, D, W>> result = new HashSet<>();
-    for (NormalRule<N, D, W> r : allRules) {
-      if (r.getS2().equals(start) && r.getL2().equals(string)) result.add(r);
-    }
-    return result;
+    return copyOf(normalRulesEnding.get(start, string));
   }
 
   @Override
   public Set<PushRule<N, D, W>> getPushRulesEnding(D start, N string) {
-    Set<PushRule<N, D, W>> allRules = getPushRules();
-    Set<PushRule<N, D, W>> result = new HashSet<>();
-    for (PushRule<N, D, W> r : allRules) {
-      if (r.getS2().equals(start) && r.getL2().equals(string)) result.add(r);
-    }
-    return result;
+    return copyOf(pushRulesEnding.get(start, string));
+  }
+
+  private static <V> Set<V> copyOf(Set<V> set) {
+    return set == null ? new HashSet<>() : new HashSet<>(set);
   }
 
   @Override
   public Set<D> getStates() {
     Set<D> states = Sets.newHashSet();
-    for (Rule<N, D, W> r : getAllRules()) {
+    for (Rule<N, D, W> r : allRules) {
       states.add(r.getS1());
       states.add(r.getS2());
     }
@@ -168,7 +206,7 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
   }
 
   public String toString() {
-    String s = "WPDS (#Rules: " + getAllRules().size() + ")\n";
+    String s = "WPDS (#Rules: " + allRules.size() + ")\n";
     s += "\tNormalRules:\n\t\t";
     s += Joiner.on("\n\t\t").join(normalRules);
     s += "\n";
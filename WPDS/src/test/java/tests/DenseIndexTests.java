@@ -0,0 +1,67 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static tests.TestHelper.a;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import tests.TestHelper.Abstraction;
+import wpds.impl.DenseIndex;
+
+public class DenseIndexTests {
+
+  @Test
+  public void denseIds() {
+    DenseIndex<Abstraction> index = new DenseIndex<>();
+    assertEquals(0, index.intern(a(1)));
+    assertEquals(1, index.intern(a(2)));
+    assertEquals(0, index.intern(a(1)));
+    assertEquals(-1, index.getId(a(3)));
+    assertEquals(2, index.size());
+    assertEquals(a(2), index.get(1));
+  }
+
+  @Test
+  public void canonicalInstance() {
+    DenseIndex<Abstraction> index = new DenseIndex<>();
+    Abstraction first = a(1);
+    index.intern(first);
+    assertSame(first, index.canonical(a(1)));
+  }
+
+  @Test
+  public void findDoesNotIntern() {
+    DenseIndex<Abstraction> index = new DenseIndex<>();
+    assertNull(index.find(a(1)));
+    assertEquals(0, index.size());
+    Abstraction first = a(1);
+    index.intern(first);
+    assertSame(first, index.find(a(1)));
+  }
+
+  @Test
+  public void growsInIdOrder() {
+    DenseIndex<Abstraction> index = new DenseIndex<>();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, index.intern(a(i)));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, index.getId(a(i)));
+    }
+    assertEquals(1000, index.elements().size());
+    assertEquals(a(999), Lists.newArrayList(index.elements()).get(999));
+  }
+}
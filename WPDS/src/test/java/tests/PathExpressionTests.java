@@ -0,0 +1,65 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import pathexpression.IRegEx;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.WeightedPAutomaton;
+
+public class PathExpressionTests {
+
+  @Test
+  public void computerReusedUntilAutomatonChanges() {
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", NumWeight.one());
+    fa.addTransition(t(2, "b", 1));
+    fa.toRegEx(a(1), ACC);
+    fa.toRegEx(a(2), ACC);
+    fa.extractLanguage(a(2));
+    assertEquals(1, fa.getPathExpressionComputers());
+
+    // A weight on an existing transition does not change any path expression
+    fa.addWeightForTransition(t(2, "b", 1), new NumWeight(3));
+    fa.extractLanguage(a(1), ACC);
+    assertEquals(1, fa.getPathExpressionComputers());
+
+    fa.addTransition(t(3, "c", 2));
+    fa.toRegEx(a(3), ACC);
+    assertEquals(2, fa.getPathExpressionComputers());
+  }
+
+  @Test
+  public void batchedLanguages() {
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", NumWeight.one());
+    fa.addTransition(t(2, "b", 1));
+    fa.addTransition(t(3, "c", 2));
+    fa.addTransition(t(3, "d", 1));
+    List<Abstraction> states = Lists.newArrayList(a(1), a(2), a(3));
+    Map<Abstraction, IRegEx<StackSymbol>> languages = fa.extractLanguages(states);
+    assertEquals(1, fa.getPathExpressionComputers());
+    assertEquals(states.size(), languages.size());
+    for (Abstraction state : states) {
+      assertEquals(fa.extractLanguage(state).toString(), languages.get(state).toString());
+    }
+    assertEquals(1, fa.getPathExpressionComputers());
+  }
+}
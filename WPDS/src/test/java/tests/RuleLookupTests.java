@@ -0,0 +1,132 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static tests.TestHelper.a;
+import static tests.TestHelper.s;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.NormalRule;
+import wpds.impl.PopRule;
+import wpds.impl.PushRule;
+import wpds.impl.Rule;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.wildcard.Wildcard;
+
+public class RuleLookupTests {
+  private WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds;
+
+  @Before
+  public void init() {
+    pds = new WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight>();
+  }
+
+  @Test
+  public void rulesStarting() {
+    NormalRule<StackSymbol, Abstraction, NumWeight> normal = wnormal(1, "a", 2, "b", w(1));
+    PushRule<StackSymbol, Abstraction, NumWeight> push = wpush(1, "a", 3, "c", "d", w(1));
+    PopRule<StackSymbol, Abstraction, NumWeight> pop = wpop(1, "b", 4, w(1));
+    pds.addRule(normal);
+    pds.addRule(push);
+    pds.addRule(pop);
+    pds.addRule(wnormal(2, "a", 2, "b", w(1)));
+    assertEquals(Sets.newHashSet(normal, push), pds.getRulesStarting(a(1), s("a")));
+    assertEquals(Sets.newHashSet(pop), pds.getRulesStarting(a(1), s("b")));
+    assertTrue(pds.getRulesStarting(a(1), s("c")).isEmpty());
+    assertTrue(pds.getRulesStarting(a(3), s("a")).isEmpty());
+  }
+
+  @Test
+  public void allRulesIsReadOnlyView() {
+    pds.addRule(wnormal(1, "a", 2, "b", w(1)));
+    Set<Rule<StackSymbol, Abstraction, NumWeight>> allRules = pds.getAllRules();
+    pds.addRule(wpop(2, "b", 3, w(1)));
+    assertEquals(2, allRules.size());
+    try {
+      allRules.clear();
+      fail("getAllRules must not be modifiable");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    // Callers adding rules while iterating copy the view first
+    int i = 0;
+    for (Rule<StackSymbol, Abstraction, NumWeight> r : Lists.newArrayList(allRules)) {
+      pds.addRule(wnormal(10 + i, "a", 11 + i, "b", w(1)));
+      i++;
+    }
+    assertEquals(2, i);
+    assertEquals(4, allRules.size());
+  }
+
+  @Test
+  public void rulesStartingWithWildcard() {
+    NormalRule<StackSymbol, Abstraction, NumWeight> normal = wnormal(1, "a", 2, "b", w(1));
+    NormalRule<StackSymbol, Abstraction, NumWeight> wildcardRule =
+        new NormalRule<StackSymbol, Abstraction, NumWeight>(
+            a(1), new WildcardSymbol(), a(2), new WildcardSymbol(), w(1));
+    PopRule<StackSymbol, Abstraction, NumWeight> pop = wpop(1, "b", 4, w(1));
+    pds.addRule(normal);
+    pds.addRule(wildcardRule);
+    pds.addRule(pop);
+    assertEquals(Sets.newHashSet(normal, wildcardRule), pds.getRulesStarting(a(1), s("a")));
+    assertEquals(Sets.newHashSet(wildcardRule), pds.getRulesStarting(a(1), s("x")));
+    assertEquals(
+        Sets.<Rule<StackSymbol, Abstraction, NumWeight>>newHashSet(normal, wildcardRule, pop),
+        pds.getRulesStarting(a(1), new WildcardSymbol()));
+  }
+
+  @Test
+  public void rulesEnding() {
+    NormalRule<StackSymbol, Abstraction, NumWeight> normal = wnormal(1, "a", 2, "b", w(1));
+    PushRule<StackSymbol, Abstraction, NumWeight> push = wpush(1, "a", 2, "b", "c", w(1));
+    pds.addRule(normal);
+    pds.addRule(push);
+    pds.addRule(wnormal(3, "a", 2, "c", w(1)));
+    pds.addRule(wpop(1, "a", 2, w(1)));
+    assertEquals(Sets.newHashSet(normal), pds.getNormalRulesEnding(a(2), s("b")));
+    assertEquals(Sets.newHashSet(push), pds.getPushRulesEnding(a(2), s("b")));
+    assertTrue(pds.getPushRulesEnding(a(2), s("c")).isEmpty());
+    assertTrue(pds.getNormalRulesEnding(a(1), s("a")).isEmpty());
+  }
+
+  @Test
+  public void allRules() {
+    pds.addRule(wnormal(1, "a", 2, "b", w(1)));
+    pds.addRule(wnormal(1, "a", 2, "b", w(1)));
+    pds.addRule(wpush(1, "a", 2, "b", "c", w(1)));
+    pds.addRule(wpop(1, "a", 3, w(1)));
+    assertEquals(3, pds.getAllRules().size());
+    assertEquals(Sets.newHashSet(a(1), a(2), a(3)), pds.getStates());
+  }
+
+  private static class WildcardSymbol extends StackSymbol implements Wildcard {
+    WildcardSymbol() {
+      super("*");
+    }
+  }
+
+  private static NumWeight w(int i) {
+    return new NumWeight(i);
+  }
+}
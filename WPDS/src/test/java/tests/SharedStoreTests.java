@@ -0,0 +1,148 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.List;
+import org.junit.Test;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Rule;
+import wpds.impl.SharedStore;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
+import wpds.impl.WeightedPushdownSystem;
+
+public class SharedStoreTests {
+
+  @Test
+  public void sharedSaturation() {
+    SharedStore<StackSymbol, Abstraction, NumWeight> store = new SharedStore<>(true);
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> first = saturate(store);
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> second = saturate(store);
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> unshared = saturate(null);
+
+    assertEquals(
+        Sets.newHashSet(unshared.getTransitions()), Sets.newHashSet(second.getTransitions()));
+    for (Transition<StackSymbol, Abstraction> t : second.getTransitions()) {
+      assertSame(canonical(first, t), t);
+      assertSame(first.getWeightFor(t), second.getWeightFor(t));
+      assertEquals(unshared.getWeightFor(t), second.getWeightFor(t));
+    }
+    assertTrue(store.getSharedTransitions() >= second.getTransitions().size());
+    assertEquals(4, store.getSharedRules());
+    assertTrue(store.getEstimatedSavedBytes() > 0);
+  }
+
+  @Test
+  public void weightsAreOnlySharedIfRequested() {
+    SharedStore<StackSymbol, Abstraction, NumWeight> store = new SharedStore<>(false);
+    NumWeight weight = w(1);
+    store.canonical(w(1));
+    assertSame(weight, store.canonical(weight));
+    assertEquals(0, store.getSharedWeights());
+    SharedStore<StackSymbol, Abstraction, NumWeight> sharing = new SharedStore<>(true);
+    NumWeight first = sharing.canonical(w(1));
+    assertSame(first, sharing.canonical(weight));
+    assertEquals(1, sharing.getSharedWeights());
+  }
+
+  @Test
+  public void weightedRulesAreOnlySharedIfWeightsAre() {
+    SharedStore<StackSymbol, Abstraction, NumWeight> store = new SharedStore<>(false);
+    Rule<StackSymbol, Abstraction, NumWeight> rule = wnormal(1, "a", 2, "b", w(2));
+    store.canonical(wnormal(1, "a", 2, "b", w(2)));
+    assertSame(rule, store.canonical(rule));
+    assertSame(rule.getWeight(), store.canonical(rule).getWeight());
+    assertEquals(0, store.getSharedRules());
+    SharedStore<StackSymbol, Abstraction, NumWeight> sharing = new SharedStore<>(true);
+    Rule<StackSymbol, Abstraction, NumWeight> first =
+        sharing.canonical(wnormal(1, "a", 2, "b", w(2)));
+    assertSame(first, sharing.canonical(rule));
+    assertEquals(1, sharing.getSharedRules());
+  }
+
+  @Test
+  public void concurrentCanonicalization() throws InterruptedException {
+    SharedStore<StackSymbol, Abstraction, NumWeight> store = new SharedStore<>(true);
+    int threads = 4;
+    int transitions = 1000;
+    List<List<Transition<StackSymbol, Abstraction>>> results = Lists.newArrayList();
+    List<Thread> workers = Lists.newArrayList();
+    for (int i = 0; i < threads; i++) {
+      List<Transition<StackSymbol, Abstraction>> result = Lists.newArrayList();
+      results.add(result);
+      Thread worker =
+          new Thread(
+              () -> {
+                for (int j = 0; j < transitions; j++) {
+                  result.add(store.canonical(t(j, "a", j + 1)));
+                }
+              });
+      workers.add(worker);
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    for (int j = 0; j < transitions; j++) {
+      for (List<Transition<StackSymbol, Abstraction>> result : results) {
+        assertSame(results.get(0).get(j), result.get(j));
+      }
+    }
+    assertEquals(threads * transitions, store.getTransitionRequests());
+    assertEquals((threads - 1) * transitions, store.getSharedTransitions());
+  }
+
+  private static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> saturate(
+      SharedStore<StackSymbol, Abstraction, NumWeight> store) {
+    WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds =
+        new WeightedPushdownSystem<>();
+    pds.setSharedStore(store);
+    pds.addRule(wnormal(1, "a", 2, "b", w(2)));
+    pds.addRule(wpush(2, "b", 3, "c", "d", w(3)));
+    pds.addRule(wpop(3, "c", 4, w(1)));
+    pds.addRule(wnormal(4, "d", 1, "e", w(1)));
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa =
+        waccepts(1, "a", w(0), SaturationStrategy.RECURSIVE, store);
+    pds.poststar(fa);
+    assertEquals(w(7), fa.getWeightFor(t(1, "e", ACC)));
+    return fa;
+  }
+
+  private static Transition<StackSymbol, Abstraction> canonical(
+      WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut,
+      Transition<StackSymbol, Abstraction> trans) {
+    for (Transition<StackSymbol, Abstraction> t : aut.getTransitions()) {
+      if (t.equals(trans)) {
+        return t;
+      }
+    }
+    throw new AssertionError("Missing transition " + trans);
+  }
+
+  private static NumWeight w(int i) {
+    return new NumWeight(i);
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.interfaces.WPAStateListener;
+
+public class StateListenerTests {
+
+  @Test
+  public void deduplicatedPerState() {
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", NumWeight.one());
+    for (int i = 0; i < 20; i++) {
+      fa.registerListener(new CountingListener(a(1), i));
+      fa.registerListener(new CountingListener(a(1), i));
+    }
+    fa.registerListener(new CountingListener(a(2), 0));
+    assertEquals(20, fa.getStateListenerCount(a(1)));
+    assertEquals(1, fa.getStateListenerCount(a(2)));
+    assertEquals(0, fa.getStateListenerCount(a(3)));
+    assertEquals(21, fa.getStateListenerCount());
+    assertEquals(Lists.newArrayList(a(1), a(2)), fa.getStatesWithMostListeners(5));
+    assertEquals(Lists.newArrayList(a(1)), fa.getStatesWithMostListeners(1));
+  }
+
+  @Test
+  public void registrationDuringNotification() {
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", NumWeight.one());
+    CountingListener registering =
+        new CountingListener(ACC, -1) {
+          @Override
+          public void onInTransitionAdded(
+              Transition<StackSymbol, Abstraction> t,
+              NumWeight w,
+              WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+            super.onInTransitionAdded(t, w, aut);
+            aut.registerListener(new CountingListener(ACC, in));
+          }
+        };
+    fa.registerListener(registering);
+    assertEquals(1, registering.in);
+    assertEquals(2, fa.getStateListenerCount(ACC));
+    fa.addTransition(t(2, "b", ACC));
+    // The listener registered by the notification is replayed the transition, not notified
+    assertEquals(2, registering.in);
+    assertEquals(3, fa.getStateListenerCount(ACC));
+  }
+
+  private static class CountingListener
+      extends WPAStateListener<StackSymbol, Abstraction, NumWeight> {
+    private final int id;
+    int in;
+
+    CountingListener(Abstraction state, int id) {
+      super(state);
+      this.id = id;
+    }
+
+    @Override
+    public void onOutTransitionAdded(
+        Transition<StackSymbol, Abstraction> t,
+        NumWeight w,
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {}
+
+    @Override
+    public void onInTransitionAdded(
+        Transition<StackSymbol, Abstraction> t,
+        NumWeight w,
+        WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut) {
+      in++;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * super.hashCode() + id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return super.equals(obj) && id == ((CountingListener) obj).id;
+    }
+  }
+}
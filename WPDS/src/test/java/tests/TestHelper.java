@@ -15,11 +15,13 @@ import wpds.impl.NormalRule;
 import wpds.impl.PAutomaton;
 import wpds.impl.PopRule;
 import wpds.impl.PushRule;
+import wpds.impl.SharedStore;
 import wpds.impl.Transition;
 import wpds.impl.UNormalRule;
 import wpds.impl.UPopRule;
 import wpds.impl.UPushRule;
 import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
 import wpds.interfaces.Location;
 import wpds.interfaces.State;
 
@@ -52,9 +54,28 @@ public class TestHelper {
 
   static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(
       int a, String c, NumWeight weight) {
+    return waccepts(a, c, weight, SaturationStrategy.RECURSIVE);
+  }
+
+  static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(
+      int a, String c, NumWeight weight, SaturationStrategy strategy) {
+    return waccepts(a, c, weight, strategy, null);
+  }
+
+  static WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> waccepts(
+      int a,
+      String c,
+      NumWeight weight,
+      SaturationStrategy strategy,
+      SharedStore<StackSymbol, Abstraction, NumWeight> store) {
     WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut =
         new WeightedPAutomaton<StackSymbol, Abstraction, NumWeight>() {
 
+          @Override
+          public SaturationStrategy getSaturationStrategy() {
+            return strategy;
+          }
+
           @Override
           public Abstraction createState(Abstraction d, StackSymbol loc) {
             return new Abstraction(d, loc);
@@ -75,6 +96,7 @@ public class TestHelper {
             return d.s != null;
           }
         };
+    aut.setSharedStore(store);
     aut.addFinalState(ACC);
     aut.addTransition(t(a, c, ACC));
     aut.addWeightForTransition(t(a, c, ACC), weight);
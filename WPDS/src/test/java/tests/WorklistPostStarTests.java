@@ -0,0 +1,182 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tests.TestHelper.ACC;
+import static tests.TestHelper.a;
+import static tests.TestHelper.t;
+import static tests.TestHelper.waccepts;
+import static tests.TestHelper.wnormal;
+import static tests.TestHelper.wpop;
+import static tests.TestHelper.wpush;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import tests.TestHelper.Abstraction;
+import tests.TestHelper.StackSymbol;
+import wpds.impl.Transition;
+import wpds.impl.WeightedPAutomaton;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
+import wpds.impl.WeightedPushdownSystem;
+import wpds.interfaces.WPAStateListener;
+
+public class WorklistPostStarTests {
+
+  @Test
+  public void twoCallSameResultForAllStrategies() {
+    Map<Transition<StackSymbol, Abstraction>, NumWeight> expected =
+        twoCall(SaturationStrategy.RECURSIVE);
+    for (SaturationStrategy strategy : SaturationStrategy.values()) {
+      assertEquals(strategy.toString(), expected, twoCall(strategy));
+    }
+  }
+
+  @Test
+  public void branchSameResultForAllStrategies() {
+    Map<Transition<StackSymbol, Abstraction>, NumWeight> expected =
+        branch(SaturationStrategy.RECURSIVE);
+    for (SaturationStrategy strategy : SaturationStrategy.values()) {
+      assertEquals(strategy.toString(), expected, branch(strategy));
+    }
+  }
+
+  @Test
+  public void longChainWithSmallStack() throws InterruptedException {
+    for (SaturationStrategy strategy : SaturationStrategy.values()) {
+      if (strategy == SaturationStrategy.RECURSIVE) continue;
+      AtomicReference<Throwable> error = new AtomicReference<>();
+      AtomicReference<WeightedPAutomaton<StackSymbol, Abstraction, NumWeight>> result =
+          new AtomicReference<>();
+      Thread thread =
+          new Thread(
+              null,
+              () -> {
+                try {
+                  result.set(chain(strategy, 20000));
+                } catch (Throwable e) {
+                  error.set(e);
+                }
+              },
+              "small-stack",
+              256 * 1024);
+      thread.start();
+      thread.join();
+      assertTrue(strategy + " failed with " + error.get(), error.get() == null);
+      assertEquals(w(20000), result.get().getWeightFor(t(20000, "a", ACC)));
+      assertEquals(0, result.get().getPendingUpdates());
+    }
+  }
+
+  @Test
+  public void listenerRegisteredWhileDrainingIsNotifiedOnce() {
+    for (SaturationStrategy strategy : SaturationStrategy.values()) {
+      if (strategy == SaturationStrategy.RECURSIVE) continue;
+      WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa =
+          waccepts(1, "a", w(0), strategy);
+      Multiset<Transition<StackSymbol, Abstraction>> updates = HashMultiset.create();
+      Multiset<Transition<StackSymbol, Abstraction>> outTransitions = HashMultiset.create();
+      fa.registerListener(
+          (t, w, aut) -> {
+            if (!t.equals(t(1, "b", ACC))) return;
+            // Both updates are queued while the update of t is drained
+            aut.addWeightForTransition(t(2, "c", ACC), w(1));
+            aut.addWeightForTransition(t(3, "d", ACC), w(1));
+            aut.registerListener((t2, w2, aut2) -> updates.add(t2));
+            aut.registerListener(
+                new WPAStateListener<StackSymbol, Abstraction, NumWeight>(a(2)) {
+                  @Override
+                  public void onOutTransitionAdded(
+                      Transition<StackSymbol, Abstraction> t2,
+                      NumWeight w2,
+                      WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut2) {
+                    outTransitions.add(t2);
+                  }
+
+                  @Override
+                  public void onInTransitionAdded(
+                      Transition<StackSymbol, Abstraction> t2,
+                      NumWeight w2,
+                      WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> aut2) {}
+                });
+          });
+      fa.addWeightForTransition(t(1, "b", ACC), w(1));
+      assertEquals(0, fa.getPendingUpdates());
+      assertEquals(strategy.toString(), weights(fa).keySet(), updates.elementSet());
+      assertEquals(strategy.toString(), updates.size(), updates.elementSet().size());
+      assertEquals(strategy.toString(), 1, outTransitions.count(t(2, "c", ACC)));
+      assertEquals(strategy.toString(), 1, outTransitions.size());
+    }
+  }
+
+  private Map<Transition<StackSymbol, Abstraction>, NumWeight> twoCall(
+      SaturationStrategy strategy) {
+    WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds =
+        new WeightedPushdownSystem<>();
+    pds.addRule(wnormal(1, "a", 1, "b", w(1)));
+    pds.addRule(wpush(1, "b", 2, "call", "d", w(2)));
+    pds.addRule(wnormal(2, "call", 2, "e", w(3)));
+    pds.addRule(wpop(2, "e", 3, w(4)));
+    pds.addRule(wnormal(3, "d", 1, "f", w(5)));
+    pds.addRule(wpush(1, "f", 2, "call", "g", w(6)));
+    pds.addRule(wnormal(3, "g", 4, "h", w(7)));
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0), strategy);
+    pds.poststar(fa);
+    assertEquals(w(35), fa.getWeightFor(t(4, "h", ACC)));
+    return weights(fa);
+  }
+
+  private Map<Transition<StackSymbol, Abstraction>, NumWeight> branch(SaturationStrategy strategy) {
+    WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds =
+        new WeightedPushdownSystem<>();
+    pds.addRule(wnormal(1, "a", 1, "b", w(2)));
+    pds.addRule(wnormal(1, "b", 1, "c", w(3)));
+    pds.addRule(wnormal(1, "a", 1, "d", w(3)));
+    pds.addRule(wnormal(1, "d", 1, "c", w(3)));
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(1, "a", w(0), strategy);
+    pds.poststar(fa);
+    assertEquals(NumWeight.zero(), fa.getWeightFor(t(1, "c", ACC)));
+    return weights(fa);
+  }
+
+  private WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> chain(
+      SaturationStrategy strategy, int length) {
+    WeightedPushdownSystem<StackSymbol, Abstraction, NumWeight> pds =
+        new WeightedPushdownSystem<>();
+    WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa = waccepts(0, "a", w(0), strategy);
+    // Rules are registered before the transitions exist, the recursive strategy would thus
+    // propagate along the whole chain within a single call stack.
+    for (int i = length - 1; i >= 0; i--) {
+      pds.addRule(wnormal(i, "a", i + 1, "a", w(1)));
+    }
+    pds.poststar(fa);
+    return fa;
+  }
+
+  private Map<Transition<StackSymbol, Abstraction>, NumWeight> weights(
+      WeightedPAutomaton<StackSymbol, Abstraction, NumWeight> fa) {
+    Map<Transition<StackSymbol, Abstraction>, NumWeight> res = new HashMap<>();
+    for (Transition<StackSymbol, Abstraction> t : fa.getTransitions()) {
+      res.put(t, fa.getWeightFor(t));
+    }
+    return res;
+  }
+
+  private static NumWeight w(int i) {
+    return new NumWeight(i);
+  }
+}
@@ -0,0 +1,116 @@
+package benchmarks;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import boomerang.scene.AllocVal;
+import boomerang.scene.CallGraph;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.DataFlowScope;
+import boomerang.scene.Method;
+import boomerang.scene.SootDataFlowScope;
+import boomerang.scene.Statement;
+import boomerang.scene.Val;
+import boomerang.scene.jimple.BoomerangPretransformer;
+import boomerang.scene.jimple.SootCallGraph;
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.List;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.options.Options;
+
+/**
+ * The program the end-to-end benchmarks analyze. By default, this is the Test.jar in the root of
+ * the repository, another class path can be supplied by the system property {@value
+ * #CLASS_PATH_PROPERTY}. The queries are collected from the reachable methods of the application
+ * classes, in a deterministic order.
+ */
+class BenchmarkScene {
+
+  static final String CLASS_PATH_PROPERTY = "benchmark.classpath";
+
+  private final CallGraph callGraph;
+  private final DataFlowScope dataFlowScope;
+
+  private BenchmarkScene(CallGraph callGraph, DataFlowScope dataFlowScope) {
+    this.callGraph = callGraph;
+    this.dataFlowScope = dataFlowScope;
+  }
+
+  static BenchmarkScene load() {
+    String classPath = System.getProperty(CLASS_PATH_PROPERTY, "Test.jar");
+    G.reset();
+    Options.v().set_whole_program(true);
+    Options.v().setPhaseOption("cg.spark", "on");
+    Options.v().set_no_bodies_for_excluded(true);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().set_keep_line_number(true);
+    Options.v().setPhaseOption("jb", "use-original-names:true");
+    Options.v().set_soot_classpath(classPath);
+    Options.v().set_prepend_classpath(true);
+    Options.v().set_process_dir(Arrays.asList(classPath.split(":")));
+    Scene.v().loadNecessaryClasses();
+    PackManager.v().getPack("cg").apply();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply();
+    return new BenchmarkScene(new SootCallGraph(), SootDataFlowScope.make(Scene.v()));
+  }
+
+  CallGraph getCallGraph() {
+    return callGraph;
+  }
+
+  DataFlowScope getDataFlowScope() {
+    return dataFlowScope;
+  }
+
+  /** A forward query for each allocation site. */
+  List<ForwardQuery> allocationSites() {
+    List<ForwardQuery> queries = Lists.newArrayList();
+    for (Statement stmt : applicationStatements()) {
+      if (stmt.isAssign() && stmt.getRightOp().isNewExpr()) {
+        for (Statement succ : stmt.getMethod().getControlFlowGraph().getSuccsOf(stmt)) {
+          queries.add(
+              new ForwardQuery(
+                  new Edge(stmt, succ), new AllocVal(stmt.getLeftOp(), stmt, stmt.getRightOp())));
+        }
+      }
+    }
+    return queries;
+  }
+
+  /** A backward query for each local passed as argument to a call. */
+  List<BackwardQuery> callArguments() {
+    List<BackwardQuery> queries = Lists.newArrayList();
+    for (Statement stmt : applicationStatements()) {
+      if (!stmt.containsInvokeExpr()) {
+        continue;
+      }
+      for (Val arg : stmt.getInvokeExpr().getArgs()) {
+        if (!arg.isLocal()) {
+          continue;
+        }
+        for (Statement pred : stmt.getMethod().getControlFlowGraph().getPredsOf(stmt)) {
+          queries.add(BackwardQuery.make(new Edge(pred, stmt), arg));
+        }
+      }
+    }
+    return queries;
+  }
+
+  private List<Statement> applicationStatements() {
+    List<Method> methods = Lists.newArrayList();
+    for (Method m : callGraph.getReachableMethods()) {
+      if (m.getDeclaringClass().isApplicationClass()) {
+        methods.add(m);
+      }
+    }
+    methods.sort((m1, m2) -> m1.toString().compareTo(m2.toString()));
+    List<Statement> statements = Lists.newArrayList();
+    for (Method m : methods) {
+      statements.addAll(m.getStatements());
+    }
+    return statements;
+  }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.ForwardQuery;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * End-to-end Boomerang queries over the benchmark program, see {@link BenchmarkScene}. Each
+ * invocation solves all queries, each by a fresh solver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8G", "-Xss128m"})
+public class BoomerangQueryBenchmark {
+
+  private BenchmarkScene scene;
+  private List<ForwardQuery> forwardQueries;
+  private List<BackwardQuery> backwardQueries;
+
+  @Setup
+  public void loadScene() {
+    scene = BenchmarkScene.load();
+    forwardQueries = scene.allocationSites();
+    backwardQueries = scene.callArguments();
+  }
+
+  @Benchmark
+  public void forwardQueries(Blackhole bh) {
+    for (ForwardQuery query : forwardQueries) {
+      Boomerang solver = createSolver();
+      ForwardBoomerangResults<NoWeight> results = solver.solve(query);
+      bh.consume(results.asStatementValWeightTable());
+    }
+  }
+
+  @Benchmark
+  public void backwardQueries(Blackhole bh) {
+    for (BackwardQuery query : backwardQueries) {
+      Boomerang solver = createSolver();
+      BackwardBoomerangResults<NoWeight> results = solver.solve(query);
+      bh.consume(results.getAllocationSites());
+    }
+  }
+
+  private Boomerang createSolver() {
+    return new Boomerang(
+        scene.getCallGraph(), scene.getDataFlowScope(), new DefaultBoomerangOptions());
+  }
+}
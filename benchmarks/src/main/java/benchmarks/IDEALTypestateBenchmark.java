@@ -0,0 +1,125 @@
+package benchmarks;
+
+import boomerang.WeightedForwardQuery;
+import boomerang.debugger.Debugger;
+import boomerang.results.ForwardBoomerangResults;
+import boomerang.scene.CallGraph;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.DataFlowScope;
+import boomerang.scene.Val;
+import ideal.IDEALAnalysis;
+import ideal.IDEALAnalysisDefinition;
+import ideal.IDEALResultHandler;
+import ideal.IDEALSeedSolver;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sync.pds.solver.WeightFunctions;
+import typestate.TransitionFunction;
+import typestate.finiteautomata.TypeStateMachineWeightFunctions;
+
+/**
+ * IDEal typestate analyses of the benchmark program, see {@link BenchmarkScene}, one run per state
+ * machine of {@code typestate.impl.statemachines}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8G", "-Xss128m"})
+public class IDEALTypestateBenchmark {
+
+  @Param({
+    "FileMustBeClosedStateMachine",
+    "FileMustBeClosedStateMachineCallToReturn",
+    "HasNextStateMachine",
+    "InputStreamStateMachine",
+    "KeyStoreStateMachine",
+    "OutputStreamStateMachine",
+    "PipedInputStreamStateMachine",
+    "PipedOutputStreamStateMachine",
+    "PrintStreamStateMachine",
+    "PrintWriterStateMachine",
+    "SignatureStateMachine",
+    "SocketStateMachine",
+    "URLConnStateMachine",
+    "VectorStateMachine"
+  })
+  public String stateMachine;
+
+  private BenchmarkScene scene;
+
+  @Setup
+  public void loadScene() {
+    scene = BenchmarkScene.load();
+  }
+
+  @Benchmark
+  public void typestate(Blackhole bh) throws ReflectiveOperationException {
+    TypeStateMachineWeightFunctions weightFunctions =
+        (TypeStateMachineWeightFunctions)
+            Class.forName("typestate.impl.statemachines." + stateMachine)
+                .getDeclaredConstructor()
+                .newInstance();
+    new IDEALAnalysis<>(new Definition(weightFunctions, bh)).run();
+  }
+
+  private class Definition extends IDEALAnalysisDefinition<TransitionFunction> {
+    private final TypeStateMachineWeightFunctions weightFunctions;
+    private final Blackhole bh;
+
+    Definition(TypeStateMachineWeightFunctions weightFunctions, Blackhole bh) {
+      this.weightFunctions = weightFunctions;
+      this.bh = bh;
+    }
+
+    @Override
+    public Collection<WeightedForwardQuery<TransitionFunction>> generate(Edge stmt) {
+      return weightFunctions.generateSeed(stmt);
+    }
+
+    @Override
+    public WeightFunctions<Edge, Val, Edge, TransitionFunction> weightFunctions() {
+      return weightFunctions;
+    }
+
+    @Override
+    public CallGraph callGraph() {
+      return scene.getCallGraph();
+    }
+
+    @Override
+    public Debugger<TransitionFunction> debugger(IDEALSeedSolver<TransitionFunction> solver) {
+      return new Debugger<>();
+    }
+
+    @Override
+    public IDEALResultHandler<TransitionFunction> getResultHandler() {
+      return new IDEALResultHandler<TransitionFunction>() {
+        @Override
+        public void report(
+            WeightedForwardQuery<TransitionFunction> seed,
+            ForwardBoomerangResults<TransitionFunction> res) {
+          bh.consume(res.asStatementValWeightTable());
+        }
+      };
+    }
+
+    @Override
+    protected DataFlowScope getDataFlowScope() {
+      return scene.getDataFlowScope();
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package benchmarks;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sync.pds.solver.OneWeightFunctions;
+import sync.pds.solver.SyncPDSSolver;
+import sync.pds.solver.SyncPDSSolver.PDSSystem;
+import sync.pds.solver.WeightFunctions;
+import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.NodeWithLocation;
+import sync.pds.solver.nodes.PopNode;
+import sync.pds.solver.nodes.PushNode;
+import sync.pds.solver.nodes.SingleNode;
+import wpds.impl.SummaryNestedWeightedPAutomatons;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
+import wpds.interfaces.Location;
+import wpds.wildcard.ExclusionWildcard;
+import wpds.wildcard.Wildcard;
+
+/**
+ * Synchronized field and call saturation over a generated chain of methods. Each method stores its
+ * incoming value into one of two fields, passes the base object on to the next method and loads
+ * one of the fields after the call returned, such that only one of the stores is matched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8G", "-Xss128m"})
+public class SyncPDSSolverBenchmark {
+
+  private static final int STATEMENTS_PER_METHOD = 6;
+  private static final int FIELDS = 8;
+  private static final FieldRef EPSILON_FIELD = new FieldRef("eps_f");
+  private static final FieldRef EMPTY_FIELD = new FieldRef("EMPTY");
+  private static final Statement EPSILON_STMT = new Statement(-1);
+  private static final Variable A = new Variable("a");
+  private static final Variable B = new Variable("b");
+  private static final Variable C = new Variable("c");
+
+  @Param({"100", "1000"})
+  public int methods;
+
+  @Param({"RECURSIVE", "FIFO"})
+  public SaturationStrategy saturationStrategy;
+
+  private Multimap<Node<Statement, Variable>, wpds.interfaces.State> successors;
+  private Multimap<Node<Statement, Variable>, Node<Statement, Variable>> returnSites;
+
+  @Setup(Level.Trial)
+  public void generateProgram() {
+    successors = HashMultimap.create();
+    returnSites = HashMultimap.create();
+    for (int m = 0; m < methods; m++) {
+      FieldRef stored = new FieldRef("f" + (m % FIELDS));
+      FieldRef other = new FieldRef("f" + ((m + 1) % FIELDS));
+      successors.put(node(m, 0, A), node(m, 1, A));
+      successors.put(node(m, 1, A), fieldPush(m, 2, B, stored));
+      successors.put(node(m, 1, A), fieldPush(m, 2, B, other));
+      if (m + 1 < methods) {
+        successors.put(
+            node(m, 2, B),
+            new PushNode<>(stmt(m + 1, 0), A, stmt(m, 3), PDSSystem.CALLS));
+        returnSites.put(node(m + 1, STATEMENTS_PER_METHOD - 1, A), node(m, 3, B));
+      } else {
+        successors.put(node(m, 2, B), node(m, 3, B));
+      }
+      successors.put(
+          node(m, 3, B),
+          new PopNode<>(new NodeWithLocation<>(stmt(m, 4), C, stored), PDSSystem.FIELDS));
+      successors.put(node(m, 4, C), node(m, STATEMENTS_PER_METHOD - 1, A));
+      if (m > 0) {
+        successors.put(
+            node(m, STATEMENTS_PER_METHOD - 1, A), new PopNode<>(A, PDSSystem.CALLS));
+      }
+    }
+  }
+
+  @Benchmark
+  public SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solve() {
+    SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = new SyntheticSolver();
+    Node<Statement, Variable> start = node(0, 0, A);
+    solver.solve(
+        start, EMPTY_FIELD, new SingleNode<>(start), EPSILON_STMT, new SingleNode<>(A));
+    return solver;
+  }
+
+  private static Node<Statement, Variable> node(int method, int index, Variable var) {
+    return new Node<>(stmt(method, index), var);
+  }
+
+  private static PushNode<Statement, Variable, FieldRef> fieldPush(
+      int method, int index, Variable var, FieldRef field) {
+    return new PushNode<>(stmt(method, index), var, field, PDSSystem.FIELDS);
+  }
+
+  private static Statement stmt(int method, int index) {
+    return new Statement(method * STATEMENTS_PER_METHOD + index);
+  }
+
+  private class SyntheticSolver extends SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> {
+
+    SyntheticSolver() {
+      super(
+          false,
+          new SummaryNestedWeightedPAutomatons<>(),
+          false,
+          new SummaryNestedWeightedPAutomatons<>(),
+          -1,
+          -1,
+          -1,
+          saturationStrategy);
+    }
+
+    @Override
+    public void computeSuccessor(Node<Statement, Variable> node) {
+      for (wpds.interfaces.State s : successors.get(node)) {
+        propagate(node, s);
+      }
+    }
+
+    @Override
+    public void applyCallSummary(
+        Statement callSite,
+        Variable factInCallee,
+        Statement spInCallee,
+        Statement exitStmt,
+        Variable exitingFact) {
+      Node<Statement, Variable> exitingNode = new Node<>(exitStmt, exitingFact);
+      for (Node<Statement, Variable> returnSite : returnSites.get(exitingNode)) {
+        addNormalFieldFlow(exitingNode, returnSite);
+        addNormalCallFlow(new Node<>(callSite, exitingFact), returnSite);
+      }
+    }
+
+    @Override
+    public FieldRef epsilonField() {
+      return EPSILON_FIELD;
+    }
+
+    @Override
+    public FieldRef emptyField() {
+      return EMPTY_FIELD;
+    }
+
+    @Override
+    public Statement epsilonStmt() {
+      return EPSILON_STMT;
+    }
+
+    @Override
+    public FieldRef fieldWildCard() {
+      return new FieldWildCard();
+    }
+
+    @Override
+    public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
+      return new ExclusionWildcardField(exclusion);
+    }
+
+    @Override
+    public WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
+      return new OneWeightFunctions<>(NoWeight.NO_WEIGHT_ONE);
+    }
+
+    @Override
+    public WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
+      return new OneWeightFunctions<>(NoWeight.NO_WEIGHT_ONE);
+    }
+  }
+
+  public static class Statement implements Location {
+    private final int id;
+
+    Statement(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean accepts(Location other) {
+      return this.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      return id == ((Statement) obj).id;
+    }
+
+    @Override
+    public String toString() {
+      return Integer.toString(id);
+    }
+  }
+
+  public static class Variable {
+    private final String name;
+
+    Variable(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      return name.equals(((Variable) obj).name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  public static class FieldRef implements Location {
+    private final String name;
+
+    FieldRef(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean accepts(Location other) {
+      return this.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      return name.equals(((FieldRef) obj).name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static class FieldWildCard extends FieldRef implements Wildcard {
+    FieldWildCard() {
+      super("*");
+    }
+  }
+
+  private static class ExclusionWildcardField extends FieldRef
+      implements ExclusionWildcard<FieldRef> {
+    private final FieldRef excludes;
+
+    ExclusionWildcardField(FieldRef excludes) {
+      super(excludes.name);
+      this.excludes = excludes;
+    }
+
+    @Override
+    public FieldRef excludes() {
+      return excludes;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * super.hashCode() + excludes.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!super.equals(obj)) return false;
+      return excludes.equals(((ExclusionWildcardField) obj).excludes);
+    }
+
+    @Override
+    public String toString() {
+      return "not " + super.toString();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.Rule;
+import wpds.impl.Transition;
+import wpds.impl.UNormalRule;
+import wpds.impl.UPopRule;
+import wpds.impl.UPushRule;
+import wpds.impl.Weight.NoWeight;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
+import wpds.interfaces.Location;
+import wpds.interfaces.State;
+
+/**
+ * The rules of a pushdown system that models the interprocedural control flow of a generated
+ * program. Each method is a sequence of statements, every tenth statement calls a randomly chosen
+ * method, and the data flow facts are propagated and rotated along each statement. The generation
+ * is deterministic, such that runs are comparable.
+ */
+public class SyntheticProgram {
+
+  private static final int STATEMENTS_PER_METHOD = 20;
+  private static final int CALL_STRIDE = 10;
+  private static final int FACTS = 4;
+  private static final Fact ACCEPTING = new Fact(-1);
+
+  private final int methods;
+  private final List<Rule<Stmt, Fact, NoWeight>> rules;
+
+  private SyntheticProgram(int methods, List<Rule<Stmt, Fact, NoWeight>> rules) {
+    this.methods = methods;
+    this.rules = rules;
+  }
+
+  /** Generates a program whose pushdown system has approximately the given number of rules. */
+  public static SyntheticProgram generate(int numberOfRules) {
+    // Per fact, two normal rules per statement, a push rule per call and a pop rule at the exit
+    int statements = STATEMENTS_PER_METHOD - 1;
+    int rulesPerMethod = FACTS * (2 * statements + statements / CALL_STRIDE + 1);
+    int methods = Math.max(1, numberOfRules / rulesPerMethod);
+    Random random = new Random(methods);
+    List<Rule<Stmt, Fact, NoWeight>> rules = new ArrayList<>(numberOfRules);
+    for (int m = 0; m < methods; m++) {
+      for (int i = 0; i < STATEMENTS_PER_METHOD - 1; i++) {
+        Stmt curr = stmt(m, i);
+        Stmt succ = stmt(m, i + 1);
+        boolean callSite = i % CALL_STRIDE == CALL_STRIDE - 1;
+        Stmt callee = stmt(random.nextInt(methods), 0);
+        for (int f = 0; f < FACTS; f++) {
+          Fact fact = new Fact(f);
+          if (callSite) {
+            rules.add(new UPushRule<>(fact, curr, fact, callee, succ));
+          }
+          rules.add(new UNormalRule<>(fact, curr, fact, succ));
+          rules.add(new UNormalRule<>(fact, curr, new Fact((f + 1) % FACTS), succ));
+        }
+      }
+      for (int f = 0; f < FACTS; f++) {
+        Fact fact = new Fact(f);
+        rules.add(new UPopRule<>(fact, stmt(m, STATEMENTS_PER_METHOD - 1), fact));
+      }
+    }
+    return new SyntheticProgram(methods, rules);
+  }
+
+  public int getNumberOfMethods() {
+    return methods;
+  }
+
+  public int getNumberOfRules() {
+    return rules.size();
+  }
+
+  /** A fresh pushdown system, saturation registers listeners that must not be shared by runs. */
+  public PushdownSystem<Stmt, Fact> createPushdownSystem() {
+    PushdownSystem<Stmt, Fact> pds = new PushdownSystem<Stmt, Fact>() {};
+    for (Rule<Stmt, Fact, NoWeight> rule : rules) {
+      pds.addRule(rule);
+    }
+    return pds;
+  }
+
+  /** An automaton accepting the configuration at the first statement of the first method. */
+  public PAutomaton<Stmt, Fact> entryAutomaton(SaturationStrategy strategy) {
+    return accepts(new Fact(0), stmt(0, 0), strategy);
+  }
+
+  /** An automaton accepting the configuration at the last statement of the first method. */
+  public PAutomaton<Stmt, Fact> exitAutomaton(SaturationStrategy strategy) {
+    return accepts(new Fact(0), stmt(0, STATEMENTS_PER_METHOD - 1), strategy);
+  }
+
+  private static PAutomaton<Stmt, Fact> accepts(
+      Fact fact, Stmt stmt, SaturationStrategy strategy) {
+    PAutomaton<Stmt, Fact> aut =
+        new PAutomaton<Stmt, Fact>() {
+
+          @Override
+          public SaturationStrategy getSaturationStrategy() {
+            return strategy;
+          }
+
+          @Override
+          public Fact createState(Fact d, Stmt loc) {
+            return new Fact(d, loc);
+          }
+
+          @Override
+          public Stmt epsilon() {
+            return Stmt.EPSILON;
+          }
+
+          @Override
+          public boolean isGeneratedState(Fact d) {
+            return d.stmt != null;
+          }
+        };
+    aut.addFinalState(ACCEPTING);
+    aut.addTransition(new Transition<>(fact, stmt, ACCEPTING));
+    return aut;
+  }
+
+  private static Stmt stmt(int method, int index) {
+    return new Stmt(method * STATEMENTS_PER_METHOD + index);
+  }
+
+  public static class Stmt implements Location {
+    private static final Stmt EPSILON = new Stmt(-1);
+
+    private final int id;
+
+    private Stmt(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean accepts(Location other) {
+      return this.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      return id == ((Stmt) obj).id;
+    }
+
+    @Override
+    public String toString() {
+      return Integer.toString(id);
+    }
+  }
+
+  public static class Fact implements State {
+    private final int id;
+    private final Stmt stmt;
+
+    private Fact(int id) {
+      this.id = id;
+      this.stmt = null;
+    }
+
+    private Fact(Fact fact, Stmt stmt) {
+      this.id = fact.id;
+      this.stmt = stmt;
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + id;
+      result = prime * result + ((stmt == null) ? 0 : stmt.hashCode());
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      Fact other = (Fact) obj;
+      if (id != other.id) return false;
+      if (stmt == null) {
+        if (other.stmt != null) return false;
+      } else if (!stmt.equals(other.stmt)) return false;
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return (stmt == null ? Integer.toString(id) : "<" + id + "," + stmt + ">");
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import benchmarks.SyntheticProgram.Fact;
+import benchmarks.SyntheticProgram.Stmt;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wpds.impl.PAutomaton;
+import wpds.impl.PushdownSystem;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
+
+/** Post* and pre* saturation of generated pushdown systems with 10^4 to 10^6 rules. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8G", "-Xss128m"})
+public class WPDSSaturationBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  public int rules;
+
+  @Param({"RECURSIVE", "FIFO"})
+  public SaturationStrategy saturationStrategy;
+
+  private SyntheticProgram program;
+  private PushdownSystem<Stmt, Fact> pds;
+
+  @Setup(Level.Trial)
+  public void generateProgram() {
+    program = SyntheticProgram.generate(rules);
+  }
+
+  @Setup(Level.Invocation)
+  public void createPushdownSystem() {
+    pds = program.createPushdownSystem();
+  }
+
+  @Benchmark
+  public PAutomaton<Stmt, Fact> poststar() {
+    PAutomaton<Stmt, Fact> aut = program.entryAutomaton(saturationStrategy);
+    pds.poststar(aut);
+    return aut;
+  }
+
+  @Benchmark
+  public PAutomaton<Stmt, Fact> prestar() {
+    PAutomaton<Stmt, Fact> aut = program.exitAutomaton(saturationStrategy);
+    pds.prestar(aut);
+    return aut;
+  }
+}
@@ -21,6 +21,7 @@ import boomerang.scene.Statement;
 import boomerang.scene.Val;
 import boomerang.stats.IBoomerangStats;
 import java.util.Optional;
+import wpds.impl.WeightedPAutomaton.SaturationStrategy;
 
 public interface BoomerangOptions {
 
@@ -92,6 +93,15 @@ public interface BoomerangOptions {
 
   int maxUnbalancedCallDepth();
 
+  /**
+   * @return The strategy the call and field automata use to propagate transition updates. Any
+   *     strategy other than {@link SaturationStrategy#RECURSIVE} bounds the stack depth of the
+   *     saturation by a worklist.
+   */
+  default SaturationStrategy saturationStrategy() {
+    return SaturationStrategy.RECURSIVE;
+  }
+
   boolean onTheFlyControlFlow();
 
   boolean ignoreInnerClassFields();
@@ -102,7 +112,85 @@ public interface BoomerangOptions {
 
   boolean trackDataFlowPath();
 
+  /**
+   * @return The maximal number of paths the weights of {@link #trackDataFlowPath()} retain as
+   *     witnesses of all paths. The bound applies to the paths counted with repetitions, a set
+   *     that reached the bound retains its paths and ignores further paths.
+   */
+  default int maxPathWitnesses() {
+    return Integer.MAX_VALUE;
+  }
+
   boolean allowMultipleQueries();
 
+  /**
+   * @return The maximal number of solvers of root forward queries a solver retains across the
+   *     queries of a session with {@link #allowMultipleQueries()} enabled, or -1 to retain all.
+   *     Beyond the bound, the solvers of the least recently solved roots are evicted before a new
+   *     query is solved, and are recomputed if queried again. Roots that another query depends on
+   *     are always retained and do not count towards the bound. Results of evicted queries must be
+   *     consumed before the next query is solved.
+   */
+  default int maxRetainedSolvers() {
+    return -1;
+  }
+
+  /**
+   * @return Whether the solvers of a session share equal rules and transitions instead of
+   *     materializing them independently, see {@link wpds.impl.SharedStore}. Rules that carry a
+   *     weight are only shared if {@link #shareWeights()} is enabled as well.
+   */
+  default boolean shareAutomatonContent() {
+    return false;
+  }
+
+  /**
+   * @return Whether the shared content of {@link #shareAutomatonContent()} includes the weights
+   *     and the weighted rules. Requires the weights to be immutable and their equality to cover
+   *     all their state, which does not hold for all weight domains, e.g., typestate weights are
+   *     equal regardless of their state change statements.
+   */
+  default boolean shareWeights() {
+    return false;
+  }
+
+  /**
+   * @return Whether the solvers keep the nodes they reached in a worklist that is drained method by
+   *     method, see {@link sync.pds.solver.NodeWorklist}, instead of computing the successors of a
+   *     node directly when it is reached.
+   */
+  default boolean batchNodesByMethod() {
+    return false;
+  }
+
+  /**
+   * @return The maximal number of backward queries the on-the-fly call graph issues for the
+   *     receivers of virtual call sites per root query, or -1 for no bound. Once the budget is
+   *     exhausted, the virtual call sites resolved afterwards take their callees from the
+   *     precomputed call graph.
+   */
+  default int maxReceiverQueries() {
+    return -1;
+  }
+
+  /**
+   * @return The time in milliseconds the on-the-fly call graph may spend on receiver queries per
+   *     root query, or -1 for no bound. Once the budget is exhausted, the virtual call sites
+   *     resolved afterwards, and the call site whose receiver query exhausted it, take their
+   *     callees from the precomputed call graph.
+   */
+  default int resolutionTimeBudgetMS() {
+    return -1;
+  }
+
+  /**
+   * @return The maximal number of callees the on-the-fly call graph resolves for a virtual call
+   *     site, or -1 for no bound. A call site with more callees takes its callees from the
+   *     precomputed call graph instead.
+   */
+  default int maxCalleesPerCallSite() {
+    return -1;
+  }
+
   IBackwardFlowFunction getBackwardFlowFunction();
 }
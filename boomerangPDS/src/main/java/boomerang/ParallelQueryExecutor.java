@@ -0,0 +1,109 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang;
+
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import wpds.impl.Weight;
+
+/**
+ * Solves independent queries concurrently on a {@link ForkJoinPool}. Each query is solved by its
+ * own {@link WeightedBoomerang} instance obtained from the solver factory, so all mutable solver
+ * state (solvers per query, query graph, field writes, summaries) is isolated per query. The
+ * read-only structures the factory captures, such as the {@link boomerang.scene.CallGraph}, the
+ * {@link boomerang.scene.DataFlowScope} and the per method control-flow graphs, are shared between
+ * all queries. The results of each query are the same as when solving the query sequentially with
+ * a fresh solver.
+ */
+public class ParallelQueryExecutor<W extends Weight> {
+
+  private final Supplier<? extends WeightedBoomerang<W>> solverFactory;
+  private final int parallelism;
+
+  public ParallelQueryExecutor(Supplier<? extends WeightedBoomerang<W>> solverFactory) {
+    this(solverFactory, Runtime.getRuntime().availableProcessors());
+  }
+
+  public ParallelQueryExecutor(
+      Supplier<? extends WeightedBoomerang<W>> solverFactory, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+    }
+    this.solverFactory = solverFactory;
+    this.parallelism = parallelism;
+  }
+
+  /** Solves all forward queries and returns their results in iteration order of the queries. */
+  public Map<ForwardQuery, ForwardBoomerangResults<W>> solveForward(
+      Collection<? extends ForwardQuery> queries) {
+    Map<ForwardQuery, ForwardBoomerangResults<W>> results = Maps.newLinkedHashMap();
+    solve(queries, (solver, query) -> solver.solve(query), results::put);
+    return results;
+  }
+
+  /** Solves all backward queries and returns their results in iteration order of the queries. */
+  public Map<BackwardQuery, BackwardBoomerangResults<W>> solveBackward(
+      Collection<? extends BackwardQuery> queries) {
+    Map<BackwardQuery, BackwardBoomerangResults<W>> results = Maps.newLinkedHashMap();
+    solve(queries, (solver, query) -> solver.solve(query), results::put);
+    return results;
+  }
+
+  /**
+   * Solves all queries and hands each result to the consumer on the calling thread, in iteration
+   * order of the queries. Results are not retained by the executor, which allows clients to
+   * aggregate the results of many queries without keeping all solvers alive.
+   */
+  public <Q extends Query, R> void solve(
+      Collection<? extends Q> queries,
+      BiFunction<WeightedBoomerang<W>, Q, R> solve,
+      BiConsumer<Q, R> consumer) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<Future<R>> futures = Lists.newArrayListWithCapacity(queries.size());
+      for (Q query : queries) {
+        futures.add(pool.submit((Callable<R>) () -> solve.apply(solverFactory.get(), query)));
+      }
+      int i = 0;
+      for (Q query : queries) {
+        Future<R> future = futures.get(i);
+        futures.set(i++, null);
+        consumer.accept(query, get(future, query));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static <R> R get(Future<R> future, Query query) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while solving " + query, e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Solving query " + query + " failed", e.getCause());
+    }
+  }
+}
@@ -360,4 +360,21 @@ public class QueryGraph<W extends Weight> {
   public boolean isRoot(Query q) {
     return roots.contains(q);
   }
+
+  /** @return Whether the query is a root that is not (also) the child of another query. */
+  public boolean isDetachedRoot(Query q) {
+    return roots.contains(q) && !targetToQueryEdgeLookUp.containsKey(q);
+  }
+
+  /**
+   * Removes a detached root and its outgoing edges from the graph. The child queries remain in the
+   * graph.
+   */
+  public void removeRoot(Query root) {
+    roots.remove(root);
+    for (QueryEdge edge : sourceToQueryEdgeLookUp.removeAll(root)) {
+      targetToQueryEdgeLookUp.remove(edge.getTarget(), edge);
+    }
+    edgeAddListener.removeAll(root);
+  }
 }
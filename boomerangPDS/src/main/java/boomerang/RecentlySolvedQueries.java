@@ -0,0 +1,66 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The root queries of a session whose solvers may be evicted, in the order they were last solved,
+ * see {@link BoomerangOptions#maxRetainedSolvers()}. Only evictable roots count towards the bound.
+ * A root that another query depends on is retained for the rest of the session and dropped from
+ * the queue.
+ */
+class RecentlySolvedQueries {
+  private final Set<ForwardQuery> queries = Sets.newLinkedHashSet();
+  private final int maxRetainedSolvers;
+
+  RecentlySolvedQueries(int maxRetainedSolvers) {
+    this.maxRetainedSolvers = maxRetainedSolvers;
+  }
+
+  /**
+   * Records that the query is about to be solved and returns the queries whose solvers must be
+   * evicted, least recently solved first. The query itself is never evicted.
+   *
+   * @param isEvictable whether no other query depends on a root
+   */
+  List<ForwardQuery> solving(ForwardQuery query, Predicate<ForwardQuery> isEvictable) {
+    queries.remove(query);
+    queries.removeIf(isEvictable.negate());
+    queries.add(query);
+    List<ForwardQuery> evicted = Lists.newArrayList();
+    Iterator<ForwardQuery> it = queries.iterator();
+    while (queries.size() > maxRetainedSolvers && it.hasNext()) {
+      ForwardQuery next = it.next();
+      if (next.equals(query)) {
+        continue;
+      }
+      it.remove();
+      evicted.add(next);
+    }
+    return evicted;
+  }
+
+  /** Forgets a query whose solver was discarded. */
+  void remove(ForwardQuery query) {
+    queries.remove(query);
+  }
+
+  int size() {
+    return queries.size();
+  }
+}
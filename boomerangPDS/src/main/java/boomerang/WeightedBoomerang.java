@@ -52,6 +52,7 @@ import boomerang.util.DefaultValueMap;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -78,6 +79,7 @@ import sync.pds.solver.nodes.PushNode;
 import sync.pds.solver.nodes.SingleNode;
 import wpds.impl.NestedWeightedPAutomatons;
 import wpds.impl.Rule;
+import wpds.impl.SharedStore;
 import wpds.impl.SummaryNestedWeightedPAutomatons;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
@@ -104,6 +106,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
           LOGGER.trace("Forward solving query: {}", key);
           forwardQueries++;
           solver = createForwardSolver(key);
+          shareContent(solver);
 
           stats.registerSolver(key, solver);
           solver.getCallAutomaton().registerListener((t, w, aut) -> checkTimeout());
@@ -114,6 +117,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
       };
   private int forwardQueries;
   private int backwardQueries;
+  private final RecentlySolvedQueries recentlySolvedQueries;
   private final QueryGraph<W> queryGraph;
   private final DefaultValueMap<BackwardQuery, BackwardBoomerangSolver<W>> queryToBackwardSolvers =
       new DefaultValueMap<BackwardQuery, BackwardBoomerangSolver<W>>() {
@@ -166,6 +170,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
                   return super.preventFieldTransitionAdd(t, weight);
                 }
               };
+          shareContent(backwardSolver);
           backwardSolver.registerListener(
               node -> {
                 Optional<AllocVal> allocNode = isAllocationNode(node.stmt(), node.fact());
@@ -409,6 +414,9 @@ public abstract class WeightedBoomerang<W extends Weight> {
   private final DataFlowScope dataFlowscope;
   private CallGraph callGraph;
   private INode<Val> rootQuery;
+  // Only set if the solvers share their content, see BoomerangOptions#shareAutomatonContent()
+  private SharedStore<Edge, INode<Val>, W> callStore;
+  private SharedStore<Field, INode<Node<Edge, Val>>, W> fieldStore;
 
   public WeightedBoomerang(CallGraph cg, DataFlowScope scope, BoomerangOptions options) {
     this.options = options;
@@ -429,12 +437,24 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
     this.callGraph = cg;
     this.queryGraph = new QueryGraph<>(this);
+    this.recentlySolvedQueries = new RecentlySolvedQueries(options.maxRetainedSolvers());
+    if (options.shareAutomatonContent()) {
+      this.callStore = new SharedStore<>(options.shareWeights());
+      this.fieldStore = new SharedStore<>(options.shareWeights());
+      stats.registerSharedStores(callStore, fieldStore);
+    }
   }
 
   public WeightedBoomerang(CallGraph cg, DataFlowScope scope) {
     this(cg, scope, new DefaultBoomerangOptions());
   }
 
+  private void shareContent(AbstractBoomerangSolver<W> solver) {
+    if (callStore != null) {
+      solver.setSharedStores(callStore, fieldStore);
+    }
+  }
+
   protected void addVisitedMethod(Method method) {
     if (!dataFlowscope.isExcluded(method) && visitedMethods.add(method)) {
       LOGGER.trace("Reach Method: {}", method);
@@ -918,6 +938,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
           "One cannot re-use the same Boomerang solver for more than one query, unless option allowMultipleQueries is enabled. If allowMultipleQueries is enabled, ensure to call unregisterAllListeners() on this instance upon termination of all queries.");
     }
     solving = true;
+    evictSolvers(query);
+    icfg.startRootQuery();
     if (!analysisWatch.isRunning()) {
       analysisWatch.start();
     }
@@ -974,6 +996,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
           "One cannot re-use the same Boomerang solver for more than one query, unless option allowMultipleQueries is enabled. If allowMultipleQueries is enabled, ensure to call unregisterAllListeners() on this instance upon termination of all queries.");
     }
     solving = true;
+    icfg.startRootQuery();
     if (timing && !analysisWatch.isRunning()) {
       analysisWatch.start();
     }
@@ -998,6 +1021,84 @@ public abstract class WeightedBoomerang<W extends Weight> {
         query, timedout, this.queryToSolvers, backwardSolverIns, getStats(), analysisWatch);
   }
 
+  /**
+   * Bounds the number of retained root solvers, see {@link BoomerangOptions#maxRetainedSolvers()}.
+   * Only the solvers of completed root queries that no other query depends on are evicted, least
+   * recently solved first.
+   */
+  private void evictSolvers(ForwardQuery current) {
+    if (!options.allowMultipleQueries() || options.maxRetainedSolvers() < 0) {
+      return;
+    }
+    for (ForwardQuery query : recentlySolvedQueries.solving(current, queryGraph::isDetachedRoot)) {
+      evict(query);
+    }
+  }
+
+  /**
+   * Discards the solver of a completed root query, such that solving the query again recomputes
+   * it while the solvers of the queries it triggered are retained. Requires {@link
+   * BoomerangOptions#allowMultipleQueries()}.
+   *
+   * @return false if the solver is retained because another query depends on the query
+   */
+  public boolean discardSolver(ForwardQuery query) {
+    if (!queryGraph.isDetachedRoot(query)) {
+      return false;
+    }
+    recentlySolvedQueries.remove(query);
+    evict(query);
+    return true;
+  }
+
+  /**
+   * Whether the solvers of other queries import flows of the solver of the query at points of
+   * indirection. Those solvers retain the imported flows when the solver of the query is discarded.
+   */
+  public boolean isImportedByOtherSolvers(ForwardQuery query) {
+    ForwardBoomerangSolver<W> solver = queryToSolvers.get(query);
+    if (solver == null) {
+      return false;
+    }
+    for (SolverPair pair : Iterables.concat(poiListeners.keySet(), activatedPoi.keySet())) {
+      if (pair.baseSolver == solver && pair.flowSolver != solver) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Solves an allocation site as an additional root of the ongoing analysis, unless a solver for
+   * it exists already. This is used for allocation sites known to reach a fact from a backward
+   * query solved by another instance. Like any root, the allocation site flows to all callers of
+   * its method. Unlike {@link #solve(ForwardQuery)}, a timeout is propagated to the caller.
+   */
+  public ForwardBoomerangSolver<W> solveAllocationSite(ForwardQuery query) {
+    if (!queryToSolvers.containsKey(query)) {
+      queryGraph.addRoot(query);
+      forwardSolve(query);
+    }
+    return queryToSolvers.get(query);
+  }
+
+  private void evict(ForwardQuery query) {
+    ForwardBoomerangSolver<W> solver = queryToSolvers.remove(query);
+    if (solver == null) {
+      return;
+    }
+    LOGGER.trace("Evicting solver of query: {}", query);
+    solver.unregisterAllListeners();
+    queryGraph.removeRoot(query);
+    // A recomputation of the query must execute the points of indirection again
+    for (FieldWritePOI poi : fieldWrites.values()) {
+      poi.removeAllocation(query);
+    }
+    poiListeners.keySet().removeIf(pair -> pair.contains(solver));
+    activatedPoi.keySet().removeIf(pair -> pair.contains(solver));
+    stats.evicted(query, solver);
+  }
+
   public BackwardBoomerangResults<W> solveUnderScope(
       BackwardQuery query, Node<Edge, Val> triggeringNode, Query parentQuery) {
     if (!options.allowMultipleQueries() && solving) {
@@ -1299,6 +1400,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
       return true;
     }
 
+    private boolean contains(AbstractBoomerangSolver<W> solver) {
+      return flowSolver == solver || baseSolver == solver;
+    }
+
     private WeightedBoomerang getOuterType() {
       return WeightedBoomerang.this;
     }
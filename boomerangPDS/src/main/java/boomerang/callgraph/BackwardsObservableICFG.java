@@ -62,6 +62,11 @@ public class BackwardsObservableICFG implements ObservableICFG<Statement, Method
     delegate.computeFallback();
   }
 
+  @Override
+  public void startRootQuery() {
+    delegate.startRootQuery();
+  }
+
   @Override
   public void addEdges(Edge e) {
     this.delegate.addEdges(e);
@@ -13,20 +13,23 @@ import boomerang.scene.DataFlowScope;
 import boomerang.scene.DeclaredMethod;
 import boomerang.scene.InvokeExpr;
 import boomerang.scene.Method;
+import boomerang.scene.Pair;
 import boomerang.scene.Statement;
 import boomerang.scene.Type;
 import boomerang.scene.Val;
 import boomerang.scene.WrappedClass;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
-import com.google.common.collect.HashMultimap;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sync.pds.solver.nodes.INode;
@@ -43,17 +46,42 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
     BYPASS
   };
 
+  /**
+   * The budgets of the resolution, see {@link boomerang.BoomerangOptions#maxReceiverQueries()},
+   * {@link boomerang.BoomerangOptions#resolutionTimeBudgetMS()} and {@link
+   * boomerang.BoomerangOptions#maxCalleesPerCallSite()}. A call site whose resolution exceeds a
+   * budget is degraded to its callees in the precomputed call graph. The receiver queries and the
+   * time are counted per root query.
+   */
+  public enum ResolutionBudget {
+    RECEIVER_QUERIES,
+    TIME,
+    CALLEES
+  }
+
   private static final String THREAD_CLASS = "java.lang.Thread";
   private static final String THREAD_START_SIGNATURE = "<java.lang.Thread: void start()>";
   private static final String THREAD_RUN_SUB_SIGNATURE = "void run()";
 
   private static NoCalleeFoundFallbackOptions FALLBACK_OPTION = NoCalleeFoundFallbackOptions.BYPASS;
-  private static Multimap<DeclaredMethod, WrappedClass> didNotFindMethodLog = HashMultimap.create();
+  private static final int MAX_LOGGED_MISSING_METHODS = 100;
 
   private CallGraph precomputedCallGraph;
   private WeightedBoomerang<? extends Weight> solver;
   private Set<Statement> queriedInvokeExprAndAllocationSitesFound = Sets.newHashSet();
-  private Set<Statement> queriedInvokeExpr = Sets.newHashSet();;
+  private Set<Statement> queriedInvokeExpr = Sets.newHashSet();
+  // Targets by sub signature and receiver class, including empty results of failed look-ups
+  private Map<Pair<String, WrappedClass>, Collection<Method>> dispatchCache = Maps.newHashMap();
+  // The callees found for the receiver of a call site so far, updated as the solver proceeds
+  private Map<BackwardQuery, IterateSolvers<?>> receiverQueries = Maps.newHashMap();
+  private int missingMethods = 0;
+  // Call sites whose callees are taken from the precomputed call graph
+  private Set<Statement> degradedCallSites = Sets.newHashSet();
+  // Receiver queries issued for the current root query and the time spent in them, nested queries
+  // are measured by the outermost one
+  private int rootReceiverQueries = 0;
+  private Stopwatch resolutionTime = Stopwatch.createUnstarted();
+  private int queryDepth = 0;
 
   public BoomerangResolver(CallGraph cg, DataFlowScope scope) {
     this.solver = new Boomerang(cg, scope);
@@ -77,7 +105,9 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
     int refined = 0;
     int precomputed = 0;
     for (Statement s : Lists.newArrayList(queriedInvokeExpr)) {
-      if (!queriedInvokeExprAndAllocationSitesFound.contains(s)) {
+      if (degradedCallSites.contains(s)) {
+        precomputed++;
+      } else if (!queriedInvokeExprAndAllocationSitesFound.contains(s)) {
         logger.debug("Call graph ends at {}", s);
         precomputed++;
         if (FALLBACK_OPTION == NoCalleeFoundFallbackOptions.PRECOMPUTED) {
@@ -97,6 +127,15 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
     logger.debug("Refined edges {}, fallback to precomputed {}", refined, precomputed);
   }
 
+  @Override
+  public void startRootQuery() {
+    // Receiver queries are solved by the same solver, they count towards the issuing root query
+    if (queryDepth == 0) {
+      rootReceiverQueries = 0;
+      resolutionTime.reset();
+    }
+  }
+
   @Override
   public Method resolveSpecialInvoke(InvokeExpr ie) {
     Collection<Method> methodFromClassOrFromSuperclass =
@@ -129,6 +168,9 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
     // Construct BackwardQuery, so we know which types the object might have
     InvokeExpr invokeExpr = resolvingStmt.getInvokeExpr();
     queriedInvokeExpr.add(resolvingStmt);
+    if (degradedCallSites.contains(resolvingStmt)) {
+      return precomputedCallees(resolvingStmt);
+    }
     Val value = invokeExpr.getBase();
 
     Collection<Method> res = new ArrayList<>();
@@ -137,23 +179,102 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
     for (Statement pred :
         resolvingStmt.getMethod().getControlFlowGraph().getPredsOf(resolvingStmt)) {
       BackwardQuery query = BackwardQuery.make(new Edge(pred, resolvingStmt), value);
+      IterateSolvers<?> callback = receiverQueries.get(query);
+      if (callback == null) {
+        ResolutionBudget exhausted = exhaustedBudget();
+        if (exhausted != null) {
+          return degrade(resolvingStmt, exhausted);
+        }
+        rootReceiverQueries++;
+        solveReceiverQuery(query);
+        callback = forAnyAllocationSiteOfQuery(query, resolvingStmt, pred);
+        receiverQueries.put(query, callback);
+        // The budget is checked within the query by its nested resolutions and again here, a call
+        // site whose query ran out of time is degraded
+        if (timeBudgetExhausted()) {
+          return degrade(resolvingStmt, ResolutionBudget.TIME);
+        }
+      }
+      res.addAll(callback.results);
+    }
+
+    int maxCallees = solver.getOptions().maxCalleesPerCallSite();
+    if (maxCallees >= 0 && Sets.newHashSet(res).size() > maxCallees) {
+      return degrade(resolvingStmt, ResolutionBudget.CALLEES);
+    }
+    return res;
+  }
+
+  private void solveReceiverQuery(BackwardQuery query) {
+    if (queryDepth++ == 0) {
+      resolutionTime.start();
+    }
+    try {
       solver.solve(query, false);
-      res.addAll(forAnyAllocationSiteOfQuery(query, resolvingStmt, pred));
+    } finally {
+      if (--queryDepth == 0) {
+        resolutionTime.stop();
+      }
     }
+  }
 
+  /** The budget that does not permit another receiver query, or null if none is exhausted. */
+  private ResolutionBudget exhaustedBudget() {
+    int maxQueries = solver.getOptions().maxReceiverQueries();
+    if (maxQueries >= 0 && rootReceiverQueries >= maxQueries) {
+      return ResolutionBudget.RECEIVER_QUERIES;
+    }
+    if (timeBudgetExhausted()) {
+      return ResolutionBudget.TIME;
+    }
+    return null;
+  }
+
+  private boolean timeBudgetExhausted() {
+    int timeBudget = solver.getOptions().resolutionTimeBudgetMS();
+    return timeBudget >= 0 && resolutionTime.elapsed(TimeUnit.MILLISECONDS) >= timeBudget;
+  }
+
+  /**
+   * Takes the callees of the call site from the precomputed call graph. The site stays degraded,
+   * such that callees found by receiver queries issued before do not refine it later on.
+   */
+  private Collection<Method> degrade(Statement callSite, ResolutionBudget budget) {
+    logger.debug("Resolution budget {} exhausted at {}", budget, callSite);
+    degradedCallSites.add(callSite);
+    solver.getStats().degradedCallSite(callSite, budget);
+    return precomputedCallees(callSite);
+  }
+
+  private Collection<Method> precomputedCallees(Statement callSite) {
+    Collection<Method> res = new ArrayList<>();
+    for (CallGraph.Edge e : precomputedCallGraph.edgesOutOf(callSite)) {
+      res.add(e.tgt());
+    }
     return res;
   }
 
-  @SuppressWarnings("rawtypes")
-  private Collection<Method> forAnyAllocationSiteOfQuery(
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private IterateSolvers<?> forAnyAllocationSiteOfQuery(
       BackwardQuery query, Statement resolvingStmt, Statement callSite) {
     IterateSolvers callback = new IterateSolvers(query, callSite, resolvingStmt);
     solver.registerSolverCreationListener(callback);
-    return callback.results;
+    return callback;
   }
 
   private Collection<Method> getMethodFromClassOrFromSuperclass(
       DeclaredMethod method, WrappedClass sootClass) {
+    Pair<String, WrappedClass> key = new Pair<>(method.getSubSignature(), sootClass);
+    Collection<Method> res = dispatchCache.get(key);
+    if (res == null) {
+      res = lookUpMethodInClassOrSuperclass(method, sootClass);
+      dispatchCache.put(key, res);
+    }
+    return res;
+  }
+
+  private Collection<Method> lookUpMethodInClassOrSuperclass(
+      DeclaredMethod method, WrappedClass sootClass) {
     Set<Method> res = Sets.newHashSet();
     WrappedClass originalClass = sootClass;
     while (sootClass != null) {
@@ -176,8 +297,11 @@ public class BoomerangResolver implements ICallerCalleeResolutionStrategy {
   }
 
   private void logDidNotFindMethod(DeclaredMethod method, WrappedClass originalClass) {
-    if (didNotFindMethodLog.put(method, originalClass)) {
+    // Failed look-ups are cached, each is logged once per resolver
+    if (++missingMethods <= MAX_LOGGED_MISSING_METHODS) {
       logger.debug("Did not find method {} for class {}", method, originalClass);
+    } else if (missingMethods == MAX_LOGGED_MISSING_METHODS + 1) {
+      logger.debug("Did not find more than {} methods", MAX_LOGGED_MISSING_METHODS);
     }
   }
 
@@ -15,6 +15,12 @@ public interface ICallerCalleeResolutionStrategy {
 
   void computeFallback(ObservableDynamicICFG observableDynamicICFG);
 
+  /**
+   * Called before the solver starts a query, including the queries the strategy issues itself.
+   * Budgets of the resolution apply per root query. Does nothing by default.
+   */
+  default void startRootQuery() {}
+
   Method resolveSpecialInvoke(InvokeExpr ie);
 
   Collection<Method> resolveInstanceInvoke(Statement stmt);
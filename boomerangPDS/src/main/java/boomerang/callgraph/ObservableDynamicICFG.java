@@ -190,6 +190,11 @@ public class ObservableDynamicICFG implements ObservableICFG<Statement, Method>
     resolutionStrategy.computeFallback(this);
   }
 
+  @Override
+  public void startRootQuery() {
+    resolutionStrategy.startRootQuery();
+  }
+
   @Override
   public void addEdges(Edge e) {
     demandDrivenCallGraph.addEdge(e);
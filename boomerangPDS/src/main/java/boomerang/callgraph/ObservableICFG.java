@@ -48,5 +48,11 @@ public interface ObservableICFG<N, M> {
 
   void computeFallback();
 
+  /**
+   * Called before the solver starts a root query. The budgets of a demand-driven call graph apply
+   * per root query. Does nothing by default.
+   */
+  default void startRootQuery() {}
+
   void addEdges(Edge e);
 }
@@ -41,5 +41,14 @@ public abstract class PointOfIndirection<Statement, Val, Field> {
     }
   }
 
+  /**
+   * Forgets the query as base and flow allocation, such that a recomputation of the query executes
+   * the point of indirection again.
+   */
+  public void removeAllocation(Query allocation) {
+    actualBaseAllocations.remove(allocation);
+    flowAllocations.remove(allocation);
+  }
+
   public abstract Edge getCfgEdge();
 }
@@ -43,6 +43,7 @@ import java.util.Set;
 import org.slf4j.LoggerFactory;
 import pathexpression.IRegEx;
 import sync.pds.solver.EmptyStackWitnessListener;
+import sync.pds.solver.NodeWorklist;
 import sync.pds.solver.SyncPDSSolver;
 import sync.pds.solver.WitnessListener;
 import sync.pds.solver.nodes.GeneratedState;
@@ -107,7 +108,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight>
         fieldSummaries,
         options.maxCallDepth(),
         options.maxFieldDepth(),
-        options.maxUnbalancedCallDepth());
+        options.maxUnbalancedCallDepth(),
+        options.saturationStrategy());
     this.options = options;
     this.icfg = icfg;
     this.cfg = cfg;
@@ -125,6 +127,9 @@ public abstract class AbstractBoomerangSolver<W extends Weight>
         });
     this.callAutomaton.registerListener(new UnbalancedListener());
     this.generatedFieldState = genField;
+    if (options.batchNodesByMethod()) {
+      setNodeWorklist(new NodeWorklist<>(Edge::getMethod));
+    }
   }
 
   public boolean reachesNodeWithEmptyField(Node<Edge, Val> node) {
@@ -524,50 +529,59 @@ public abstract class AbstractBoomerangSolver<W extends Weight>
     return false;
   }
 
+  /**
+   * The access paths that reach the control flow edges out of the statement, with the weights of
+   * the field automaton. The transitions are looked up in the per method index of the field
+   * automaton rather than by replaying the whole automaton.
+   */
   public Map<RegExAccessPath, W> getResultsAt(final Statement stmt) {
     final Map<RegExAccessPath, W> results = Maps.newHashMap();
-    fieldAutomaton.registerListener(
-        (t, w, aut) -> {
-          if (t.getStart() instanceof GeneratedState) {
-            return;
-          }
-          if (t.getStart().fact().stmt().equals(stmt)) {
-            for (INode<Node<ControlFlowGraph.Edge, Val>> initState :
-                fieldAutomaton.getInitialStates()) {
-              IRegEx<Field> regEx = fieldAutomaton.toRegEx(t.getStart(), initState);
-
-              results.put(new RegExAccessPath(t.getStart().fact().fact(), regEx), w);
-            }
-          }
-        });
+    for (Transition<Field, INode<Node<ControlFlowGraph.Edge, Val>>> t :
+        Lists.newArrayList(perMethodFieldTransitions.get(stmt.getMethod()))) {
+      if (t.getStart() instanceof GeneratedState) {
+        continue;
+      }
+      if (t.getStart().fact().stmt().getStart().equals(stmt)) {
+        W w = fieldAutomaton.getWeightFor(t);
+        for (INode<Node<ControlFlowGraph.Edge, Val>> initState :
+            fieldAutomaton.getInitialStates()) {
+          IRegEx<Field> regEx = fieldAutomaton.toRegEx(t.getStart(), initState);
+          results.put(new RegExAccessPath(t.getStart().fact().fact(), regEx), w);
+        }
+      }
+    }
     return results;
   }
 
+  /**
+   * The access paths that reach the control flow edges of the method, with the weights of the call
+   * automaton. The transitions are looked up in the per method index of the field automaton and
+   * the per statement index of the call automaton.
+   */
   public Table<Edge, RegExAccessPath, W> getResults(Method m) {
     final Table<Edge, RegExAccessPath, W> results = HashBasedTable.create();
     LOGGER.debug("Start extracting results from {}", this);
-    fieldAutomaton.registerListener(
-        (t, w, aut) -> {
-          if (t.getStart() instanceof GeneratedState) {
-            return;
-          }
-          if (t.getStart().fact().stmt().getStart().getMethod().equals(m)) {
-            for (INode<Node<ControlFlowGraph.Edge, Val>> initState :
-                fieldAutomaton.getInitialStates()) {
-              IRegEx<Field> regEx = fieldAutomaton.toRegEx(t.getStart(), initState);
-              AbstractBoomerangSolver.this.callAutomaton.registerListener(
-                  (callT, w1, aut1) -> {
-                    if (callT.getStart().fact().equals(t.getStart().fact().fact())
-                        && callT.getLabel().equals(t.getStart().fact().stmt())) {
-                      results.put(
-                          t.getStart().fact().stmt(),
-                          new RegExAccessPath(t.getStart().fact().fact(), regEx),
-                          w1);
-                    }
-                  });
-            }
-          }
-        });
+    for (Transition<Field, INode<Node<ControlFlowGraph.Edge, Val>>> t :
+        Lists.newArrayList(perMethodFieldTransitions.get(m))) {
+      if (t.getStart() instanceof GeneratedState) {
+        continue;
+      }
+      Node<Edge, Val> node = t.getStart().fact();
+      if (!node.stmt().getStart().getMethod().equals(m)) {
+        continue;
+      }
+      for (Entry<Transition<ControlFlowGraph.Edge, INode<Val>>, W> callT :
+          perStatementCallTransitions.row(node.stmt()).entrySet()) {
+        if (!callT.getKey().getStart().fact().equals(node.fact())) {
+          continue;
+        }
+        for (INode<Node<ControlFlowGraph.Edge, Val>> initState :
+            fieldAutomaton.getInitialStates()) {
+          IRegEx<Field> regEx = fieldAutomaton.toRegEx(t.getStart(), initState);
+          results.put(node.stmt(), new RegExAccessPath(node.fact(), regEx), callT.getValue());
+        }
+      }
+    }
     LOGGER.debug("End extracted results from {}", this);
     return results;
   }
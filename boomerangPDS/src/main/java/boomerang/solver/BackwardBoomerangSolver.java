@@ -164,9 +164,10 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
   protected void normalFlow(Method method, Node<ControlFlowGraph.Edge, Val> currNode) {
     Edge curr = currNode.stmt();
     Val value = currNode.fact();
-    for (Statement pred :
-        curr.getStart().getMethod().getControlFlowGraph().getPredsOf(curr.getStart())) {
-      Collection<State> flow = computeNormalFlow(method, new Edge(pred, curr.getStart()), value);
+    ControlFlowGraph methodCfg = curr.getStart().getMethod().getControlFlowGraph();
+    for (Statement pred : methodCfg.getPredsOf(curr.getStart())) {
+      Edge edge = methodCfg.getEdge(pred, curr.getStart());
+      Collection<State> flow = computeNormalFlow(method, edge, value);
       for (State s : flow) {
         propagate(currNode, s);
       }
@@ -415,14 +415,13 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             if (!method.getLocals().contains(value) && !value.isStatic()) {
               return;
             }
+            Edge nextEdge = method.getControlFlowGraph().getEdge(curr.getTarget(), succ);
             if (curr.getTarget().containsInvokeExpr()
                 && (curr.getTarget().isParameter(value) || value.isStatic())) {
-              callFlow(
-                  method, node, new Edge(curr.getTarget(), succ), curr.getTarget().getInvokeExpr());
+              callFlow(method, node, nextEdge, curr.getTarget().getInvokeExpr());
             } else {
               checkForFieldOverwrite(curr, value);
-              Collection<State> out =
-                  computeNormalFlow(method, new Edge(curr.getTarget(), succ), value);
+              Collection<State> out = computeNormalFlow(method, nextEdge, value);
               for (State s : out) {
                 LOGGER.trace("{}: {} -> {}", s, node, ForwardBoomerangSolver.this.query);
                 propagate(node, s);
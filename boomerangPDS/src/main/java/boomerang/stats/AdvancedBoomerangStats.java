@@ -15,26 +15,33 @@ import boomerang.BackwardQuery;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.WeightedBoomerang;
+import boomerang.callgraph.BoomerangResolver.ResolutionBudget;
 import boomerang.results.BackwardBoomerangResults;
 import boomerang.results.ForwardBoomerangResults;
 import boomerang.scene.ControlFlowGraph.Edge;
 import boomerang.scene.Field;
 import boomerang.scene.Field.ArrayField;
 import boomerang.scene.Method;
+import boomerang.scene.Statement;
 import boomerang.scene.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.BackwardBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
+import com.google.common.collect.EnumMultiset;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import wpds.impl.Rule;
+import wpds.impl.SharedStore;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
 import wpds.interfaces.Location;
@@ -59,6 +66,11 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
   private int reachedBackwardNodeCollisions;
   private Set<Method> callVisitedMethods = Sets.newHashSet();
   private Set<Method> fieldVisitedMethods = Sets.newHashSet();
+  private int evictedSolvers;
+  private long evictedTransitions;
+  private Multiset<ResolutionBudget> degradedCallSites =
+      EnumMultiset.create(ResolutionBudget.class);
+  private List<SharedStore<?, ?, W>> sharedStores = Lists.newArrayList();
   private int arrayFlows;
   private int staticFlows;
   private boolean COUNT_TOP_METHODS = false;
@@ -164,6 +176,30 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
     map.put(method, ++i);
   }
 
+  @Override
+  public void evicted(Query key, AbstractBoomerangSolver<W> solver) {
+    if (queries.remove(key) == null) {
+      return;
+    }
+    evictedSolvers++;
+    evictedTransitions +=
+        solver.getCallAutomaton().getTransitions().size()
+            + solver.getFieldAutomaton().getTransitions().size();
+  }
+
+  @Override
+  public void registerSharedStores(
+      SharedStore<Edge, INode<Val>, W> callStore,
+      SharedStore<Field, INode<Node<Edge, Val>>, W> fieldStore) {
+    sharedStores.add(callStore);
+    sharedStores.add(fieldStore);
+  }
+
+  @Override
+  public void degradedCallSite(Statement callSite, ResolutionBudget budget) {
+    degradedCallSites.add(budget);
+  }
+
   @Override
   public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {}
 
@@ -180,6 +216,31 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         String.format(
             "Queries (Forward/Backward/Total): \t\t %s/%s/%s\n",
             forwardQuery, backwardQuery, queries.keySet().size());
+    s +=
+        String.format(
+            "Evicted Solvers (Transitions): \t\t %s (%s)\n", evictedSolvers, evictedTransitions);
+    s +=
+        String.format(
+            "Degraded Call Sites (Queries/Time/Callees): \t\t %s/%s/%s\n",
+            degradedCallSites.count(ResolutionBudget.RECEIVER_QUERIES),
+            degradedCallSites.count(ResolutionBudget.TIME),
+            degradedCallSites.count(ResolutionBudget.CALLEES));
+    if (!sharedStores.isEmpty()) {
+      long transitions = 0;
+      long rules = 0;
+      long weights = 0;
+      long savedBytes = 0;
+      for (SharedStore<?, ?, W> store : sharedStores) {
+        transitions += store.getSharedTransitions();
+        rules += store.getSharedRules();
+        weights += store.getSharedWeights();
+        savedBytes += store.getEstimatedSavedBytes();
+      }
+      s +=
+          String.format(
+              "Shared Transitions/Rules/Weights (Saved KB): \t\t %s/%s/%s (%s)\n",
+              transitions, rules, weights, savedBytes / 1024);
+    }
     s +=
         String.format(
             "Visited Methods (Field/Call): \t\t %s/%s\n",
@@ -16,18 +16,22 @@ import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.Util;
 import boomerang.WeightedBoomerang;
+import boomerang.callgraph.BoomerangResolver.ResolutionBudget;
 import boomerang.results.BackwardBoomerangResults;
 import boomerang.results.ForwardBoomerangResults;
 import boomerang.scene.ControlFlowGraph.Edge;
 import boomerang.scene.Field;
 import boomerang.scene.Field.ArrayField;
 import boomerang.scene.Method;
+import boomerang.scene.Statement;
 import boomerang.scene.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import boomerang.solver.ForwardBoomerangSolver;
 import com.google.common.base.Joiner;
+import com.google.common.collect.EnumMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import java.io.File;
 import java.io.FileWriter;
@@ -44,6 +48,7 @@ import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import wpds.impl.Rule;
+import wpds.impl.SharedStore;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
 import wpds.interfaces.Location;
@@ -76,6 +81,11 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
   private int staticFlows;
   private int fieldWritePOIs;
   private int fieldReadPOIs;
+  private int evictedSolvers;
+  private long evictedTransitions;
+  private Multiset<ResolutionBudget> degradedCallSites =
+      EnumMultiset.create(ResolutionBudget.class);
+  private List<SharedStore<?, ?, W>> sharedStores = Lists.newArrayList();
 
   private String outputFileName;
   private static final String CSV_SEPARATOR = ";";
@@ -111,7 +121,16 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     FieldContainsLoop,
     MemoryBefore,
     MemoryAfter,
-    MemoryDiff
+    MemoryDiff,
+    EvictedSolvers,
+    EvictedTransitions,
+    DegradedByReceiverQueries,
+    DegradedByTime,
+    DegradedByCallees,
+    SharedTransitions,
+    SharedRules,
+    SharedWeights,
+    SharedSavedBytes
   }
 
   public CSVBoomerangStatsWriter(String outputFileName) {
@@ -218,6 +237,30 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     }
   }
 
+  @Override
+  public void evicted(Query key, AbstractBoomerangSolver<W> solver) {
+    if (queries.remove(key) == null) {
+      return;
+    }
+    evictedSolvers++;
+    evictedTransitions +=
+        solver.getCallAutomaton().getTransitions().size()
+            + solver.getFieldAutomaton().getTransitions().size();
+  }
+
+  @Override
+  public void registerSharedStores(
+      SharedStore<Edge, INode<Val>, W> callStore,
+      SharedStore<Field, INode<Node<Edge, Val>>, W> fieldStore) {
+    sharedStores.add(callStore);
+    sharedStores.add(fieldStore);
+  }
+
+  @Override
+  public void degradedCallSite(Statement callSite, ResolutionBudget budget) {
+    degradedCallSites.add(budget);
+  }
+
   @Override
   public void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key) {
     fieldWritePOIs++;
@@ -386,6 +429,27 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     put(Headers.MemoryAfter, memoryAfter);
     put(Headers.MemoryBefore, memoryBefore);
     put(Headers.MemoryDiff, memoryAfter - memoryBefore);
+    put(Headers.EvictedSolvers, evictedSolvers);
+    put(Headers.EvictedTransitions, evictedTransitions);
+    put(
+        Headers.DegradedByReceiverQueries,
+        degradedCallSites.count(ResolutionBudget.RECEIVER_QUERIES));
+    put(Headers.DegradedByTime, degradedCallSites.count(ResolutionBudget.TIME));
+    put(Headers.DegradedByCallees, degradedCallSites.count(ResolutionBudget.CALLEES));
+    long sharedTransitions = 0;
+    long sharedRules = 0;
+    long sharedWeights = 0;
+    long sharedSavedBytes = 0;
+    for (SharedStore<?, ?, W> store : sharedStores) {
+      sharedTransitions += store.getSharedTransitions();
+      sharedRules += store.getSharedRules();
+      sharedWeights += store.getSharedWeights();
+      sharedSavedBytes += store.getEstimatedSavedBytes();
+    }
+    put(Headers.SharedTransitions, sharedTransitions);
+    put(Headers.SharedRules, sharedRules);
+    put(Headers.SharedWeights, sharedWeights);
+    put(Headers.SharedSavedBytes, sharedSavedBytes);
     try {
       File reportFile = new File(outputFileName).getAbsoluteFile();
       if (!reportFile.getParentFile().exists()) {
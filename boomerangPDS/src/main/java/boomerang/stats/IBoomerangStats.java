@@ -15,21 +15,44 @@ import boomerang.BackwardQuery;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.WeightedBoomerang;
+import boomerang.callgraph.BoomerangResolver.ResolutionBudget;
 import boomerang.results.BackwardBoomerangResults;
 import boomerang.results.ForwardBoomerangResults;
 import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Field;
 import boomerang.scene.Method;
+import boomerang.scene.Statement;
 import boomerang.scene.Val;
 import boomerang.solver.AbstractBoomerangSolver;
 import java.util.Collection;
 import java.util.Set;
+import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
+import wpds.impl.SharedStore;
 import wpds.impl.Weight;
 
 /** Created by johannesspath on 06.12.17. */
 public interface IBoomerangStats<W extends Weight> {
   void registerSolver(Query key, AbstractBoomerangSolver<W> solver);
 
+  /** Called once if the solvers of the session share their rules, transitions and weights. */
+  void registerSharedStores(
+      SharedStore<Edge, INode<Val>, W> callStore,
+      SharedStore<Field, INode<Node<Edge, Val>>, W> fieldStore);
+
+  /**
+   * Called when the solver of a completed query is evicted, see {@link
+   * boomerang.BoomerangOptions#maxRetainedSolvers()}. Implementations must release their references
+   * to the solver.
+   */
+  void evicted(Query key, AbstractBoomerangSolver<W> solver);
+
+  /**
+   * Called when the on-the-fly call graph takes the callees of a call site from the precomputed
+   * call graph because the resolution budget was exhausted.
+   */
+  void degradedCallSite(Statement callSite, ResolutionBudget budget);
+
   void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key);
 
   Set<Method> getCallVisitedMethods();
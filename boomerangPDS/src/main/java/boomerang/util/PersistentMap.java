@@ -0,0 +1,369 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map implemented as a hash array mapped trie. {@link #plus(Object, Object)} returns
+ * a new map that shares all but the path to the modified entry with the original one, so adding an
+ * entry takes time and space logarithmic in the size of the map instead of requiring a full copy.
+ * Maps that result from adding an entry that is already present are the identical instance. Keys
+ * must not be null.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(BitmapNode.EMPTY, 0);
+
+  private final TrieNode root;
+  private final int size;
+  private int hashCode;
+  private Set<Entry<K, V>> entrySet;
+
+  private PersistentMap(TrieNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentMap) {
+      @SuppressWarnings("unchecked")
+      PersistentMap<K, V> res = (PersistentMap<K, V>) map;
+      return res;
+    }
+    PersistentMap<K, V> res = empty();
+    for (Entry<? extends K, ? extends V> e : map.entrySet()) {
+      res = res.plus(e.getKey(), e.getValue());
+    }
+    return res;
+  }
+
+  /** Returns a map that additionally maps the key to the value, replacing any previous value. */
+  public PersistentMap<K, V> plus(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("Keys must not be null");
+    }
+    boolean[] added = new boolean[1];
+    TrieNode newRoot = root.put(0, hash(key), key, value, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+  }
+
+  /** Returns a map containing the entries of both maps, entries of the argument take precedence. */
+  public PersistentMap<K, V> plusAll(Map<? extends K, ? extends V> other) {
+    if (isEmpty()) {
+      return copyOf(other);
+    }
+    PersistentMap<K, V> res = this;
+    for (Entry<? extends K, ? extends V> e : other.entrySet()) {
+      res = res.plus(e.getKey(), e.getValue());
+    }
+    return res;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    return (V) root.get(0, hash(key), key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (key == null) {
+      return false;
+    }
+    return root.containsKey(0, hash(key), key);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet =
+          new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+              return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+              return size;
+            }
+          };
+    }
+    return entrySet;
+  }
+
+  @Override
+  public int hashCode() {
+    if (hashCode == 0) {
+      hashCode = super.hashCode();
+    }
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o instanceof PersistentMap && hashCode() != o.hashCode()) return false;
+    return super.equals(o);
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private abstract static class TrieNode {
+    abstract TrieNode put(int shift, int hash, Object key, Object value, boolean[] added);
+
+    abstract Object get(int shift, int hash, Object key);
+
+    abstract boolean containsKey(int shift, int hash, Object key);
+  }
+
+  /**
+   * A node with up to 32 slots, one for each 5 bit chunk of the hash at this level. Only occupied
+   * slots are stored. Slot i is stored at position 2i and 2i+1 of the array, either as key and
+   * value or, if the key position is null, as sub node.
+   */
+  private static final class BitmapNode extends TrieNode {
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int bitmap;
+    private final Object[] array;
+
+    private BitmapNode(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    TrieNode put(int shift, int hash, Object key, Object value, boolean[] added) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      int idx = index(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, 2 * idx);
+        newArray[2 * idx] = key;
+        newArray[2 * idx + 1] = value;
+        System.arraycopy(array, 2 * idx, newArray, 2 * idx + 2, array.length - 2 * idx);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+      Object keyOrNull = array[2 * idx];
+      Object valueOrNode = array[2 * idx + 1];
+      if (keyOrNull == null) {
+        TrieNode node = ((TrieNode) valueOrNode).put(shift + BITS, hash, key, value, added);
+        return node == valueOrNode ? this : with(2 * idx + 1, node);
+      }
+      if (key.equals(keyOrNull)) {
+        if (value == valueOrNode || (value != null && value.equals(valueOrNode))) {
+          return this;
+        }
+        return with(2 * idx + 1, value);
+      }
+      added[0] = true;
+      TrieNode node = createNode(shift + BITS, keyOrNull, valueOrNode, hash, key, value);
+      BitmapNode res = with(2 * idx + 1, node);
+      res.array[2 * idx] = null;
+      return res;
+    }
+
+    private BitmapNode with(int pos, Object val) {
+      Object[] newArray = array.clone();
+      newArray[pos] = val;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    private static TrieNode createNode(
+        int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+      int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+      }
+      boolean[] added = new boolean[1];
+      return EMPTY
+          .put(shift, hash1, key1, value1, added)
+          .put(shift, hash2, key2, value2, added);
+    }
+
+    @Override
+    Object get(int shift, int hash, Object key) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      int idx = index(bit);
+      Object keyOrNull = array[2 * idx];
+      Object valueOrNode = array[2 * idx + 1];
+      if (keyOrNull == null) {
+        return ((TrieNode) valueOrNode).get(shift + BITS, hash, key);
+      }
+      return key.equals(keyOrNull) ? valueOrNode : null;
+    }
+
+    @Override
+    boolean containsKey(int shift, int hash, Object key) {
+      int bit = 1 << ((hash >>> shift) & MASK);
+      if ((bitmap & bit) == 0) {
+        return false;
+      }
+      int idx = index(bit);
+      Object keyOrNull = array[2 * idx];
+      if (keyOrNull == null) {
+        return ((TrieNode) array[2 * idx + 1]).containsKey(shift + BITS, hash, key);
+      }
+      return key.equals(keyOrNull);
+    }
+  }
+
+  /** Holds the entries of keys with identical hashes. */
+  private static final class CollisionNode extends TrieNode {
+    private final int hash;
+    private final Object[] array;
+
+    private CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    @Override
+    TrieNode put(int shift, int hash, Object key, Object value, boolean[] added) {
+      if (hash != this.hash) {
+        int bit = 1 << ((this.hash >>> shift) & MASK);
+        return new BitmapNode(bit, new Object[] {null, this}).put(shift, hash, key, value, added);
+      }
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          if (value == array[i + 1] || (value != null && value.equals(array[i + 1]))) {
+            return this;
+          }
+          Object[] newArray = array.clone();
+          newArray[i + 1] = value;
+          return new CollisionNode(hash, newArray);
+        }
+      }
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    Object get(int shift, int hash, Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return array[i + 1];
+        }
+      }
+      return null;
+    }
+
+    @Override
+    boolean containsKey(int shift, int hash, Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+    private final Deque<Object[]> arrays = new ArrayDeque<>();
+    private final Deque<Integer> positions = new ArrayDeque<>();
+    private Entry<K, V> next;
+
+    private EntryIterator(TrieNode root) {
+      push(root);
+      advance();
+    }
+
+    private void push(TrieNode node) {
+      if (node instanceof BitmapNode) {
+        arrays.push(((BitmapNode) node).array);
+      } else {
+        arrays.push(((CollisionNode) node).array);
+      }
+      positions.push(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      next = null;
+      while (!arrays.isEmpty()) {
+        Object[] array = arrays.peek();
+        int pos = positions.pop();
+        if (pos >= array.length) {
+          arrays.pop();
+          continue;
+        }
+        positions.push(pos + 2);
+        Object key = array[pos];
+        if (key == null) {
+          push((TrieNode) array[pos + 1]);
+        } else {
+          next = new SimpleImmutableEntry<>((K) key, (V) array[pos + 1]);
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> res = next;
+      advance();
+      return res;
+    }
+  }
+}
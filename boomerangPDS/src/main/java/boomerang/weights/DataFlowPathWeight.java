@@ -24,12 +24,21 @@ public class DataFlowPathWeight extends Weight {
   }
 
   public DataFlowPathWeight(Node<Edge, Val> path) {
-    this.path = new PathTrackingWeight(path);
+    this(path, Integer.MAX_VALUE);
+  }
+
+  public DataFlowPathWeight(Node<Edge, Val> path, int maxPathWitnesses) {
+    this.path = new PathTrackingWeight(path, maxPathWitnesses);
     this.condition = PathConditionWeight.one();
   }
 
   public DataFlowPathWeight(Node<Edge, Val> path, Statement callSite, Method callee) {
-    this.path = new PathTrackingWeight(path);
+    this(path, callSite, callee, Integer.MAX_VALUE);
+  }
+
+  public DataFlowPathWeight(
+      Node<Edge, Val> path, Statement callSite, Method callee, int maxPathWitnesses) {
+    this.path = new PathTrackingWeight(path, maxPathWitnesses);
     this.condition = new PathConditionWeight(callSite, callee);
   }
 
@@ -43,7 +52,7 @@ public class DataFlowPathWeight extends Weight {
     this.condition = new PathConditionWeight(ifStatement, condition);
   }
 
-  private DataFlowPathWeight(PathTrackingWeight path, PathConditionWeight condition) {
+  DataFlowPathWeight(PathTrackingWeight path, PathConditionWeight condition) {
     this.path = path;
     this.condition = condition;
   }
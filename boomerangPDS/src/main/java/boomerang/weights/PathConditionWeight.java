@@ -3,27 +3,45 @@ package boomerang.weights;
 import boomerang.scene.Method;
 import boomerang.scene.Statement;
 import boomerang.scene.Val;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import boomerang.util.PersistentMap;
 import java.util.Map;
-import java.util.Set;
 import wpds.impl.Weight;
 
+/**
+ * A weight of path conditions. Weights created through a {@link PathConditionWeightFactory} and the
+ * results of {@link #extendWith(Weight)} and {@link #combineWith(Weight)} on them are interned by
+ * that factory, identical conditions are represented by a single instance.
+ */
 public class PathConditionWeight extends Weight {
 
   private static PathConditionWeight one;
-  private Map<Statement, ConditionDomain> ifStatements = Maps.newHashMap();
-  private Map<Val, ConditionDomain> variableToValue = Maps.newHashMap();
-  private Set<Val> returnVals = Sets.newHashSet();
-  private Map<Method, Statement> calleeToCallSite = Maps.newHashMap();
+  // All maps are persistent, weights share the entries they have in common with their operands
+  private final PersistentMap<Statement, ConditionDomain> ifStatements;
+  private final PersistentMap<Val, ConditionDomain> variableToValue;
+  private final PersistentMap<Val, Boolean> returnVals;
+  private final PersistentMap<Method, Statement> calleeToCallSite;
+  // The factory this weight is interned in, null if it is not interned
+  private final PathConditionWeightFactory factory;
   private String rep;
+  private int hashCode;
 
   private PathConditionWeight(String rep) {
+    this(
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        null);
     this.rep = rep;
   }
 
   public PathConditionWeight(Statement callSite, Method callee) {
-    this.calleeToCallSite.put(callee, callSite);
+    this(
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.<Method, Statement>empty().plus(callee, callSite),
+        null);
   }
 
   public static PathConditionWeight one() {
@@ -34,26 +52,44 @@ public class PathConditionWeight extends Weight {
   }
 
   public PathConditionWeight(Val returnVal) {
-    this.returnVals.add(returnVal);
+    this(
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.<Val, Boolean>empty().plus(returnVal, true),
+        PersistentMap.empty(),
+        null);
   }
 
-  private PathConditionWeight(
-      Map<Statement, ConditionDomain> ifStatements,
-      Map<Val, ConditionDomain> variableToValue,
-      Set<Val> returnVals,
-      Map<Method, Statement> calleeToCallSiteMapping) {
+  PathConditionWeight(
+      PersistentMap<Statement, ConditionDomain> ifStatements,
+      PersistentMap<Val, ConditionDomain> variableToValue,
+      PersistentMap<Val, Boolean> returnVals,
+      PersistentMap<Method, Statement> calleeToCallSiteMapping,
+      PathConditionWeightFactory factory) {
     this.ifStatements = ifStatements;
     this.variableToValue = variableToValue;
     this.returnVals = returnVals;
     this.calleeToCallSite = calleeToCallSiteMapping;
+    this.factory = factory;
   }
 
   public PathConditionWeight(Statement ifStatement, Boolean condition) {
-    ifStatements.put(ifStatement, condition ? ConditionDomain.TRUE : ConditionDomain.FALSE);
+    this(
+        PersistentMap.<Statement, ConditionDomain>empty()
+            .plus(ifStatement, condition ? ConditionDomain.TRUE : ConditionDomain.FALSE),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        null);
   }
 
   public PathConditionWeight(Val val, ConditionDomain c) {
-    variableToValue.put(val, c);
+    this(
+        PersistentMap.empty(),
+        PersistentMap.<Val, ConditionDomain>empty().plus(val, c),
+        PersistentMap.empty(),
+        PersistentMap.empty(),
+        null);
   }
 
   public enum ConditionDomain {
@@ -68,47 +104,10 @@ public class PathConditionWeight extends Weight {
       throw new RuntimeException("Cannot extend to different types of weight!");
     }
     PathConditionWeight other = (PathConditionWeight) o;
-    Map<Statement, ConditionDomain> newIfs = Maps.newHashMap();
-
-    newIfs.putAll(ifStatements);
-    for (Map.Entry<Statement, ConditionDomain> e : other.ifStatements.entrySet()) {
-      if (newIfs.containsKey(e.getKey()) && e.getValue().equals(ConditionDomain.TOP)) {
-        newIfs.put(e.getKey(), ConditionDomain.TOP);
-      } else {
-        newIfs.put(e.getKey(), e.getValue());
-      }
-    }
-
-    Map<Val, ConditionDomain> newVals = Maps.newHashMap();
-
-    newVals.putAll(variableToValue);
-    for (Map.Entry<Val, ConditionDomain> e : other.variableToValue.entrySet()) {
-      if (newVals.containsKey(e.getKey()) && e.getValue().equals(ConditionDomain.TOP)) {
-        newVals.put(e.getKey(), ConditionDomain.TOP);
-      } else {
-        newVals.put(e.getKey(), e.getValue());
-      }
-    }
-
-    // May become a performance bottleneck
-    Map<Val, ConditionDomain> returnToAssignedVariableMap = Maps.newHashMap();
-    if (!returnVals.isEmpty()) {
-      for (Map.Entry<Val, ConditionDomain> v : newVals.entrySet()) {
-        if (returnVals.contains(v.getKey())) {
-          Statement s = calleeToCallSite.get(v.getKey().m());
-          if (s != null && s.isAssign()) {
-            Val leftOp = s.getLeftOp();
-            returnToAssignedVariableMap.put(leftOp, v.getValue());
-          }
-        }
-      }
-    }
-    newVals.putAll(returnToAssignedVariableMap);
-    Set<Val> newReturnVals = Sets.newHashSet(returnVals);
-    newReturnVals.addAll(other.returnVals);
-    Map<Method, Statement> calleeToCallSiteMapping = Maps.newHashMap(calleeToCallSite);
-    calleeToCallSiteMapping.putAll(other.calleeToCallSite);
-    return new PathConditionWeight(newIfs, newVals, newReturnVals, calleeToCallSiteMapping);
+    // Conditions of the other weight override the ones of this weight
+    PersistentMap<Statement, ConditionDomain> newIfs = ifStatements.plusAll(other.ifStatements);
+    PersistentMap<Val, ConditionDomain> newVals = variableToValue.plusAll(other.variableToValue);
+    return create(other, newIfs, newVals);
   }
 
   @Override
@@ -117,71 +116,111 @@ public class PathConditionWeight extends Weight {
       throw new RuntimeException("Cannot extend to different types of weight!");
     }
     PathConditionWeight other = (PathConditionWeight) o;
-    Map<Statement, ConditionDomain> newIfs = Maps.newHashMap();
-    for (Map.Entry<Statement, ConditionDomain> e : ifStatements.entrySet()) {
-      if (other.ifStatements.containsKey(e.getKey())) {
-        ConditionDomain otherVal = other.ifStatements.get(e.getKey());
-        if (e.getValue().equals(otherVal)) {
-          newIfs.put(e.getKey(), otherVal);
-        } else {
-          newIfs.put(e.getKey(), ConditionDomain.TOP);
-        }
-      } else {
-        newIfs.put(e.getKey(), e.getValue());
-      }
-    }
-    for (Map.Entry<Statement, ConditionDomain> e : other.ifStatements.entrySet()) {
-      if (!ifStatements.containsKey(e.getKey())) {
-        newIfs.put(e.getKey(), e.getValue());
-      }
-    }
+    PersistentMap<Statement, ConditionDomain> newIfs = join(ifStatements, other.ifStatements);
+    PersistentMap<Val, ConditionDomain> newVals = join(variableToValue, other.variableToValue);
+    return create(other, newIfs, newVals);
+  }
 
-    Map<Val, ConditionDomain> newVals = Maps.newHashMap();
-    for (Map.Entry<Val, ConditionDomain> e : variableToValue.entrySet()) {
-      if (other.variableToValue.containsKey(e.getKey())) {
-        ConditionDomain otherVal = other.variableToValue.get(e.getKey());
-        if (e.getValue().equals(otherVal)) {
-          newVals.put(e.getKey(), otherVal);
-        } else {
-          newVals.put(e.getKey(), ConditionDomain.TOP);
-        }
-      } else {
-        newVals.put(e.getKey(), e.getValue());
-      }
+  /**
+   * Joins two condition maps: a key present in both maps with different values becomes TOP. The
+   * smaller map is merged into the larger one.
+   */
+  private static <K> PersistentMap<K, ConditionDomain> join(
+      PersistentMap<K, ConditionDomain> a, PersistentMap<K, ConditionDomain> b) {
+    if (a.size() < b.size()) {
+      PersistentMap<K, ConditionDomain> tmp = a;
+      a = b;
+      b = tmp;
     }
-    for (Map.Entry<Val, ConditionDomain> e : other.variableToValue.entrySet()) {
-      if (!variableToValue.containsKey(e.getKey())) {
-        newVals.put(e.getKey(), e.getValue());
+    PersistentMap<K, ConditionDomain> res = a;
+    for (Map.Entry<K, ConditionDomain> e : b.entrySet()) {
+      ConditionDomain val = a.get(e.getKey());
+      if (val == null) {
+        res = res.plus(e.getKey(), e.getValue());
+      } else if (!val.equals(e.getValue())) {
+        res = res.plus(e.getKey(), ConditionDomain.TOP);
       }
     }
+    return res;
+  }
 
-    Map<Val, ConditionDomain> returnToAssignedVariableMap = Maps.newHashMap();
+  private PathConditionWeight create(
+      PathConditionWeight other,
+      PersistentMap<Statement, ConditionDomain> newIfs,
+      PersistentMap<Val, ConditionDomain> newVals) {
+    // May become a performance bottleneck
     if (!returnVals.isEmpty()) {
-      for (Map.Entry<Val, ConditionDomain> v : newVals.entrySet()) {
-        if (returnVals.contains(v.getKey())) {
-          Statement s = calleeToCallSite.get(v.getKey().m());
+      PersistentMap<Val, ConditionDomain> returnToAssignedVariableMap = PersistentMap.empty();
+      for (Val returnVal : returnVals.keySet()) {
+        ConditionDomain value = newVals.get(returnVal);
+        if (value != null) {
+          Statement s = calleeToCallSite.get(returnVal.m());
           if (s != null && s.isAssign()) {
             Val leftOp = s.getLeftOp();
-            returnToAssignedVariableMap.put(leftOp, v.getValue());
+            returnToAssignedVariableMap = returnToAssignedVariableMap.plus(leftOp, value);
           }
         }
       }
+      newVals = newVals.plusAll(returnToAssignedVariableMap);
+    }
+    PersistentMap<Val, Boolean> newReturnVals = returnVals.plusAll(other.returnVals);
+    PersistentMap<Method, Statement> calleeToCallSiteMapping =
+        calleeToCallSite.plusAll(other.calleeToCallSite);
+    if (rep == null && isComposedOf(newIfs, newVals, newReturnVals, calleeToCallSiteMapping)) {
+      return this;
+    }
+    if (other.rep == null
+        && other.isComposedOf(newIfs, newVals, newReturnVals, calleeToCallSiteMapping)) {
+      return other;
     }
-    newVals.putAll(returnToAssignedVariableMap);
-    Set<Val> newReturnVals = Sets.newHashSet(returnVals);
-    newReturnVals.addAll(other.returnVals);
-    Map<Method, Statement> calleeToCallSiteMapping = Maps.newHashMap(calleeToCallSite);
-    calleeToCallSiteMapping.putAll(other.calleeToCallSite);
-    return new PathConditionWeight(newIfs, newVals, newReturnVals, calleeToCallSiteMapping);
+    PathConditionWeightFactory factory = this.factory == null ? other.factory : this.factory;
+    if (factory == null) {
+      return new PathConditionWeight(
+          newIfs, newVals, newReturnVals, calleeToCallSiteMapping, null);
+    }
+    return factory.get(newIfs, newVals, newReturnVals, calleeToCallSiteMapping);
+  }
+
+  boolean isInternedIn(PathConditionWeightFactory factory) {
+    return rep != null || this.factory == factory;
+  }
+
+  PersistentMap<Val, Boolean> getReturnVals() {
+    return returnVals;
+  }
+
+  PersistentMap<Method, Statement> getCalleeToCallSite() {
+    return calleeToCallSite;
+  }
+
+  PersistentMap<Statement, ConditionDomain> getIfStatements() {
+    return ifStatements;
+  }
+
+  PersistentMap<Val, ConditionDomain> getVariableToValue() {
+    return variableToValue;
+  }
+
+  private boolean isComposedOf(
+      PersistentMap<Statement, ConditionDomain> ifs,
+      PersistentMap<Val, ConditionDomain> vals,
+      PersistentMap<Val, Boolean> returns,
+      PersistentMap<Method, Statement> callSites) {
+    return ifStatements == ifs
+        && variableToValue == vals
+        && returnVals == returns
+        && calleeToCallSite == callSites;
   }
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((ifStatements == null) ? 0 : ifStatements.hashCode());
     result = prime * result + ((variableToValue == null) ? 0 : variableToValue.hashCode());
     result = prime * result + ((rep == null) ? 0 : rep.hashCode());
+    hashCode = result;
     return result;
   }
 
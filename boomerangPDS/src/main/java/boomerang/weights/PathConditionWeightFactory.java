@@ -0,0 +1,108 @@
+package boomerang.weights;
+
+import boomerang.scene.Method;
+import boomerang.scene.Statement;
+import boomerang.scene.Val;
+import boomerang.util.PersistentMap;
+import boomerang.weights.PathConditionWeight.ConditionDomain;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Interns the {@link PathConditionWeight}s of one analysis such that identical conditions share
+ * one instance. Each {@link PathTrackingWeightFunctions} owns a factory, the table is released
+ * together with the analysis. Canonical instances are held weakly, they are dropped when no
+ * automaton references them anymore.
+ */
+public class PathConditionWeightFactory {
+
+  private final Cache<Key, PathConditionWeight> canonicalInstances =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  public PathConditionWeight callSite(Statement callSite, Method callee) {
+    return canonicalize(new PathConditionWeight(callSite, callee));
+  }
+
+  public PathConditionWeight returnVal(Val returnVal) {
+    return canonicalize(new PathConditionWeight(returnVal));
+  }
+
+  public PathConditionWeight ifStatement(Statement ifStatement, boolean condition) {
+    return canonicalize(new PathConditionWeight(ifStatement, condition));
+  }
+
+  public PathConditionWeight value(Val val, ConditionDomain c) {
+    return canonicalize(new PathConditionWeight(val, c));
+  }
+
+  /** Returns the canonical instance of the given weight, interning it if necessary. */
+  public PathConditionWeight canonicalize(PathConditionWeight weight) {
+    if (weight.isInternedIn(this)) {
+      return weight;
+    }
+    return get(
+        weight.getIfStatements(),
+        weight.getVariableToValue(),
+        weight.getReturnVals(),
+        weight.getCalleeToCallSite());
+  }
+
+  PathConditionWeight get(
+      PersistentMap<Statement, ConditionDomain> ifStatements,
+      PersistentMap<Val, ConditionDomain> variableToValue,
+      PersistentMap<Val, Boolean> returnVals,
+      PersistentMap<Method, Statement> calleeToCallSite) {
+    Key key = new Key(ifStatements, variableToValue, returnVals, calleeToCallSite);
+    PathConditionWeight candidate =
+        new PathConditionWeight(ifStatements, variableToValue, returnVals, calleeToCallSite, this);
+    PathConditionWeight existing = canonicalInstances.asMap().putIfAbsent(key, candidate);
+    return existing == null ? candidate : existing;
+  }
+
+  long size() {
+    return canonicalInstances.size();
+  }
+
+  /**
+   * Identifies a weight by all of its maps, {@link PathConditionWeight#equals(Object)} ignores the
+   * return values and call sites. The key must not reference the weight, the weight could not be
+   * collected otherwise.
+   */
+  private static class Key {
+    private final PersistentMap<Statement, ConditionDomain> ifStatements;
+    private final PersistentMap<Val, ConditionDomain> variableToValue;
+    private final PersistentMap<Val, Boolean> returnVals;
+    private final PersistentMap<Method, Statement> calleeToCallSite;
+
+    private Key(
+        PersistentMap<Statement, ConditionDomain> ifStatements,
+        PersistentMap<Val, ConditionDomain> variableToValue,
+        PersistentMap<Val, Boolean> returnVals,
+        PersistentMap<Method, Statement> calleeToCallSite) {
+      this.ifStatements = ifStatements;
+      this.variableToValue = variableToValue;
+      this.returnVals = returnVals;
+      this.calleeToCallSite = calleeToCallSite;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = ifStatements.hashCode();
+      result = 31 * result + variableToValue.hashCode();
+      result = 31 * result + returnVals.hashCode();
+      result = 31 * result + calleeToCallSite.hashCode();
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return ifStatements.equals(other.ifStatements)
+          && variableToValue.equals(other.variableToValue)
+          && returnVals.equals(other.returnVals)
+          && calleeToCallSite.equals(other.calleeToCallSite);
+    }
+  }
+}
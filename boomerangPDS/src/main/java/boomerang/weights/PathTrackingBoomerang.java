@@ -69,7 +69,8 @@ public abstract class PathTrackingBoomerang extends WeightedBoomerang<DataFlowPa
           new PathTrackingWeightFunctions(
               options.trackDataFlowPath(),
               options.trackPathConditions(),
-              options.trackImplicitFlows());
+              options.trackImplicitFlows(),
+              options.maxPathWitnesses());
     }
     return callWeights;
   }
@@ -3,9 +3,13 @@ package boomerang.weights;
 import boomerang.scene.ControlFlowGraph.Edge;
 import boomerang.scene.Val;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import sync.pds.solver.nodes.Node;
 import wpds.impl.Weight;
@@ -14,33 +18,39 @@ public class PathTrackingWeight extends Weight {
 
   private static PathTrackingWeight one;
   /**
-   * This set keeps track of all statements on a shortest path that use an alias from source to
+   * This path keeps track of all statements on a shortest path that use an alias from source to
    * sink.
    */
-  private LinkedHashSet<Node<Edge, Val>> shortestPathWitness = new LinkedHashSet<>();
+  private final Path shortestPathWitness;
   /**
    * This set keeps track of all statement along all paths that use an alias from source to sink.
    */
-  private Set<LinkedHashSet<Node<Edge, Val>>> allPathWitness = Sets.newHashSet();
+  private final PathSet allPathWitness;
 
   private String rep;
 
   private PathTrackingWeight(String rep) {
     this.rep = rep;
+    this.shortestPathWitness = Path.EMPTY;
+    this.allPathWitness = PathSet.EMPTY;
   }
 
-  private PathTrackingWeight(
-      LinkedHashSet<Node<Edge, Val>> allStatement,
-      Set<LinkedHashSet<Node<Edge, Val>>> allPathWitness) {
-    this.shortestPathWitness = allStatement;
+  private PathTrackingWeight(Path shortestPathWitness, PathSet allPathWitness) {
+    this.shortestPathWitness = shortestPathWitness;
     this.allPathWitness = allPathWitness;
   }
 
   public PathTrackingWeight(Node<Edge, Val> relevantStatement) {
-    this.shortestPathWitness.add(relevantStatement);
-    LinkedHashSet<Node<Edge, Val>> firstDataFlowPath = new LinkedHashSet<>();
-    firstDataFlowPath.add(relevantStatement);
-    this.allPathWitness.add(firstDataFlowPath);
+    this(relevantStatement, Integer.MAX_VALUE);
+  }
+
+  /**
+   * A weight for a single relevant statement. At most maxPathWitnesses paths are retained for
+   * {@link #getAllPathWitness()} by the weights extended and combined from this one.
+   */
+  public PathTrackingWeight(Node<Edge, Val> relevantStatement, int maxPathWitnesses) {
+    this.shortestPathWitness = Path.of(relevantStatement);
+    this.allPathWitness = PathSet.of(shortestPathWitness, maxPathWitnesses);
   }
 
   public static PathTrackingWeight one() {
@@ -55,35 +65,9 @@ public class PathTrackingWeight extends Weight {
     if (!(o instanceof PathTrackingWeight))
       throw new RuntimeException("Cannot extend to different types of weight!");
     PathTrackingWeight other = (PathTrackingWeight) o;
-    LinkedHashSet<Node<Edge, Val>> newAllStatements = new LinkedHashSet<>();
-    newAllStatements.addAll(shortestPathWitness);
-    newAllStatements.addAll(other.shortestPathWitness);
-
-    Set<LinkedHashSet<Node<Edge, Val>>> newAllPathStatements = new LinkedHashSet<>();
-    for (LinkedHashSet<Node<Edge, Val>> pathPrefix : allPathWitness) {
-      for (LinkedHashSet<Node<Edge, Val>> pathSuffix : other.allPathWitness) {
-        LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
-        combinedPath.addAll(pathPrefix);
-        combinedPath.addAll(pathSuffix);
-        newAllPathStatements.add(combinedPath);
-      }
-    }
-    if (allPathWitness.isEmpty()) {
-      for (LinkedHashSet<Node<Edge, Val>> pathSuffix : other.allPathWitness) {
-        LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
-        combinedPath.addAll(pathSuffix);
-        newAllPathStatements.add(combinedPath);
-      }
-    }
-    if (other.allPathWitness.isEmpty()) {
-      for (LinkedHashSet<Node<Edge, Val>> pathSuffix : allPathWitness) {
-        LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
-        combinedPath.addAll(pathSuffix);
-        newAllPathStatements.add(combinedPath);
-      }
-    }
-
-    return new PathTrackingWeight(newAllStatements, newAllPathStatements);
+    return new PathTrackingWeight(
+        Path.concat(shortestPathWitness, other.shortestPathWitness),
+        PathSet.product(allPathWitness, other.allPathWitness));
   }
 
   @Override
@@ -91,32 +75,20 @@ public class PathTrackingWeight extends Weight {
     if (!(o instanceof PathTrackingWeight))
       throw new RuntimeException("Cannot extend to different types of weight!");
     PathTrackingWeight other = (PathTrackingWeight) o;
-    Set<LinkedHashSet<Node<Edge, Val>>> newAllPathStatements = new LinkedHashSet<>();
-    for (LinkedHashSet<Node<Edge, Val>> pathPrefix : allPathWitness) {
-      LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
-      combinedPath.addAll(pathPrefix);
-      newAllPathStatements.add(combinedPath);
-    }
-    for (LinkedHashSet<Node<Edge, Val>> pathPrefix : other.allPathWitness) {
-      LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
-      combinedPath.addAll(pathPrefix);
-      newAllPathStatements.add(combinedPath);
-    }
+    PathSet newAllPathStatements = PathSet.union(allPathWitness, other.allPathWitness);
 
-    if (shortestPathWitness.size() > other.shortestPathWitness.size()) {
-      return new PathTrackingWeight(
-          new LinkedHashSet<>(other.shortestPathWitness), newAllPathStatements);
+    if (shortestPathWitness.length() > other.shortestPathWitness.length()) {
+      return new PathTrackingWeight(other.shortestPathWitness, newAllPathStatements);
     }
 
-    return new PathTrackingWeight(
-        new LinkedHashSet<>(this.shortestPathWitness), newAllPathStatements);
+    return new PathTrackingWeight(this.shortestPathWitness, newAllPathStatements);
   }
 
   @Override
   public int hashCode() {
     final int prime = 31;
     int result = 1;
-    result = prime * result + ((shortestPathWitness == null) ? 0 : shortestPathWitness.hashCode());
+    result = prime * result + shortestPathWitness.hashCode();
     result = prime * result + ((rep == null) ? 0 : rep.hashCode());
     return result;
   }
@@ -127,28 +99,316 @@ public class PathTrackingWeight extends Weight {
     if (obj == null) return false;
     if (getClass() != obj.getClass()) return false;
     PathTrackingWeight other = (PathTrackingWeight) obj;
-    if (shortestPathWitness == null) {
-      if (other.shortestPathWitness != null) return false;
-    } else if (!shortestPathWitness.equals(other.shortestPathWitness)) return false;
-    if (allPathWitness == null) {
-      if (other.allPathWitness != null) return false;
-    } else if (!allPathWitness.equals(other.allPathWitness)) return false;
     if (rep == null) {
       if (other.rep != null) return false;
     } else if (!rep.equals(other.rep)) return false;
+    if (!shortestPathWitness.equals(other.shortestPathWitness)) return false;
+    if (!allPathWitness.equals(other.allPathWitness)) return false;
     return true;
   }
 
   @Override
   public String toString() {
-    return "\nAll statements: " + shortestPathWitness;
+    return "\nAll statements: " + shortestPathWitness.statements();
   }
 
   public List<Node<Edge, Val>> getShortestPathWitness() {
-    return Lists.newArrayList(shortestPathWitness);
+    return Lists.newArrayList(shortestPathWitness.statements());
   }
 
+  /**
+   * The statements along all paths. If the weight tracks more paths than the bound it was created
+   * with, only the paths within the bound are returned.
+   */
   public Set<LinkedHashSet<Node<Edge, Val>>> getAllPathWitness() {
-    return Sets.newHashSet(allPathWitness);
+    Set<LinkedHashSet<Node<Edge, Val>>> res = Sets.newHashSet();
+    for (LinkedHashSet<Node<Edge, Val>> path : allPathWitness.witnesses()) {
+      res.add(new LinkedHashSet<>(path));
+    }
+    return res;
+  }
+
+  /**
+   * An immutable path, represented as a binary tree of concatenations that shares its sub paths
+   * with the paths it was built from. As before, a path is the set of its statements: repeated
+   * statements are retained once, in order of first occurrence, and two paths are equal if they
+   * contain the same statements. Concatenation is constant time and maintains a bit mask of the
+   * statement hashes, which only depends on the set of statements and serves as hash code. The
+   * statements are computed on first request, e.g., to compare the lengths of shortest paths.
+   */
+  private static final class Path {
+    private static final Path EMPTY = new Path(null, null, null, 0L);
+
+    private final Node<Edge, Val> statement;
+    private final Path prefix;
+    private final Path suffix;
+    private final long mask;
+    private volatile LinkedHashSet<Node<Edge, Val>> statements;
+
+    private Path(Node<Edge, Val> statement, Path prefix, Path suffix, long mask) {
+      this.statement = statement;
+      this.prefix = prefix;
+      this.suffix = suffix;
+      this.mask = mask;
+    }
+
+    static Path of(Node<Edge, Val> statement) {
+      int h = statement.hashCode();
+      return new Path(statement, null, null, (1L << h) | (1L << (h >>> 6)));
+    }
+
+    static Path concat(Path prefix, Path suffix) {
+      if (prefix == EMPTY) return suffix;
+      if (suffix == EMPTY) return prefix;
+      return new Path(null, prefix, suffix, prefix.mask | suffix.mask);
+    }
+
+    /** The number of distinct statements along the path. */
+    int length() {
+      return statements().size();
+    }
+
+    LinkedHashSet<Node<Edge, Val>> statements() {
+      LinkedHashSet<Node<Edge, Val>> cached = statements;
+      if (cached != null) {
+        return cached;
+      }
+      LinkedHashSet<Node<Edge, Val>> res = new LinkedHashSet<>();
+      Set<Path> visited = Sets.newIdentityHashSet();
+      Deque<Path> worklist = new ArrayDeque<>();
+      worklist.push(this);
+      while (!worklist.isEmpty()) {
+        Path curr = worklist.pop();
+        // A repeated sub path cannot contribute new statements
+        if (!visited.add(curr)) {
+          continue;
+        }
+        if (curr.statements != null) {
+          res.addAll(curr.statements);
+        } else if (curr.statement != null) {
+          res.add(curr.statement);
+        } else if (curr != EMPTY) {
+          worklist.push(curr.suffix);
+          worklist.push(curr.prefix);
+        }
+      }
+      statements = res;
+      return res;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (mask ^ (mask >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Path)) return false;
+      Path other = (Path) obj;
+      return mask == other.mask && statements().equals(other.statements());
+    }
+  }
+
+  /**
+   * An immutable set of paths, represented as a DAG of unions and pairwise concatenations
+   * (products) of path sets. Two path sets are equal if they are built by the same operations from
+   * equal paths, which is decided without materializing their paths. Sets that contain equal paths,
+   * but were built differently, are not equal. The paths are materialized on first request, only
+   * the result for the requested set is retained.
+   *
+   * <p>Each set knows an upper bound of its number of paths, counting equal paths repeatedly. A set
+   * whose count reaches the bound on the number of paths it retains is full: the union of a full
+   * set with further paths returns the full set. This bounds the growth of the sets of a data flow
+   * along a loop, whose unions would otherwise create structurally different, but equal sets
+   * forever.
+   */
+  private static final class PathSet {
+    private static final PathSet EMPTY =
+        new PathSet(null, null, null, false, Integer.MAX_VALUE, 0, 0);
+
+    private final Path path;
+    private final PathSet left;
+    private final PathSet right;
+    private final boolean product;
+    private final int bound;
+    private final int hash;
+    private final long count;
+    private volatile Set<LinkedHashSet<Node<Edge, Val>>> witnesses;
+
+    private PathSet(
+        Path path,
+        PathSet left,
+        PathSet right,
+        boolean product,
+        int bound,
+        int hash,
+        long count) {
+      this.path = path;
+      this.left = left;
+      this.right = right;
+      this.product = product;
+      this.bound = bound;
+      this.hash = hash;
+      this.count = Math.min(count, bound);
+    }
+
+    static PathSet of(Path path, int bound) {
+      return new PathSet(path, null, null, false, bound, path.hashCode(), 1);
+    }
+
+    static PathSet product(PathSet prefixes, PathSet suffixes) {
+      if (prefixes == EMPTY) return suffixes;
+      if (suffixes == EMPTY) return prefixes;
+      int bound = Math.min(prefixes.bound, suffixes.bound);
+      // The product of two paths is a single path
+      if (prefixes.path != null && suffixes.path != null) {
+        return of(Path.concat(prefixes.path, suffixes.path), bound);
+      }
+      return new PathSet(
+          null,
+          prefixes,
+          suffixes,
+          true,
+          bound,
+          31 * (31 * prefixes.hash + suffixes.hash) + 1,
+          prefixes.count * suffixes.count);
+    }
+
+    static PathSet union(PathSet a, PathSet b) {
+      if (a == EMPTY) return b;
+      if (b == EMPTY) return a;
+      // Adding paths that are already part of the set does not create a new set
+      if (a.equals(b) || a.isUnionOf(b)) return a;
+      if (b.isUnionOf(a)) return b;
+      int bound = Math.min(a.bound, b.bound);
+      if (a.count >= bound) return a;
+      // Order the operands, such that the union is independent of the order it was built in
+      if (a.hash > b.hash) {
+        PathSet tmp = a;
+        a = b;
+        b = tmp;
+      }
+      return new PathSet(null, a, b, false, bound, 31 * (31 * a.hash + b.hash), a.count + b.count);
+    }
+
+    private boolean isUnionOf(PathSet operand) {
+      return path == null && !product && (left.equals(operand) || right.equals(operand));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof PathSet)) return false;
+      Map<PathSet, PathSet> matched = Maps.newIdentityHashMap();
+      Deque<PathSet> worklist = new ArrayDeque<>();
+      Deque<PathSet> others = new ArrayDeque<>();
+      worklist.push(this);
+      others.push((PathSet) obj);
+      while (!worklist.isEmpty()) {
+        PathSet a = worklist.pop();
+        PathSet b = others.pop();
+        if (a == b || matched.get(a) == b) {
+          continue;
+        }
+        if (a.hash != b.hash
+            || a.product != b.product
+            || a.bound != b.bound
+            || a.count != b.count) {
+          return false;
+        }
+        if (a.path != null || b.path != null) {
+          if (a.path == null || b.path == null || !a.path.equals(b.path)) {
+            return false;
+          }
+        } else {
+          worklist.push(a.left);
+          others.push(b.left);
+          worklist.push(a.right);
+          others.push(b.right);
+        }
+        matched.put(a, b);
+      }
+      return true;
+    }
+
+    Set<LinkedHashSet<Node<Edge, Val>>> witnesses() {
+      Set<LinkedHashSet<Node<Edge, Val>>> cached = witnesses;
+      if (cached == null) {
+        cached = materialize();
+        witnesses = cached;
+      }
+      return cached;
+    }
+
+    /** Computes the paths bottom-up without recursion, as the DAG may be as deep as a path. */
+    private Set<LinkedHashSet<Node<Edge, Val>>> materialize() {
+      Map<PathSet, Set<LinkedHashSet<Node<Edge, Val>>>> done = Maps.newIdentityHashMap();
+      Deque<PathSet> worklist = new ArrayDeque<>();
+      worklist.push(this);
+      while (!worklist.isEmpty()) {
+        PathSet curr = worklist.peek();
+        if (done.containsKey(curr)) {
+          worklist.pop();
+          continue;
+        }
+        Set<LinkedHashSet<Node<Edge, Val>>> res;
+        if (curr.witnesses != null) {
+          res = curr.witnesses;
+        } else if (curr == EMPTY) {
+          res = new LinkedHashSet<>();
+        } else if (curr.path != null) {
+          res = new LinkedHashSet<>();
+          res.add(curr.path.statements());
+        } else if (!done.containsKey(curr.left) || !done.containsKey(curr.right)) {
+          if (!done.containsKey(curr.left)) worklist.push(curr.left);
+          if (!done.containsKey(curr.right)) worklist.push(curr.right);
+          continue;
+        } else if (curr.product) {
+          res = concatAll(done.get(curr.left), done.get(curr.right), curr.bound);
+        } else {
+          res = unionAll(done.get(curr.left), done.get(curr.right), curr.bound);
+        }
+        worklist.pop();
+        done.put(curr, res);
+      }
+      return done.get(this);
+    }
+
+    private static Set<LinkedHashSet<Node<Edge, Val>>> concatAll(
+        Set<LinkedHashSet<Node<Edge, Val>>> prefixes,
+        Set<LinkedHashSet<Node<Edge, Val>>> suffixes,
+        int bound) {
+      Set<LinkedHashSet<Node<Edge, Val>>> res = new LinkedHashSet<>();
+      for (LinkedHashSet<Node<Edge, Val>> pathPrefix : prefixes) {
+        for (LinkedHashSet<Node<Edge, Val>> pathSuffix : suffixes) {
+          LinkedHashSet<Node<Edge, Val>> combinedPath = Sets.newLinkedHashSet();
+          combinedPath.addAll(pathPrefix);
+          combinedPath.addAll(pathSuffix);
+          if (!res.contains(combinedPath) && res.size() >= bound) {
+            return res;
+          }
+          res.add(combinedPath);
+        }
+      }
+      return res;
+    }
+
+    private static Set<LinkedHashSet<Node<Edge, Val>>> unionAll(
+        Set<LinkedHashSet<Node<Edge, Val>>> a, Set<LinkedHashSet<Node<Edge, Val>>> b, int bound) {
+      Set<LinkedHashSet<Node<Edge, Val>>> res = new LinkedHashSet<>(a);
+      for (LinkedHashSet<Node<Edge, Val>> path : b) {
+        if (!res.contains(path) && res.size() >= bound) {
+          return res;
+        }
+        res.add(path);
+      }
+      return res;
+    }
   }
 }
@@ -12,12 +12,23 @@ public class PathTrackingWeightFunctions
   private boolean trackDataFlowPath;
   private boolean trackPathConditions;
   private boolean implicitBooleanCondition;
+  private int maxPathWitnesses;
+  private final PathConditionWeightFactory conditions = new PathConditionWeightFactory();
 
   public PathTrackingWeightFunctions(
       boolean trackDataFlowPath, boolean trackPathConditions, boolean implicitBooleanCondition) {
+    this(trackDataFlowPath, trackPathConditions, implicitBooleanCondition, Integer.MAX_VALUE);
+  }
+
+  public PathTrackingWeightFunctions(
+      boolean trackDataFlowPath,
+      boolean trackPathConditions,
+      boolean implicitBooleanCondition,
+      int maxPathWitnesses) {
     this.trackDataFlowPath = trackDataFlowPath;
     this.trackPathConditions = trackPathConditions;
     this.implicitBooleanCondition = implicitBooleanCondition;
+    this.maxPathWitnesses = maxPathWitnesses;
   }
 
   @Override
@@ -26,12 +37,15 @@ public class PathTrackingWeightFunctions
       if (callSite.getStart().uses(curr.fact())) {
         if (implicitBooleanCondition && callSite.getTarget().isAssign()) {
           return new DataFlowPathWeight(
-              new Node<>(callSite, curr.fact()), callSite.getStart(), succ.stmt().getMethod());
+              new PathTrackingWeight(new Node<>(callSite, curr.fact()), maxPathWitnesses),
+              conditions.callSite(callSite.getStart(), succ.stmt().getMethod()));
         }
-        return new DataFlowPathWeight(new Node<>(callSite, curr.fact()));
+        return new DataFlowPathWeight(new Node<>(callSite, curr.fact()), maxPathWitnesses);
       }
       if (implicitBooleanCondition && callSite.getStart().isAssign()) {
-        return new DataFlowPathWeight(callSite.getStart(), succ.stmt().getMethod());
+        return new DataFlowPathWeight(
+            PathTrackingWeight.one(),
+            conditions.callSite(callSite.getStart(), succ.stmt().getMethod()));
       }
     }
     return DataFlowPathWeight.one();
@@ -41,35 +55,37 @@ public class PathTrackingWeightFunctions
   public DataFlowPathWeight normal(Node<Edge, Val> curr, Node<Edge, Val> succ) {
     if (trackDataFlowPath
         && curr.stmt().getMethod().getControlFlowGraph().getStartPoints().contains(curr.stmt())) {
-      return new DataFlowPathWeight(curr);
+      return new DataFlowPathWeight(curr, maxPathWitnesses);
     }
     if (trackDataFlowPath && !curr.fact().equals(succ.fact())) {
-      return new DataFlowPathWeight(succ);
+      return new DataFlowPathWeight(succ, maxPathWitnesses);
     }
     if (trackDataFlowPath
         && succ.stmt().getTarget().isReturnStmt()
         && succ.stmt().getTarget().getReturnOp().equals(succ.fact())) {
-      return new DataFlowPathWeight(succ);
+      return new DataFlowPathWeight(succ, maxPathWitnesses);
     }
     if (implicitBooleanCondition
         && curr.stmt().getTarget().isAssign()
         && curr.stmt().getTarget().getLeftOp().getType().isBooleanType()) {
       return new DataFlowPathWeight(
-          curr.stmt().getTarget().getLeftOp(),
-          curr.stmt().getTarget().getRightOp().toString().equals("0")
-              ? ConditionDomain.FALSE
-              : ConditionDomain.TRUE);
+          PathTrackingWeight.one(),
+          conditions.value(
+              curr.stmt().getTarget().getLeftOp(),
+              curr.stmt().getTarget().getRightOp().toString().equals("0")
+                  ? ConditionDomain.FALSE
+                  : ConditionDomain.TRUE));
     }
 
     if (implicitBooleanCondition && succ.stmt().getTarget().isReturnStmt()) {
-      return new DataFlowPathWeight(succ.stmt().getTarget().getReturnOp());
+      return new DataFlowPathWeight(
+          PathTrackingWeight.one(), conditions.returnVal(succ.stmt().getTarget().getReturnOp()));
     }
 
     if (trackPathConditions && curr.stmt().getTarget().isIfStmt()) {
-      if (curr.stmt().getTarget().getIfStmt().getTarget().equals(succ.stmt())) {
-        return new DataFlowPathWeight(curr.stmt().getTarget(), true);
-      }
-      return new DataFlowPathWeight(curr.stmt().getTarget(), false);
+      boolean taken = curr.stmt().getTarget().getIfStmt().getTarget().equals(succ.stmt());
+      return new DataFlowPathWeight(
+          PathTrackingWeight.one(), conditions.ifStatement(curr.stmt().getTarget(), taken));
     }
     return DataFlowPathWeight.one();
   }
@@ -0,0 +1,121 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.Test;
+import wpds.impl.Weight.NoWeight;
+
+public class ParallelQueryExecutorTest {
+
+  @Test
+  public void parallelResultsEqualSequentialResults() {
+    List<TestQuery> queries = Lists.newArrayList();
+    for (int i = 0; i < 50; i++) {
+      queries.add(new TestQuery(i));
+    }
+    // Later queries finish first, the results must still be reported in query order
+    BiFunction<WeightedBoomerang<NoWeight>, TestQuery, Integer> solve =
+        (solver, query) -> {
+          sleep(50 - query.id);
+          return query.id * query.id;
+        };
+    List<Integer> sequential = Lists.newArrayList();
+    new ParallelQueryExecutor<NoWeight>(() -> null, 1)
+        .solve(queries, solve, (query, res) -> sequential.add(res));
+    List<Integer> parallel = Lists.newArrayList();
+    List<TestQuery> order = Lists.newArrayList();
+    new ParallelQueryExecutor<NoWeight>(() -> null, 8)
+        .solve(
+            queries,
+            solve,
+            (query, res) -> {
+              order.add(query);
+              parallel.add(res);
+            });
+    assertEquals(sequential, parallel);
+    assertEquals(queries, order);
+  }
+
+  @Test
+  public void failurePropagation() {
+    List<TestQuery> queries = Lists.newArrayList(new TestQuery(0), new TestQuery(1));
+    IllegalStateException failure = new IllegalStateException("failing query");
+    List<Integer> reported = Lists.newArrayList();
+    try {
+      new ParallelQueryExecutor<NoWeight>(() -> null, 2)
+          .solve(
+              queries,
+              (solver, query) -> {
+                if (query.id == 1) {
+                  throw failure;
+                }
+                return query.id;
+              },
+              (query, res) -> reported.add(res));
+      fail("The failure of the second query must be propagated");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().contains(queries.get(1).toString()));
+      // The pool may rethrow a copy of the failure that refers to the original as its cause
+      Throwable cause = e.getCause();
+      while (cause != failure && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      assertSame(failure, cause);
+    }
+    assertEquals(Lists.newArrayList(0), reported);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parallelismMustBePositive() {
+    new ParallelQueryExecutor<NoWeight>(() -> null, 0);
+  }
+
+  private static void sleep(int millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class TestQuery extends Query {
+    private final int id;
+
+    private TestQuery(int id) {
+      super(null, null);
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof TestQuery && ((TestQuery) obj).id == id;
+    }
+
+    @Override
+    public String toString() {
+      return "TestQuery" + id;
+    }
+  }
+}
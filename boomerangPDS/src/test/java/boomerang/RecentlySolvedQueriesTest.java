@@ -0,0 +1,93 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.Test;
+
+public class RecentlySolvedQueriesTest {
+
+  private static final Predicate<ForwardQuery> ALL_EVICTABLE = query -> true;
+
+  @Test
+  public void leastRecentlySolvedFirst() {
+    RecentlySolvedQueries queries = new RecentlySolvedQueries(2);
+    assertEquals(Collections.emptyList(), queries.solving(query(1), ALL_EVICTABLE));
+    assertEquals(Collections.emptyList(), queries.solving(query(2), ALL_EVICTABLE));
+    // Solving query 1 again makes query 2 the least recently solved one
+    assertEquals(Collections.emptyList(), queries.solving(query(1), ALL_EVICTABLE));
+    assertEquals(Lists.newArrayList(query(2)), queries.solving(query(3), ALL_EVICTABLE));
+    assertEquals(Lists.newArrayList(query(1)), queries.solving(query(4), ALL_EVICTABLE));
+    assertEquals(2, queries.size());
+  }
+
+  @Test
+  public void dependentRootsAreRetainedAndNotCounted() {
+    RecentlySolvedQueries queries = new RecentlySolvedQueries(2);
+    Set<ForwardQuery> dependent = Sets.newHashSet();
+    Predicate<ForwardQuery> evictable = query -> !dependent.contains(query);
+    queries.solving(query(1), evictable);
+    queries.solving(query(2), evictable);
+    // Another query depends on query 1, it neither is evicted nor counts towards the bound
+    dependent.add(query(1));
+    assertEquals(Collections.emptyList(), queries.solving(query(3), evictable));
+    assertEquals(2, queries.size());
+    assertEquals(Lists.newArrayList(query(2)), queries.solving(query(4), evictable));
+    // Once dropped from the queue, a root is retained for the rest of the session
+    dependent.clear();
+    assertEquals(Lists.newArrayList(query(3)), queries.solving(query(5), evictable));
+    assertEquals(Lists.newArrayList(query(4)), queries.solving(query(6), evictable));
+  }
+
+  @Test
+  public void currentQueryIsNeverEvicted() {
+    RecentlySolvedQueries queries = new RecentlySolvedQueries(0);
+    assertEquals(Collections.emptyList(), queries.solving(query(1), ALL_EVICTABLE));
+    assertEquals(Lists.newArrayList(query(1)), queries.solving(query(2), ALL_EVICTABLE));
+    queries.remove(query(2));
+    assertEquals(Collections.emptyList(), queries.solving(query(3), ALL_EVICTABLE));
+  }
+
+  private static ForwardQuery query(int id) {
+    return new TestQuery(id);
+  }
+
+  private static class TestQuery extends ForwardQuery {
+    private final int id;
+
+    private TestQuery(int id) {
+      super(null, null);
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof TestQuery && ((TestQuery) obj).id == id;
+    }
+
+    @Override
+    public String toString() {
+      return "TestQuery" + id;
+    }
+  }
+}
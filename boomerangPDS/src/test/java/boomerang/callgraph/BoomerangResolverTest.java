@@ -0,0 +1,223 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.callgraph.BoomerangResolver.ResolutionBudget;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Method;
+import boomerang.scene.SootDataFlowScope;
+import boomerang.scene.Statement;
+import boomerang.scene.jimple.BoomerangPretransformer;
+import boomerang.scene.jimple.JimpleMethod;
+import boomerang.scene.jimple.SootCallGraph;
+import boomerang.stats.IBoomerangStats;
+import boomerang.stats.SimpleBoomerangStats;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+import wpds.impl.Weight.NoWeight;
+
+public class BoomerangResolverTest {
+
+  private SootCallGraph callGraph;
+  // The calls of create() in Target.main, in order
+  private List<Statement> callSites;
+  private Method firstCreate;
+  private Method secondCreate;
+  private ResolverOptions options;
+  private CountingBoomerang solver;
+  private BoomerangResolver resolver;
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_whole_program(true);
+    Options.v().setPhaseOption("cg.cha", "on");
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_no_bodies_for_excluded(true);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().setPhaseOption("jb", "use-original-names:true");
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    List<SootMethod> eps = Lists.newArrayList();
+    for (SootClass c : Scene.v().getClasses()) {
+      if (c.getName().startsWith(Target.class.getName())) {
+        c.setApplicationClass();
+        eps.addAll(c.getMethods());
+      }
+    }
+    Scene.v().setEntryPoints(eps);
+    PackManager.v().runPacks();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply();
+    callGraph = new SootCallGraph();
+    Method main =
+        JimpleMethod.of(Scene.v().getSootClass(Target.class.getName()).getMethodByName("main"));
+    callSites =
+        main.getStatements().stream()
+            .filter(s -> s.containsInvokeExpr())
+            .filter(s -> s.getInvokeExpr().getMethod().getName().equals("create"))
+            .collect(Collectors.toList());
+    assertEquals(3, callSites.size());
+    firstCreate = create(Target.FirstFactory.class);
+    secondCreate = create(Target.SecondFactory.class);
+    options = new ResolverOptions();
+    solver = new CountingBoomerang(callGraph, options);
+    resolver = new BoomerangResolver(solver, callGraph);
+  }
+
+  @Test
+  public void repeatedResolutionIsAnsweredByTheMemo() {
+    Statement callSite = callSites.get(0);
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSite));
+    assertEquals(1, solver.solved.size());
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSite));
+    assertEquals(1, solver.solved.size());
+  }
+
+  @Test
+  public void emptyResolutionDoesNotHideCalleesFoundLater() {
+    Statement callSite = callSites.get(0);
+    // The receiver query is issued but finds no allocation site yet
+    solver.skip = true;
+    assertTrue(resolve(callSite).isEmpty());
+    assertEquals(1, solver.solved.size());
+    // The receiver query is solved later on, e.g., on behalf of another query
+    solver.skip = false;
+    solver.solve(solver.solved.get(0));
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSite));
+    assertEquals(2, solver.solved.size());
+  }
+
+  @Test
+  public void memoIsKeptAndBudgetIsResetAcrossRootQueries() {
+    options.maxReceiverQueries = 1;
+    resolver.startRootQuery();
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSites.get(0)));
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSites.get(0)));
+    // The budget of the root query is spent, the call site falls back to the precomputed graph
+    assertEquals(Sets.newHashSet(firstCreate, secondCreate), resolve(callSites.get(1)));
+    assertEquals(Lists.newArrayList(ResolutionBudget.RECEIVER_QUERIES), options.stats.degraded);
+    assertEquals(1, solver.solved.size());
+
+    resolver.startRootQuery();
+    assertEquals(Sets.newHashSet(secondCreate), resolve(callSites.get(2)));
+    assertEquals(2, solver.solved.size());
+    // Memoized resolutions of earlier root queries are not counted towards the budget
+    assertEquals(Sets.newHashSet(firstCreate), resolve(callSites.get(0)));
+    assertEquals(2, solver.solved.size());
+    assertEquals(1, options.stats.degraded.size());
+  }
+
+  private Set<Method> resolve(Statement callSite) {
+    return Sets.newHashSet(resolver.resolveInstanceInvoke(callSite));
+  }
+
+  private static Method create(Class<?> factory) {
+    return JimpleMethod.of(Scene.v().getSootClass(factory.getName()).getMethodByName("create"));
+  }
+
+  /** Records the receiver queries and optionally leaves them unsolved. */
+  private static class CountingBoomerang extends Boomerang {
+    private final List<BackwardQuery> solved = Lists.newArrayList();
+    private boolean skip;
+
+    private CountingBoomerang(SootCallGraph callGraph, ResolverOptions options) {
+      super(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    }
+
+    @Override
+    public BackwardBoomerangResults<NoWeight> solve(BackwardQuery query, boolean timing) {
+      solved.add(query);
+      return skip ? null : super.solve(query, timing);
+    }
+  }
+
+  private static class ResolverOptions extends DefaultBoomerangOptions {
+    private final RecordingStats stats = new RecordingStats();
+    private int maxReceiverQueries = -1;
+
+    @Override
+    public boolean allowMultipleQueries() {
+      return true;
+    }
+
+    @Override
+    public IBoomerangStats statsFactory() {
+      return stats;
+    }
+
+    @Override
+    public int maxReceiverQueries() {
+      return maxReceiverQueries;
+    }
+  }
+
+  private static class RecordingStats extends SimpleBoomerangStats<NoWeight> {
+    private final List<ResolutionBudget> degraded = Lists.newArrayList();
+
+    @Override
+    public void degradedCallSite(Statement callSite, ResolutionBudget budget) {
+      super.degradedCallSite(callSite, budget);
+      degraded.add(budget);
+    }
+  }
+
+  public static class Target {
+    public static void main(String... args) {
+      Factory first = new FirstFactory();
+      first.create();
+      Factory second = new SecondFactory();
+      second.create();
+      second.create();
+    }
+
+    public interface Factory {
+      Object create();
+    }
+
+    public static class FirstFactory implements Factory {
+      @Override
+      public Object create() {
+        return new Object();
+      }
+    }
+
+    public static class SecondFactory implements Factory {
+      @Override
+      public Object create() {
+        return new Object();
+      }
+    }
+  }
+}
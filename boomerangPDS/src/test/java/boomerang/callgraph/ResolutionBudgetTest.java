@@ -0,0 +1,218 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.callgraph.BoomerangResolver.ResolutionBudget;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Method;
+import boomerang.scene.SootDataFlowScope;
+import boomerang.scene.Statement;
+import boomerang.scene.jimple.BoomerangPretransformer;
+import boomerang.scene.jimple.JimpleMethod;
+import boomerang.scene.jimple.SootCallGraph;
+import boomerang.stats.IBoomerangStats;
+import boomerang.stats.SimpleBoomerangStats;
+import com.google.common.collect.Lists;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+import wpds.impl.Weight.NoWeight;
+
+public class ResolutionBudgetTest {
+
+  private SootCallGraph callGraph;
+  private List<BackwardQuery> queries;
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_whole_program(true);
+    Options.v().setPhaseOption("cg.cha", "on");
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_no_bodies_for_excluded(true);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().setPhaseOption("jb", "use-original-names:true");
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    List<SootMethod> eps = Lists.newArrayList();
+    for (SootClass c : Scene.v().getClasses()) {
+      if (c.getName().startsWith(Target.class.getName())) {
+        c.setApplicationClass();
+        eps.addAll(c.getMethods());
+      }
+    }
+    Scene.v().setEntryPoints(eps);
+    PackManager.v().runPacks();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply();
+    callGraph = new SootCallGraph();
+    Method main =
+        JimpleMethod.of(Scene.v().getSootClass(Target.class.getName()).getMethodByName("main"));
+    List<Statement> queryStatements =
+        main.getStatements().stream()
+            .filter(s -> s.containsInvokeExpr())
+            .filter(s -> s.getInvokeExpr().getMethod().getName().equals("queryFor"))
+            .collect(Collectors.toList());
+    queries = Lists.newArrayList();
+    for (Statement s : queryStatements) {
+      Statement pred = main.getControlFlowGraph().getPredsOf(s).iterator().next();
+      queries.add(BackwardQuery.make(new Edge(pred, s), s.getInvokeExpr().getArg(0)));
+    }
+    assertEquals(2, queries.size());
+  }
+
+  @Test
+  public void receiverQueries() {
+    BudgetOptions options = new BudgetOptions();
+    options.maxReceiverQueries = 0;
+    Boomerang solver = new Boomerang(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    // Degraded call sites take their callees from the precomputed call graph
+    assertFalse(solver.solve(queries.get(0)).getAllocationSites().isEmpty());
+    assertEquals(Lists.newArrayList(ResolutionBudget.RECEIVER_QUERIES), options.stats.degraded);
+  }
+
+  @Test
+  public void receiverQueriesAreCountedPerRootQuery() {
+    BudgetOptions options = new BudgetOptions();
+    options.maxReceiverQueries = 1;
+    Boomerang solver = new Boomerang(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    for (BackwardQuery query : queries) {
+      assertFalse(solver.solve(query).getAllocationSites().isEmpty());
+    }
+    assertTrue(options.stats.degraded.isEmpty());
+  }
+
+  @Test
+  public void time() {
+    BudgetOptions options = new BudgetOptions();
+    options.resolutionTimeBudgetMS = 0;
+    Boomerang solver = new Boomerang(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    assertFalse(solver.solve(queries.get(0)).getAllocationSites().isEmpty());
+    assertEquals(Lists.newArrayList(ResolutionBudget.TIME), options.stats.degraded);
+  }
+
+  @Test
+  public void timeIsMeasuredPerRootQuery() {
+    BudgetOptions options = new BudgetOptions();
+    options.resolutionTimeBudgetMS = 60000;
+    Boomerang solver = new Boomerang(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    for (BackwardQuery query : queries) {
+      assertFalse(solver.solve(query).getAllocationSites().isEmpty());
+    }
+    assertTrue(options.stats.degraded.isEmpty());
+  }
+
+  @Test
+  public void callees() {
+    BudgetOptions options = new BudgetOptions();
+    options.maxCalleesPerCallSite = 0;
+    Boomerang solver = new Boomerang(callGraph, SootDataFlowScope.make(Scene.v()), options);
+    assertFalse(solver.solve(queries.get(0)).getAllocationSites().isEmpty());
+    assertEquals(Lists.newArrayList(ResolutionBudget.CALLEES), options.stats.degraded);
+  }
+
+  private static class BudgetOptions extends DefaultBoomerangOptions {
+    private final RecordingStats stats = new RecordingStats();
+    private int maxReceiverQueries = -1;
+    private int resolutionTimeBudgetMS = -1;
+    private int maxCalleesPerCallSite = -1;
+
+    @Override
+    public boolean onTheFlyCallGraph() {
+      return true;
+    }
+
+    @Override
+    public boolean allowMultipleQueries() {
+      return true;
+    }
+
+    @Override
+    public IBoomerangStats statsFactory() {
+      return stats;
+    }
+
+    @Override
+    public int maxReceiverQueries() {
+      return maxReceiverQueries;
+    }
+
+    @Override
+    public int resolutionTimeBudgetMS() {
+      return resolutionTimeBudgetMS;
+    }
+
+    @Override
+    public int maxCalleesPerCallSite() {
+      return maxCalleesPerCallSite;
+    }
+  }
+
+  private static class RecordingStats extends SimpleBoomerangStats<NoWeight> {
+    private final List<ResolutionBudget> degraded = Lists.newArrayList();
+
+    @Override
+    public void degradedCallSite(Statement callSite, ResolutionBudget budget) {
+      super.degradedCallSite(callSite, budget);
+      degraded.add(budget);
+    }
+  }
+
+  public static class Target {
+    public static void main(String... args) {
+      Factory a = new FirstFactory();
+      Object first = a.create();
+      queryFor(first);
+      Factory b = new SecondFactory();
+      Object second = b.create();
+      queryFor(second);
+    }
+
+    private static void queryFor(Object o) {}
+
+    public interface Factory {
+      Object create();
+    }
+
+    public static class FirstFactory implements Factory {
+      @Override
+      public Object create() {
+        return new Object();
+      }
+    }
+
+    public static class SecondFactory implements Factory {
+      @Override
+      public Object create() {
+        return new Object();
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.scene;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.scene.jimple.BoomerangPretransformer;
+import boomerang.scene.jimple.JimpleMethod;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+
+public class CallGraphTest {
+
+  private static final int READERS = 4;
+
+  private List<SootMethod> methods;
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    SootClass target = Scene.v().forceResolve(Target.class.getName(), SootClass.BODIES);
+    methods = Lists.newArrayList();
+    for (SootMethod m : target.getMethods()) {
+      if (m.getName().startsWith("copy")) {
+        m.retrieveActiveBody();
+        methods.add(m);
+      }
+    }
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply(methods);
+  }
+
+  @Test
+  public void staticFieldIndexIsReadConcurrentlyToGrowingCallGraph() throws InterruptedException {
+    CallGraph callGraph = new CallGraph();
+    Multimap<Field, Statement> stores = callGraph.getFieldStoreStatements();
+    Multimap<Field, Statement> loads = callGraph.getFieldLoadStatements();
+    AtomicBoolean done = new AtomicBoolean();
+    ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    List<Thread> readers = Lists.newArrayList();
+    for (int i = 0; i < READERS; i++) {
+      Thread reader =
+          new Thread(
+              () -> {
+                try {
+                  while (!done.get()) {
+                    int previous = stores.size();
+                    for (Field f : stores.keySet()) {
+                      for (Statement s : stores.get(f)) {
+                        assertTrue(s.isStaticFieldStore());
+                      }
+                    }
+                    for (Statement s : loads.values()) {
+                      assertTrue(s.isStaticFieldLoad());
+                    }
+                    // The index only grows
+                    assertTrue(stores.size() >= previous);
+                  }
+                } catch (Throwable e) {
+                  failures.add(e);
+                }
+              });
+      readers.add(reader);
+      reader.start();
+    }
+    for (SootMethod m : methods) {
+      callGraph.addEntryPoint(JimpleMethod.of(m));
+    }
+    done.set(true);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    assertTrue(failures.toString(), failures.isEmpty());
+    assertEquals(methods.size(), stores.size());
+    assertEquals(methods.size(), loads.size());
+  }
+
+  public static class Target {
+    static int a;
+    static int b;
+    static int c;
+    static int d;
+
+    static void copyAB() {
+      b = a;
+    }
+
+    static void copyBC() {
+      c = b;
+    }
+
+    static void copyCD() {
+      d = c;
+    }
+
+    static void copyDA() {
+      a = d;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.scene.jimple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.scene.ControlFlowGraph;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Statement;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IdentityStmt;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.options.Options;
+import soot.toolkits.graph.BriefUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+
+public class JimpleControlFlowGraphTest {
+
+  private SootClass target;
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().setPhaseOption("jb", "use-original-names:true");
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    target = Scene.v().forceResolve(Target.class.getName(), SootClass.BODIES);
+    List<SootMethod> methods = Lists.newArrayList();
+    for (SootMethod m : target.getMethods()) {
+      if (m.isConcrete()) {
+        m.retrieveActiveBody();
+        methods.add(m);
+      }
+    }
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply(methods);
+  }
+
+  @Test
+  public void branches() {
+    assertSameAsUnitGraph(target.getMethodByName("branch"));
+  }
+
+  @Test
+  public void loop() {
+    assertSameAsUnitGraph(target.getMethodByName("loop"));
+  }
+
+  @Test
+  public void exceptionalEdgesAreNotModelled() {
+    SootMethod sootMethod = target.getMethodByName("tryCatch");
+    assertSameAsUnitGraph(sootMethod);
+    // As the brief unit graph, the graph has no exceptional edges. The handler is not reachable
+    // from the statements of the try block and is not a start point.
+    ControlFlowGraph cfg = JimpleMethod.of(sootMethod).getControlFlowGraph();
+    boolean checkedHandler = false;
+    for (Statement s : cfg.getStatements()) {
+      Stmt delegate = ((JimpleStatement) s).getDelegate();
+      if (delegate instanceof IdentityStmt
+          && delegate.toString().contains("@caughtexception")) {
+        assertTrue(cfg.getPredsOf(s).isEmpty());
+        assertFalse(cfg.getStartPoints().contains(s));
+        checkedHandler = true;
+      }
+    }
+    assertTrue(checkedHandler);
+  }
+
+  @Test
+  public void methodWithoutStatements() {
+    SootMethod empty =
+        new SootMethod(
+            "empty", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+    target.addMethod(empty);
+    empty.setActiveBody(Jimple.v().newBody(empty));
+    ControlFlowGraph cfg = JimpleMethod.of(empty).getControlFlowGraph();
+    assertTrue(cfg.getStatements().isEmpty());
+    assertTrue(cfg.getStartPoints().isEmpty());
+    assertTrue(cfg.getEndPoints().isEmpty());
+    // Statements of other methods have no neighbors in the graph
+    Statement foreign =
+        JimpleMethod.of(target.getMethodByName("branch")).getStatements().iterator().next();
+    assertTrue(cfg.getSuccsOf(foreign).isEmpty());
+    assertTrue(cfg.getPredsOf(foreign).isEmpty());
+  }
+
+  /**
+   * Compares successors, predecessors, start and end points against a {@link BriefUnitGraph}, the
+   * graph the adjacency arrays are built from.
+   */
+  private static void assertSameAsUnitGraph(SootMethod sootMethod) {
+    JimpleMethod method = JimpleMethod.of(sootMethod);
+    ControlFlowGraph cfg = method.getControlFlowGraph();
+    UnitGraph graph = new BriefUnitGraph(sootMethod.getActiveBody());
+    List<Statement> statements = Lists.newArrayList();
+    for (Unit u : sootMethod.getActiveBody().getUnits()) {
+      statements.add(JimpleStatement.create((Stmt) u, method));
+    }
+    assertEquals(statements, cfg.getStatements());
+    for (Unit u : sootMethod.getActiveBody().getUnits()) {
+      Statement s = JimpleStatement.create((Stmt) u, method);
+      assertEquals(wrap(graph.getSuccsOf(u), method), Sets.newHashSet(cfg.getSuccsOf(s)));
+      assertEquals(wrap(graph.getPredsOf(u), method), Sets.newHashSet(cfg.getPredsOf(s)));
+      for (Statement succ : cfg.getSuccsOf(s)) {
+        Edge edge = cfg.getEdge(s, succ);
+        assertSame(edge, cfg.getEdge(s, succ));
+        assertSame(s, edge.getStart());
+        assertSame(succ, edge.getTarget());
+      }
+    }
+    assertEquals(wrap(graph.getTails(), method), Sets.newHashSet(cfg.getEndPoints()));
+    Set<Statement> heads = Sets.newHashSet();
+    for (Unit u : graph.getHeads()) {
+      if (!(u instanceof IdentityStmt)) {
+        heads.add(JimpleStatement.create((Stmt) u, method));
+      }
+    }
+    assertEquals(heads, Sets.newHashSet(cfg.getStartPoints()));
+  }
+
+  private static Set<Statement> wrap(List<Unit> units, JimpleMethod method) {
+    Set<Statement> res = Sets.newHashSet();
+    for (Unit u : units) {
+      res.add(JimpleStatement.create((Stmt) u, method));
+    }
+    return res;
+  }
+
+  public static class Target {
+    public static int branch(int x) {
+      int y = 0;
+      if (x > 0) {
+        y = x;
+      } else if (x < -10) {
+        y = -x;
+      }
+      return y;
+    }
+
+    public static int loop(int n) {
+      int sum = 0;
+      for (int i = 0; i < n; i++) {
+        sum += i;
+      }
+      return sum;
+    }
+
+    public static int tryCatch(String s) {
+      try {
+        return Integer.parseInt(s);
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.scene.jimple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import boomerang.scene.Statement;
+import boomerang.scene.Val;
+import com.google.common.collect.Lists;
+import java.nio.file.Paths;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.IntType;
+import soot.Local;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.options.Options;
+
+public class JimpleMethodIndexTest {
+
+  private SootMethod sootMethod;
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().setPhaseOption("jb", "use-original-names:true");
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    SootClass target = Scene.v().forceResolve(Target.class.getName(), SootClass.BODIES);
+    sootMethod = target.getMethodByName("run");
+    sootMethod.retrieveActiveBody();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply(Lists.newArrayList(sootMethod));
+  }
+
+  @Test
+  public void canonicalIdentity() {
+    JimpleMethod method = JimpleMethod.of(sootMethod);
+    for (Unit u : sootMethod.getActiveBody().getUnits()) {
+      Statement statement = JimpleStatement.create((Stmt) u, method);
+      assertSame(statement, JimpleStatement.create((Stmt) u, method));
+      if (u instanceof AssignStmt) {
+        AssignStmt as = (AssignStmt) u;
+        assertSame(statement.getLeftOp(), method.getIndex().getVal(as.getLeftOp()));
+        assertSame(statement.getRightOp(), method.getIndex().getVal(as.getRightOp()));
+        if (as.getRightOp() instanceof FieldRef) {
+          FieldRef ref = (FieldRef) as.getRightOp();
+          assertSame(statement.getFieldLoad().getY(), method.getIndex().getField(ref.getField()));
+        }
+      }
+    }
+    for (Statement statement : method.getStatements()) {
+      Stmt delegate = ((JimpleStatement) statement).getDelegate();
+      assertSame(statement, JimpleStatement.create(delegate, method));
+    }
+    Local thisLocal = sootMethod.getActiveBody().getThisLocal();
+    assertSame(method.getThisLocal(), method.getIndex().getVal(thisLocal));
+  }
+
+  @Test
+  public void fallbackWrapping() {
+    JimpleMethod method = JimpleMethod.of(sootMethod);
+    Stmt nop = Jimple.v().newNopStmt();
+    Statement statement = JimpleStatement.create(nop, method);
+    assertNotSame(statement, JimpleStatement.create(nop, method));
+    assertEquals(statement, JimpleStatement.create(nop, method));
+    Local local = Jimple.v().newLocal("notInBody", IntType.v());
+    JimpleVal val = method.getIndex().getVal(local);
+    assertNotSame(val, method.getIndex().getVal(local));
+    assertEquals(val, method.getIndex().getVal(local));
+  }
+
+  @Test
+  public void operandEqualityWithFreshWrappers() {
+    JimpleMethod method = JimpleMethod.of(sootMethod);
+    boolean checkedInvoke = false;
+    for (Unit u : sootMethod.getActiveBody().getUnits()) {
+      Statement statement = JimpleStatement.create((Stmt) u, method);
+      if (u instanceof AssignStmt) {
+        AssignStmt as = (AssignStmt) u;
+        assertFreshWrapperEquals(statement.getLeftOp(), new JimpleVal(as.getLeftOp(), method));
+        assertFreshWrapperEquals(statement.getRightOp(), new JimpleVal(as.getRightOp(), method));
+      }
+      if (statement.containsInvokeExpr()) {
+        soot.jimple.InvokeExpr ie = ((Stmt) u).getInvokeExpr();
+        for (int i = 0; i < ie.getArgCount(); i++) {
+          assertFreshWrapperEquals(
+              statement.getInvokeExpr().getArg(i), new JimpleVal(ie.getArg(i), method));
+          checkedInvoke = true;
+        }
+      }
+    }
+    assertTrue(checkedInvoke);
+  }
+
+  @Test
+  public void missingOperandsThrow() {
+    JimpleMethod method = JimpleMethod.of(sootMethod);
+    Statement nop = JimpleStatement.create(Jimple.v().newNopStmt(), method);
+    try {
+      nop.getInvokeExpr();
+      fail("Statement has no invoke expression");
+    } catch (RuntimeException e) {
+      // expected
+    }
+    try {
+      nop.getIfStmt();
+      fail("Statement is no if statement");
+    } catch (ClassCastException e) {
+      // expected
+    }
+  }
+
+  private static void assertFreshWrapperEquals(Val indexed, Val fresh) {
+    assertEquals(indexed, fresh);
+    assertEquals(fresh, indexed);
+    assertEquals(indexed.hashCode(), fresh.hashCode());
+  }
+
+  public static class Target {
+    private int field;
+
+    public int run(int x) {
+      int y = field;
+      if (x > y) {
+        y = consume(x, y);
+      }
+      return y;
+    }
+
+    private static int consume(int a, int b) {
+      return a + b;
+    }
+  }
+}
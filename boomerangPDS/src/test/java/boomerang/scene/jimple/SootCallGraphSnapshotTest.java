@@ -0,0 +1,141 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.scene.jimple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.scene.CallGraph;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+
+public class SootCallGraphSnapshotTest {
+
+  private static final String TARGET = SootCallGraphTest.Target.class.getName();
+
+  private String classPath;
+  private File file;
+
+  @Before
+  public void setupSoot() throws IOException {
+    classPath = Paths.get("target/test-classes").toAbsolutePath().toString();
+    file = File.createTempFile("callgraph", ".snapshot");
+    G.v().reset();
+    Options.v().set_whole_program(true);
+    Options.v().setPhaseOption("cg.cha", "on");
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_no_bodies_for_excluded(true);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().set_prepend_classpath(true);
+    Options.v().set_process_dir(Lists.newArrayList(classPath));
+    Scene.v().loadNecessaryClasses();
+    List<SootMethod> eps = Lists.newArrayList();
+    for (SootClass c : Scene.v().getClasses()) {
+      if (c.getName().startsWith(TARGET)) {
+        c.setApplicationClass();
+        eps.addAll(c.getMethods());
+      }
+    }
+    Scene.v().setEntryPoints(eps);
+    PackManager.v().runPacks();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply();
+  }
+
+  @After
+  public void deleteSnapshot() {
+    file.delete();
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    CallGraph callGraph = new SootCallGraph();
+    String key = key("cha");
+    SootCallGraphSnapshot.write(callGraph, key, file);
+    Optional<SootCallGraphSnapshot> snapshot = SootCallGraphSnapshot.read(file, key);
+    assertTrue(snapshot.isPresent());
+    CallGraph restored = snapshot.get().toCallGraph().get();
+    assertFalse(restored.getEdges().isEmpty());
+    assertEquals(callGraph.getEdges(), restored.getEdges());
+    assertEquals(
+        Sets.newHashSet(callGraph.getEntryPoints()), Sets.newHashSet(restored.getEntryPoints()));
+  }
+
+  @Test
+  public void keyCoversInputsOfTheCallGraph() throws IOException {
+    String key = key("cha");
+    assertEquals(key, key("cha"));
+    assertNotEquals(key, key("spark"));
+    assertNotEquals(
+        key, SootCallGraphSnapshot.key(classPath, Scene.v().getEntryPoints(), TARGET, "cha"));
+    List<SootMethod> fewerEntryPoints = Lists.newArrayList(Scene.v().getEntryPoints());
+    fewerEntryPoints.remove(0);
+    assertNotEquals(key, SootCallGraphSnapshot.key(classPath, fewerEntryPoints, null, "cha"));
+
+    SootCallGraphSnapshot.write(new SootCallGraph(), key, file);
+    assertFalse(SootCallGraphSnapshot.read(file, key("spark")).isPresent());
+  }
+
+  @Test
+  public void truncatedSnapshotsAreIgnored() throws IOException {
+    String key = key("cha");
+    SootCallGraphSnapshot.write(new SootCallGraph(), key, file);
+    byte[] bytes = Files.toByteArray(file);
+    for (int length = 0; length < bytes.length; length++) {
+      Files.write(Arrays.copyOf(bytes, length), file);
+      assertFalse(SootCallGraphSnapshot.read(file, key).isPresent());
+    }
+  }
+
+  @Test
+  public void invalidIndicesAreIgnored() throws IOException {
+    String key = key("cha");
+    SootCallGraphSnapshot.write(new SootCallGraph(), key, file);
+    byte[] bytes = Files.toByteArray(file);
+    // The file ends with the source, the call site position and the target of the last edge
+    ByteBuffer.wrap(bytes).putInt(bytes.length - 4, Integer.MAX_VALUE);
+    Files.write(bytes, file);
+    assertFalse(SootCallGraphSnapshot.read(file, key).isPresent());
+
+    bytes = Files.toByteArray(file);
+    ByteBuffer.wrap(bytes).putInt(bytes.length - 4, 0).putInt(bytes.length - 8, 100000);
+    Files.write(bytes, file);
+    Optional<SootCallGraphSnapshot> snapshot = SootCallGraphSnapshot.read(file, key);
+    assertTrue(snapshot.isPresent());
+    BoomerangPretransformer.v().apply(snapshot.get().getMethods());
+    assertFalse(snapshot.get().toCallGraph().isPresent());
+  }
+
+  private String key(String callGraphAlgorithm) throws IOException {
+    return SootCallGraphSnapshot.key(
+        classPath, Scene.v().getEntryPoints(), null, callGraphAlgorithm);
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.scene.jimple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.scene.CallGraph;
+import boomerang.scene.CallGraph.Edge;
+import boomerang.scene.Method;
+import boomerang.scene.Statement;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import soot.G;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.options.Options;
+
+public class SootCallGraphTest {
+
+  @Before
+  public void setupSoot() {
+    G.v().reset();
+    Options.v().set_whole_program(true);
+    Options.v().setPhaseOption("cg.cha", "on");
+    Options.v().set_output_format(Options.output_format_none);
+    Options.v().set_no_bodies_for_excluded(true);
+    Options.v().set_allow_phantom_refs(true);
+    Options.v().set_prepend_classpath(true);
+    Options.v()
+        .set_process_dir(
+            Lists.newArrayList(Paths.get("target/test-classes").toAbsolutePath().toString()));
+    Scene.v().loadNecessaryClasses();
+    List<SootMethod> eps = Lists.newArrayList();
+    for (SootClass c : Scene.v().getClasses()) {
+      if (c.getName().startsWith(Target.class.getName())) {
+        c.setApplicationClass();
+        eps.addAll(c.getMethods());
+      }
+    }
+    Scene.v().setEntryPoints(eps);
+    PackManager.v().runPacks();
+    BoomerangPretransformer.v().reset();
+    BoomerangPretransformer.v().apply();
+  }
+
+  @Test
+  public void parallelConversionEqualsSequentialConversion() {
+    CallGraph sequential = new SootCallGraph(1);
+    CallGraph parallel = new SootCallGraph(4);
+    assertFalse(sequential.getEdges().isEmpty());
+    assertEquals(sequential.getEdges(), parallel.getEdges());
+    assertEquals(sequential.getReachableMethods(), parallel.getReachableMethods());
+    for (Method m : sequential.getReachableMethods()) {
+      assertEquals(
+          Sets.newHashSet(sequential.edgesInto(m)), Sets.newHashSet(parallel.edgesInto(m)));
+    }
+    for (Edge e : sequential.getEdges()) {
+      Statement callSite = e.src();
+      assertEquals(
+          Sets.newHashSet(sequential.edgesOutOf(callSite)),
+          Sets.newHashSet(parallel.edgesOutOf(callSite)));
+    }
+    assertEquals(
+        HashMultimap.create(sequential.getFieldStoreStatements()),
+        HashMultimap.create(parallel.getFieldStoreStatements()));
+    assertEquals(
+        HashMultimap.create(sequential.getFieldLoadStatements()),
+        HashMultimap.create(parallel.getFieldLoadStatements()));
+  }
+
+  @Test
+  public void compactedAdjacencyEqualsHashBasedAdjacency() {
+    SootCallGraph compacted = new SootCallGraph(1);
+    assertTrue(compacted.isCompact());
+    CallGraph hashBased = new CallGraph();
+    for (Edge e : compacted.getEdges()) {
+      hashBased.addEdge(e);
+    }
+    assertFalse(hashBased.isCompact());
+    assertEquals(hashBased.getEdges(), compacted.getEdges());
+    for (Edge e : compacted.getEdges()) {
+      assertEquals(
+          Sets.newHashSet(hashBased.edgesOutOf(e.src())),
+          Sets.newHashSet(compacted.edgesOutOf(e.src())));
+      assertEquals(
+          Sets.newHashSet(hashBased.edgesInto(e.tgt())),
+          Sets.newHashSet(compacted.edgesInto(e.tgt())));
+    }
+    for (Method m : compacted.getEntryPoints()) {
+      hashBased.addEntryPoint(m);
+    }
+    assertEquals(hashBased.getReachableMethods(), compacted.getReachableMethods());
+    SootCallGraph.ConversionStats stats = compacted.getConversionStats();
+    assertEquals(compacted.size(), stats.getEdges());
+    assertTrue(stats.getSootEdges() >= stats.getEdges());
+    assertTrue(stats.getAdjacencyBytes() > 0);
+    assertEquals(compacted.getEstimatedAdjacencyBytes(), stats.getAdjacencyBytes());
+
+    // Adding an edge restores the hash-based adjacency
+    Edge existing = compacted.getEdges().iterator().next();
+    assertFalse(compacted.addEdge(existing));
+    assertTrue(compacted.isCompact());
+    Method otherCallee = null;
+    for (Method m : compacted.getReachableMethods()) {
+      if (!m.equals(existing.tgt())) {
+        otherCallee = m;
+      }
+    }
+    Edge added = new Edge(existing.src(), otherCallee);
+    assertTrue(compacted.addEdge(added));
+    assertFalse(compacted.isCompact());
+    assertEquals(-1, compacted.getEstimatedAdjacencyBytes());
+    assertTrue(compacted.edgesOutOf(existing.src()).contains(added));
+    assertTrue(compacted.edgesInto(otherCallee).contains(added));
+    assertEquals(hashBased.size() + 1, compacted.size());
+  }
+
+  public static class Target {
+    private static Object shared;
+    private Object field;
+
+    public static void main(String... args) {
+      Target t = new Target();
+      t.store(new Object());
+      publish(t.load());
+      Object o = shared;
+      t.store(o);
+    }
+
+    private void store(Object o) {
+      field = o;
+    }
+
+    private Object load() {
+      return field;
+    }
+
+    private static void publish(Object o) {
+      shared = o;
+    }
+  }
+}
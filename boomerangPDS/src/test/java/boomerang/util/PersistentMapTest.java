@@ -0,0 +1,91 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package boomerang.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class PersistentMapTest {
+
+  @Test
+  public void plusKeepsOriginal() {
+    PersistentMap<String, Integer> empty = PersistentMap.empty();
+    PersistentMap<String, Integer> one = empty.plus("a", 1);
+    PersistentMap<String, Integer> two = one.plus("a", 2);
+    assertTrue(empty.isEmpty());
+    assertEquals(Integer.valueOf(1), one.get("a"));
+    assertEquals(Integer.valueOf(2), two.get("a"));
+    assertEquals(1, two.size());
+    assertNull(two.get("b"));
+    assertFalse(two.containsKey("b"));
+  }
+
+  @Test
+  public void unchangedMapIsShared() {
+    PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().plus("a", 1);
+    assertSame(map, map.plus("a", 1));
+  }
+
+  @Test
+  public void collidingKeys() {
+    PersistentMap<Colliding, Integer> map = PersistentMap.empty();
+    for (int i = 0; i < 10; i++) {
+      map = map.plus(new Colliding(i), i);
+    }
+    assertEquals(10, map.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.valueOf(i), map.get(new Colliding(i)));
+    }
+  }
+
+  @Test
+  public void behavesLikeHashMap() {
+    Random random = new Random(0);
+    PersistentMap<Integer, Integer> map = PersistentMap.empty();
+    Map<Integer, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 10000; i++) {
+      int key = random.nextInt(2000) - 1000;
+      map = map.plus(key, i);
+      expected.put(key, i);
+    }
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+    assertEquals(expected.size(), map.entrySet().size());
+  }
+
+  private static class Colliding {
+    private final int id;
+
+    private Colliding(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Colliding && ((Colliding) obj).id == id;
+    }
+  }
+}
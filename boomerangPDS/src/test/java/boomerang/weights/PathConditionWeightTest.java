@@ -0,0 +1,76 @@
+package boomerang.weights;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import boomerang.scene.Statement;
+import boomerang.scene.Val;
+import boomerang.weights.PathConditionWeight.ConditionDomain;
+import org.junit.Test;
+
+public class PathConditionWeightTest {
+
+  @Test
+  public void identicalConditionsAreInterned() {
+    PathConditionWeightFactory factory = new PathConditionWeightFactory();
+    Statement ifStatement = Statement.epsilon();
+    Val val = Val.zero();
+    PathConditionWeight extended =
+        extend(factory.ifStatement(ifStatement, true), factory.value(val, ConditionDomain.TRUE));
+    assertSame(
+        extended,
+        extend(factory.ifStatement(ifStatement, true), factory.value(val, ConditionDomain.TRUE)));
+    PathConditionWeight joined =
+        combine(factory.ifStatement(ifStatement, true), factory.ifStatement(ifStatement, false));
+    assertSame(
+        joined,
+        combine(factory.ifStatement(ifStatement, true), factory.ifStatement(ifStatement, false)));
+    assertEquals(ConditionDomain.TOP, joined.getConditions().get(ifStatement));
+  }
+
+  @Test
+  public void factoriesDoNotShareInstances() {
+    Statement ifStatement = Statement.epsilon();
+    PathConditionWeightFactory first = new PathConditionWeightFactory();
+    PathConditionWeightFactory second = new PathConditionWeightFactory();
+    PathConditionWeight joined =
+        combine(first.ifStatement(ifStatement, true), first.ifStatement(ifStatement, false));
+    PathConditionWeight other =
+        combine(second.ifStatement(ifStatement, true), second.ifStatement(ifStatement, false));
+    assertEquals(joined, other);
+    assertNotSame(joined, other);
+    assertSame(joined, first.canonicalize(other));
+    // Weights not created through a factory are not interned
+    PathConditionWeight plain =
+        combine(
+            new PathConditionWeight(ifStatement, true),
+            new PathConditionWeight(ifStatement, false));
+    assertEquals(joined, plain);
+    assertNotSame(
+        plain,
+        combine(
+            new PathConditionWeight(ifStatement, true),
+            new PathConditionWeight(ifStatement, false)));
+  }
+
+  @Test
+  public void weightsWithDifferentReturnValuesAreNotMerged() {
+    PathConditionWeightFactory factory = new PathConditionWeightFactory();
+    Statement ifStatement = Statement.epsilon();
+    PathConditionWeight withReturn =
+        extend(factory.returnVal(Val.zero()), factory.ifStatement(ifStatement, true));
+    PathConditionWeight withoutReturn =
+        extend(factory.ifStatement(ifStatement, false), factory.ifStatement(ifStatement, true));
+    assertEquals(withReturn, withoutReturn);
+    assertNotSame(withReturn, withoutReturn);
+  }
+
+  private static PathConditionWeight extend(PathConditionWeight a, PathConditionWeight b) {
+    return (PathConditionWeight) a.extendWith(b);
+  }
+
+  private static PathConditionWeight combine(PathConditionWeight a, PathConditionWeight b) {
+    return (PathConditionWeight) a.combineWith(b);
+  }
+}
@@ -0,0 +1,180 @@
+package boomerang.weights;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Val;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Test;
+import sync.pds.solver.nodes.Node;
+
+public class PathTrackingWeightTest {
+
+  private static final Node<Edge, Val> A = new TestNode("a");
+  private static final Node<Edge, Val> B = new TestNode("b");
+  private static final Node<Edge, Val> C = new TestNode("c");
+  private static final Node<Edge, Val> D = new TestNode("d");
+  private static final Node<Edge, Val> E = new TestNode("e");
+
+  @Test
+  public void sharedPrefixes() {
+    PathTrackingWeight prefix = extend(weight(A), weight(B));
+    PathTrackingWeight left = extend(prefix, weight(C));
+    PathTrackingWeight right = extend(prefix, weight(D));
+    assertEquals(Lists.newArrayList(A, B, C), left.getShortestPathWitness());
+    assertEquals(Lists.newArrayList(A, B, D), right.getShortestPathWitness());
+    assertEquals(Lists.newArrayList(A, B), prefix.getShortestPathWitness());
+    assertEquals(paths(path(A, B, C)), left.getAllPathWitness());
+    // Repeated statements are reported once, at their first occurrence
+    assertEquals(Lists.newArrayList(A, B), extend(prefix, weight(A)).getShortestPathWitness());
+    // The statements define equality, independent of how the path was built
+    PathTrackingWeight abc = extend(weight(A), extend(weight(B), weight(C)));
+    assertEquals(left, abc);
+    assertEquals(left.hashCode(), abc.hashCode());
+    assertNotEquals(left, right);
+    PathTrackingWeight aba = extend(prefix, weight(A));
+    assertEquals(prefix, aba);
+    assertEquals(prefix.hashCode(), aba.hashCode());
+    assertEquals(prefix, extend(weight(B), weight(A)));
+  }
+
+  @Test
+  public void union() {
+    PathTrackingWeight ab = extend(weight(A), weight(B));
+    PathTrackingWeight abOrC = combine(ab, weight(C));
+    assertEquals(Lists.newArrayList(C), abOrC.getShortestPathWitness());
+    assertEquals(paths(path(A, B), path(C)), abOrC.getAllPathWitness());
+    // Union is compared by its paths, not by the order the paths were added in
+    PathTrackingWeight cOrAb = combine(weight(C), ab);
+    assertEquals(abOrC, cOrAb);
+    assertEquals(abOrC.hashCode(), cOrAb.hashCode());
+    assertEquals(abOrC, combine(abOrC, weight(C)));
+    assertEquals(abOrC, combine(abOrC, abOrC));
+    assertNotEquals(abOrC, combine(abOrC, weight(D)));
+    // Equal lengths retain the shortest path of the left operand
+    assertEquals(Lists.newArrayList(C), combine(weight(C), weight(D)).getShortestPathWitness());
+  }
+
+  @Test
+  public void product() {
+    PathTrackingWeight prefixes = combine(weight(A), weight(B));
+    PathTrackingWeight suffixes = combine(weight(C), weight(D));
+    PathTrackingWeight product = extend(prefixes, suffixes);
+    assertEquals(Lists.newArrayList(A, C), product.getShortestPathWitness());
+    assertEquals(
+        paths(path(A, C), path(A, D), path(B, C), path(B, D)), product.getAllPathWitness());
+    PathTrackingWeight sameProduct =
+        combine(
+            combine(extend(weight(A), weight(C)), extend(weight(A), weight(D))),
+            combine(extend(weight(B), weight(C)), extend(weight(B), weight(D))));
+    // Equality is structural, sets of equal paths that were built differently are not equal
+    assertEquals(product.getAllPathWitness(), sameProduct.getAllPathWitness());
+    assertNotEquals(product, sameProduct);
+    assertNotEquals(product, extend(prefixes, weight(C)));
+  }
+
+  @Test
+  public void loop() {
+    PathTrackingWeight body = combine(weight(B), weight(C));
+    Set<LinkedHashSet<Node<Edge, Val>>> expected =
+        paths(path(A), path(A, B), path(A, C), path(A, B, C));
+    for (int bound : new int[] {Integer.MAX_VALUE, 8}) {
+      PathTrackingWeight curr = weight(A, bound);
+      int iterations = 0;
+      while (true) {
+        PathTrackingWeight next = combine(curr, extend(curr, body));
+        if (next.equals(curr)) {
+          break;
+        }
+        curr = next;
+        assertTrue(++iterations < 64);
+      }
+      assertEquals(Lists.newArrayList(A), curr.getShortestPathWitness());
+      assertEquals(expected, curr.getAllPathWitness());
+    }
+  }
+
+  @Test
+  public void truncation() {
+    PathTrackingWeight prefixes = combine(weight(A, 2), weight(B, 2));
+    PathTrackingWeight product = extend(prefixes, combine(weight(C, 2), weight(D, 2)));
+    assertEquals(Lists.newArrayList(A, C), product.getShortestPathWitness());
+    Set<LinkedHashSet<Node<Edge, Val>>> witnesses = product.getAllPathWitness();
+    assertEquals(2, witnesses.size());
+    assertTrue(paths(path(A, C), path(A, D), path(B, C), path(B, D)).containsAll(witnesses));
+    // Sets beyond the bound are compared structurally as well
+    PathTrackingWeight otherProduct = extend(prefixes, combine(weight(C, 2), weight(E, 2)));
+    assertNotEquals(product, otherProduct);
+    PathTrackingWeight withinBound = extend(prefixes, weight(C, 2));
+    assertEquals(paths(path(A, C), path(B, C)), withinBound.getAllPathWitness());
+    assertNotEquals(product, withinBound);
+    // A set that reached the bound retains its paths, but the shortest path is still updated
+    PathTrackingWeight shorter = combine(product, weight(E, 2));
+    assertEquals(Lists.newArrayList(E), shorter.getShortestPathWitness());
+    assertEquals(witnesses, shorter.getAllPathWitness());
+    assertNotEquals(product, shorter);
+    assertEquals(product, combine(product, extend(weight(B, 2), weight(E, 2))));
+    // The unbounded weights retain all paths
+    assertEquals(
+        4,
+        extend(combine(weight(A), weight(B)), combine(weight(C), weight(D)))
+            .getAllPathWitness()
+            .size());
+  }
+
+  private static PathTrackingWeight weight(Node<Edge, Val> statement) {
+    return new PathTrackingWeight(statement);
+  }
+
+  private static PathTrackingWeight weight(Node<Edge, Val> statement, int maxPathWitnesses) {
+    return new PathTrackingWeight(statement, maxPathWitnesses);
+  }
+
+  private static PathTrackingWeight extend(PathTrackingWeight a, PathTrackingWeight b) {
+    return (PathTrackingWeight) a.extendWith(b);
+  }
+
+  private static PathTrackingWeight combine(PathTrackingWeight a, PathTrackingWeight b) {
+    return (PathTrackingWeight) a.combineWith(b);
+  }
+
+  @SafeVarargs
+  private static Set<LinkedHashSet<Node<Edge, Val>>> paths(
+      LinkedHashSet<Node<Edge, Val>>... paths) {
+    return Sets.newHashSet(paths);
+  }
+
+  @SafeVarargs
+  private static LinkedHashSet<Node<Edge, Val>> path(Node<Edge, Val>... statements) {
+    return Sets.newLinkedHashSet(Lists.newArrayList(statements));
+  }
+
+  private static class TestNode extends Node<Edge, Val> {
+    private final String name;
+
+    private TestNode(String name) {
+      super(null, null);
+      this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof TestNode && ((TestNode) obj).name.equals(name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package test.cases.context;
+
+/** Runs the tests of {@link ContextTypesTest} again with the reached nodes batched by method. */
+public class BatchedContextTypesTest extends ContextTypesTest {
+
+  @Override
+  protected boolean batchNodesByMethod() {
+    return true;
+  }
+
+  @Override
+  public String getTestCaseClassName() {
+    return ContextTypesTest.class.getName();
+  }
+}
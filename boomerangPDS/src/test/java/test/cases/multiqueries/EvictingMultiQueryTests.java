@@ -0,0 +1,29 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package test.cases.multiqueries;
+
+/**
+ * Runs the multi query tests with forward queries solved by a solver that retains a single root
+ * solver.
+ */
+public class EvictingMultiQueryTests extends MultiQueryTests {
+
+  @Override
+  protected int maxRetainedSolvers() {
+    return 1;
+  }
+
+  @Override
+  public String getTestCaseClassName() {
+    return MultiQueryTests.class.getName();
+  }
+}
@@ -0,0 +1,26 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package test.cases.multiqueries;
+
+/** Runs the multi query tests again on a {@link boomerang.ParallelQueryExecutor}. */
+public class ParallelMultiQueryTests extends MultiQueryTests {
+
+  @Override
+  protected int parallelism() {
+    return 4;
+  }
+
+  @Override
+  public String getTestCaseClassName() {
+    return MultiQueryTests.class.getName();
+  }
+}
@@ -75,6 +75,7 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
   private static Duration globalQueryTime = Duration.ofMillis(0);
 
   protected int analysisTimeout = 3000 * 1000;
+  private boolean batchNodes;
   private CallGraph callGraph;
   private DataFlowScope dataFlowScope;
 
@@ -235,7 +236,22 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
 
   private void runDemandDrivenBackward() {
     // Run backward analysis
+    batchNodes = batchNodesByMethod();
     Set<Node<Edge, Val>> backwardResults = runQuery(queryForCallSites);
+    if (batchNodes) {
+      // The same queries solved without the node worklist must find the same allocation sites
+      batchNodes = false;
+      Set<Node<Edge, Val>> unbatchedResults = runQuery(queryForCallSites);
+      if (!unbatchedResults.equals(backwardResults)) {
+        unsoundErrors.add(
+            new Error(
+                AnalysisMode.DemandDrivenBackward
+                    + " Results with nodes batched by method: "
+                    + backwardResults
+                    + ", without: "
+                    + unbatchedResults));
+      }
+    }
     if (queryDetector.integerQueries) {
       compareIntegerResults(backwardResults, AnalysisMode.DemandDrivenBackward);
     } else {
@@ -310,15 +326,34 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
 
   protected BoomerangOptions createBoomerangOptions() {
     return (queryDetector.integerQueries
-        ? new IntAndStringBoomerangOptions()
+        ? new IntAndStringBoomerangOptions() {
+          @Override
+          public boolean batchNodesByMethod() {
+            return batchNodes;
+          }
+        }
         : new DefaultBoomerangOptions() {
           @Override
           public int analysisTimeoutMS() {
             return analysisTimeout;
           }
+
+          @Override
+          public boolean batchNodesByMethod() {
+            return batchNodes;
+          }
         });
   }
 
+  /**
+   * Subclasses return true to solve the demand-driven queries with {@link
+   * BoomerangOptions#batchNodesByMethod()} enabled, the results are then compared to the results
+   * with the option disabled.
+   */
+  protected boolean batchNodesByMethod() {
+    return false;
+  }
+
   private void compareQuery(
       Collection<? extends Query> expectedResults,
       Collection<? extends Node<Edge, Val>> results,
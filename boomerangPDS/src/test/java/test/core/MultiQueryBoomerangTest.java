@@ -11,28 +11,38 @@
  */
 package test.core;
 
+import static org.junit.Assert.assertEquals;
+
 import boomerang.BackwardQuery;
 import boomerang.Boomerang;
 import boomerang.DefaultBoomerangOptions;
+import boomerang.ForwardQuery;
+import boomerang.ParallelQueryExecutor;
 import boomerang.Query;
 import boomerang.WeightedBoomerang;
 import boomerang.results.BackwardBoomerangResults;
 import boomerang.scene.AnalysisScope;
 import boomerang.scene.CallGraph;
+import boomerang.scene.ControlFlowGraph.Edge;
 import boomerang.scene.DataFlowScope;
 import boomerang.scene.SootDataFlowScope;
 import boomerang.scene.Val;
 import boomerang.scene.jimple.BoomerangPretransformer;
 import boomerang.scene.jimple.SootCallGraph;
 import com.google.common.base.Joiner;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.rules.Timeout;
@@ -128,32 +138,103 @@ public class MultiQueryBoomerangTest extends AbstractTestingFramework {
     }
   }
 
-  private void runDemandDrivenBackward() {
-    DefaultBoomerangOptions options =
-        new DefaultBoomerangOptions() {
-          @Override
-          public int analysisTimeoutMS() {
-            return analysisTimeout;
-          }
+  private DefaultBoomerangOptions createOptions(int maxRetainedSolvers) {
+    return new DefaultBoomerangOptions() {
+      @Override
+      public int analysisTimeoutMS() {
+        return analysisTimeout;
+      }
 
-          @Override
-          public boolean onTheFlyCallGraph() {
-            return false;
-          }
+      @Override
+      public boolean onTheFlyCallGraph() {
+        return false;
+      }
 
-          @Override
-          public boolean allowMultipleQueries() {
-            return true;
-          }
-        };
+      @Override
+      public boolean allowMultipleQueries() {
+        return true;
+      }
+
+      @Override
+      public int maxRetainedSolvers() {
+        return maxRetainedSolvers;
+      }
+    };
+  }
+
+  private void runDemandDrivenBackward() {
+    DefaultBoomerangOptions options = createOptions(-1);
     solver = new Boomerang(callGraph, dataFlowScope, options);
+    Map<Query, Set<ForwardQuery>> sequentialResults = Maps.newHashMap();
+    List<BackwardQuery> backwardQueries = Lists.newArrayList();
     for (final Query query : queryForCallSites) {
       if (query instanceof BackwardQuery) {
         BackwardBoomerangResults<Weight.NoWeight> res = solver.solve((BackwardQuery) query);
         compareQuery(query, res.getAllocationSites().keySet());
+        sequentialResults.put(query, res.getAllocationSites().keySet());
+        backwardQueries.add((BackwardQuery) query);
       }
     }
     solver.unregisterAllListeners();
+    if (parallelism() > 1) {
+      ParallelQueryExecutor<Weight.NoWeight> executor =
+          new ParallelQueryExecutor<>(
+              () -> new Boomerang(callGraph, dataFlowScope, options), parallelism());
+      for (Entry<BackwardQuery, BackwardBoomerangResults<Weight.NoWeight>> e :
+          executor.solveBackward(backwardQueries).entrySet()) {
+        assertEquals(
+            "Parallel and sequential results differ for " + e.getKey(),
+            sequentialResults.get(e.getKey()),
+            e.getValue().getAllocationSites().keySet());
+      }
+    }
+    if (maxRetainedSolvers() >= 0) {
+      runForwardWithEviction();
+    }
+  }
+
+  /**
+   * Solves the expected allocation sites as forward queries, twice in a row, once on a solver that
+   * retains all solvers and once on a solver that evicts solvers beyond {@link
+   * #maxRetainedSolvers()}. The second round recomputes the evicted solvers, the results of both
+   * solvers must not differ.
+   */
+  private void runForwardWithEviction() {
+    List<ForwardQuery> forwardQueries = Lists.newArrayList();
+    for (Query query : Sets.newLinkedHashSet(expectedAllocsForQuery.values())) {
+      forwardQueries.add((ForwardQuery) query);
+    }
+    Boomerang retaining = new Boomerang(callGraph, dataFlowScope, createOptions(-1));
+    Boomerang evicting =
+        new Boomerang(callGraph, dataFlowScope, createOptions(maxRetainedSolvers()));
+    for (int round = 0; round < 2; round++) {
+      for (ForwardQuery query : forwardQueries) {
+        Table<Edge, Val, Weight.NoWeight> expected =
+            HashBasedTable.create(retaining.solve(query).asStatementValWeightTable());
+        assertEquals(
+            "Results differ after eviction for " + query,
+            expected,
+            evicting.solve(query).asStatementValWeightTable());
+      }
+    }
+    retaining.unregisterAllListeners();
+    evicting.unregisterAllListeners();
+  }
+
+  /**
+   * The number of threads the queries are additionally solved on by a {@link
+   * ParallelQueryExecutor}, whose results must equal the sequential ones.
+   */
+  protected int parallelism() {
+    return 1;
+  }
+
+  /**
+   * The number of root solvers retained by an additional session of forward queries, whose results
+   * must equal the ones of a session that retains all solvers, or -1 to skip the session.
+   */
+  protected int maxRetainedSolvers() {
+    return -1;
   }
 
   private boolean allocatesObjectOfInterest(NewExpr rightOp, String type) {
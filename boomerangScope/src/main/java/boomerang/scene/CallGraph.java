@@ -1,21 +1,37 @@
 package boomerang.scene;
 
+import com.google.common.collect.ForwardingMultimap;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CallGraph {
 
   private Set<Edge> edges = Sets.newHashSet();
   private Multimap<Statement, Edge> edgesOutOf = HashMultimap.create();
   private Multimap<Method, Edge> edgesInto = HashMultimap.create();
+  // Replaces edgesOutOf and edgesInto while the call graph is compacted, see compact()
+  private CallGraphAdjacency adjacency;
   private Set<Method> entryPoints = Sets.newHashSet();
-  private Multimap<Field, Statement> fieldLoadStatements = HashMultimap.create();
-  private Multimap<Field, Statement> fieldStoreStatements = HashMultimap.create();
+  // Static field loads and stores of the reachable methods. Each method is scanned once, lazily,
+  // when either index is accessed the next time. A scan only adds the statements of the new
+  // methods to the indices, which are backed by concurrent collections that readers access
+  // without locking.
+  private Set<Method> staticFieldsScheduled = Sets.newHashSet();
+  private Set<Method> staticFieldsToScan = Sets.newLinkedHashSet();
+  private volatile boolean staticFieldScanPending;
+  private StaticFieldIndex fieldLoadStatements = new StaticFieldIndex();
+  private StaticFieldIndex fieldStoreStatements = new StaticFieldIndex();
 
   public Collection<Edge> edgesOutOf(Statement stmt) {
+    if (adjacency != null) {
+      return adjacency.edgesOutOf(stmt);
+    }
     return edgesOutOf.get(stmt);
   }
 
@@ -69,13 +85,22 @@ public class CallGraph {
   }
 
   public boolean addEdge(Edge edge) {
+    if (adjacency != null) {
+      if (edges.contains(edge)) {
+        return false;
+      }
+      expand();
+    }
     edgesOutOf.put(edge.callSite, edge);
     edgesInto.put(edge.tgt(), edge);
-    computeStaticFieldsLoadAndStores(edge.tgt());
+    scheduleStaticFieldScan(edge.tgt());
     return edges.add(edge);
   }
 
   public Collection<Edge> edgesInto(Method m) {
+    if (adjacency != null) {
+      return adjacency.edgesInto(m);
+    }
     return edgesInto.get(m);
   }
 
@@ -92,17 +117,56 @@ public class CallGraph {
   }
 
   public boolean addEntryPoint(Method m) {
-    computeStaticFieldsLoadAndStores(m);
+    scheduleStaticFieldScan(m);
     return entryPoints.add(m);
   }
 
   public Set<Method> getReachableMethods() {
     Set<Method> reachableMethod = Sets.newHashSet();
     reachableMethod.addAll(entryPoints);
-    reachableMethod.addAll(edgesInto.keySet());
+    reachableMethod.addAll(adjacency != null ? adjacency.getCallees() : edgesInto.keySet());
     return reachableMethod;
   }
 
+  /**
+   * Replaces the hash-based adjacency of the call graph by a read-optimized one, for call graphs
+   * that are completely built before they are queried, e.g., the call graph Soot computed. The
+   * edges are grouped by call site and by callee in arrays, which occupy a fraction of the memory
+   * of the multimaps and are faster to iterate. Adding an edge to a compacted call graph restores
+   * the hash-based adjacency.
+   */
+  public void compact() {
+    if (adjacency == null) {
+      edges = ImmutableSet.copyOf(edges);
+      adjacency = new CallGraphAdjacency(edges);
+      edgesOutOf = null;
+      edgesInto = null;
+    }
+  }
+
+  public boolean isCompact() {
+    return adjacency != null;
+  }
+
+  /**
+   * An estimate of the memory the read-optimized adjacency occupies, in bytes, or -1 if the call
+   * graph is not compacted.
+   */
+  public long getEstimatedAdjacencyBytes() {
+    return adjacency != null ? adjacency.getEstimatedBytes() : -1;
+  }
+
+  private void expand() {
+    edges = Sets.newHashSet(edges);
+    edgesOutOf = HashMultimap.create();
+    edgesInto = HashMultimap.create();
+    for (Edge e : edges) {
+      edgesOutOf.put(e.callSite, e);
+      edgesInto.put(e.tgt(), e);
+    }
+    adjacency = null;
+  }
+
   public Multimap<Field, Statement> getFieldStoreStatements() {
     return fieldStoreStatements;
   }
@@ -111,13 +175,66 @@ public class CallGraph {
     return fieldLoadStatements;
   }
 
-  private void computeStaticFieldsLoadAndStores(Method m) {
-    for (Statement s : m.getStatements()) {
-      if (s.isStaticFieldStore()) {
-        fieldStoreStatements.put(s.getStaticField().field(), s);
+  private synchronized void scheduleStaticFieldScan(Method m) {
+    if (staticFieldsScheduled.add(m)) {
+      staticFieldsToScan.add(m);
+      staticFieldScanPending = true;
+    }
+  }
+
+  private synchronized void computeStaticFieldsLoadAndStores() {
+    if (staticFieldsToScan.isEmpty()) {
+      return;
+    }
+    for (Method m : staticFieldsToScan) {
+      for (Statement s : m.getStatements()) {
+        if (s.isStaticFieldStore()) {
+          fieldStoreStatements.add(s.getStaticField().field(), s);
+        }
+        if (s.isStaticFieldLoad()) {
+          fieldLoadStatements.add(s.getStaticField().field(), s);
+        }
+      }
+    }
+    staticFieldsToScan.clear();
+    staticFieldScanPending = false;
+  }
+
+  /**
+   * A view of a static field index that scans the methods added to the call graph since the last
+   * access. The view is live, solvers that hold it observe the methods that edges added later on
+   * reach. The index is only written by the scan, readers may access it concurrently to the call
+   * graph growing and see a weakly consistent state.
+   */
+  private class StaticFieldIndex extends ForwardingMultimap<Field, Statement> {
+    private final Multimap<Field, Statement> index =
+        Multimaps.newSetMultimap(new ConcurrentHashMap<>(), Sets::newConcurrentHashSet);
+    private final Multimap<Field, Statement> view = Multimaps.unmodifiableMultimap(index);
+    // The size of the multimap wrapper is not safely published to readers
+    private volatile int size;
+
+    @Override
+    protected Multimap<Field, Statement> delegate() {
+      if (staticFieldScanPending) {
+        computeStaticFieldsLoadAndStores();
       }
-      if (s.isStaticFieldLoad()) {
-        fieldLoadStatements.put(s.getStaticField().field(), s);
+      return view;
+    }
+
+    @Override
+    public int size() {
+      delegate();
+      return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    private void add(Field field, Statement s) {
+      if (index.put(field, s)) {
+        size++;
       }
     }
   }
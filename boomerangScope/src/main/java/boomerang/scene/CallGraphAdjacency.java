@@ -0,0 +1,184 @@
+package boomerang.scene;
+
+import boomerang.scene.CallGraph.Edge;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The read-optimized adjacency of a call graph that no longer grows, see {@link
+ * CallGraph#compact()}. The edges are stored twice, grouped by call site and grouped by callee, in
+ * two arrays. An open-addressing table maps each call site and each callee to the offset of its
+ * group, such that a lookup allocates nothing but the returned view and there are no per-node
+ * collections.
+ */
+class CallGraphAdjacency {
+  private final Edge[] edgesByCallSite;
+  private final Edge[] edgesByCallee;
+  private final OffsetTable<Statement> callSites;
+  private final OffsetTable<Method> callees;
+
+  CallGraphAdjacency(Collection<Edge> edges) {
+    callSites = new OffsetTable<>();
+    callees = new OffsetTable<>();
+    for (Edge e : edges) {
+      callSites.count(e.src());
+      callees.count(e.tgt());
+    }
+    callSites.computeOffsets();
+    callees.computeOffsets();
+    edgesByCallSite = new Edge[edges.size()];
+    edgesByCallee = new Edge[edges.size()];
+    for (Edge e : edges) {
+      edgesByCallSite[callSites.next(e.src())] = e;
+      edgesByCallee[callees.next(e.tgt())] = e;
+    }
+    callSites.finish();
+    callees.finish();
+  }
+
+  Collection<Edge> edgesOutOf(Statement callSite) {
+    return group(edgesByCallSite, callSites, callSite);
+  }
+
+  Collection<Edge> edgesInto(Method callee) {
+    return group(edgesByCallee, callees, callee);
+  }
+
+  List<Method> getCallees() {
+    return callees.keys();
+  }
+
+  /** An estimate of the memory the adjacency occupies, in bytes, with compressed references. */
+  long getEstimatedBytes() {
+    return 4L * (edgesByCallSite.length + edgesByCallee.length)
+        + callSites.getEstimatedBytes()
+        + callees.getEstimatedBytes();
+  }
+
+  private static <K> Collection<Edge> group(Edge[] edges, OffsetTable<K> table, K key) {
+    int slot = table.slot(key);
+    if (slot < 0) {
+      return Collections.emptyList();
+    }
+    int from = table.offsets[slot];
+    int to = from + table.counts[slot];
+    return new AbstractList<Edge>() {
+      @Override
+      public Edge get(int index) {
+        if (index < 0 || index >= to - from) {
+          throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return edges[from + index];
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    };
+  }
+
+  /**
+   * Maps keys to a group of consecutive array positions. Keys are counted first, the offsets of
+   * the groups are then computed as prefix sums and the positions of each group handed out in
+   * order.
+   */
+  private static final class OffsetTable<K> {
+    private Object[] keys = new Object[16];
+    private int[] counts = new int[16];
+    private int[] offsets;
+    private int[] cursors;
+    private int size;
+
+    private int slot(Object key) {
+      int mask = keys.length - 1;
+      int i = mix(key.hashCode()) & mask;
+      while (keys[i] != null) {
+        if (keys[i].equals(key)) {
+          return i;
+        }
+        i = (i + 1) & mask;
+      }
+      return -1;
+    }
+
+    private void count(K key) {
+      int i = insert(keys, key);
+      if (keys[i] == null) {
+        keys[i] = key;
+        // Keep the load factor at most one half
+        if (++size * 2 > keys.length) {
+          grow();
+          i = slot(key);
+        }
+      }
+      counts[i]++;
+    }
+
+    private static int insert(Object[] keys, Object key) {
+      int mask = keys.length - 1;
+      int i = mix(key.hashCode()) & mask;
+      while (keys[i] != null && !keys[i].equals(key)) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+    private void grow() {
+      Object[] newKeys = new Object[keys.length * 2];
+      int[] newCounts = new int[newKeys.length];
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != null) {
+          int j = insert(newKeys, keys[i]);
+          newKeys[j] = keys[i];
+          newCounts[j] = counts[i];
+        }
+      }
+      keys = newKeys;
+      counts = newCounts;
+    }
+
+    private void computeOffsets() {
+      offsets = new int[keys.length];
+      int offset = 0;
+      for (int i = 0; i < keys.length; i++) {
+        offsets[i] = offset;
+        offset += counts[i];
+      }
+      cursors = offsets.clone();
+    }
+
+    /** Hands out the next position of the group of the key, while the arrays are filled. */
+    private int next(K key) {
+      return cursors[slot(key)]++;
+    }
+
+    private void finish() {
+      cursors = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<K> keys() {
+      Object[] res = new Object[size];
+      int j = 0;
+      for (Object key : keys) {
+        if (key != null) {
+          res[j++] = key;
+        }
+      }
+      return (List<K>) Collections.unmodifiableList(Arrays.asList(res));
+    }
+
+    private long getEstimatedBytes() {
+      return 12L * keys.length;
+    }
+
+    private static int mix(int hash) {
+      int h = hash * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -16,6 +16,14 @@ public interface ControlFlowGraph {
 
   List<Statement> getStatements();
 
+  /**
+   * The edge from a statement to one of its successors. Implementations may return a canonical
+   * instance instead of allocating a new edge on each call.
+   */
+  default Edge getEdge(Statement start, Statement target) {
+    return new Edge(start, target);
+  }
+
   class Edge extends Pair<Statement, Statement> implements Location {
     public Edge(Statement start, Statement target) {
       super(start, target);
@@ -12,6 +12,7 @@
 package boomerang.scene.jimple;
 
 import com.google.common.collect.Sets;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -239,17 +240,32 @@ public class BoomerangPretransformer extends BodyTransformer {
     ReachableMethods reachableMethods = Scene.v().getReachableMethods();
     QueueReader<MethodOrMethodContext> listener = reachableMethods.listener();
     while (listener.hasNext()) {
-      SootMethod method = listener.next().method();
-      if (method.hasActiveBody()) {
-        if (method.isConstructor()) {
-          addNulliefiedFields(method);
-        }
-        internalTransform(method.getActiveBody(), "", new HashMap<>());
-      }
+      transform(listener.next().method());
     }
     applied = true;
   }
 
+  /**
+   * Transforms the given methods instead of the methods reachable in Soot's call graph, e.g., the
+   * methods of a {@link SootCallGraphSnapshot} when Soot did not construct a call graph.
+   */
+  public void apply(Collection<SootMethod> methods) {
+    if (applied) return;
+    for (SootMethod method : methods) {
+      transform(method);
+    }
+    applied = true;
+  }
+
+  private void transform(SootMethod method) {
+    if (method.hasActiveBody()) {
+      if (method.isConstructor()) {
+        addNulliefiedFields(method);
+      }
+      internalTransform(method.getActiveBody(), "", new HashMap<>());
+    }
+  }
+
   private static void addNulliefiedFields(SootMethod cons) {
     Chain<SootField> fields = cons.getDeclaringClass().getFields();
     UnitPatchingChain units = cons.getActiveBody().getUnits();
@@ -2,11 +2,15 @@ package boomerang.scene.jimple;
 
 import boomerang.scene.ControlFlowGraph;
 import boomerang.scene.Statement;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import soot.Unit;
 import soot.UnitPatchingChain;
 import soot.jimple.IdentityStmt;
@@ -14,22 +18,31 @@ import soot.jimple.Stmt;
 import soot.toolkits.graph.BriefUnitGraph;
 import soot.toolkits.graph.UnitGraph;
 
+/**
+ * The control flow graph of a {@link JimpleMethod}. Statements are addressed by their position in
+ * the unit chain of the method, successors and predecessors are stored in compressed sparse row
+ * form: the neighbors of the statement at position i are found in the targets array between the
+ * offsets i and i + 1.
+ */
 public class JimpleControlFlowGraph implements ControlFlowGraph {
 
-  private UnitGraph graph;
-
-  private boolean cacheBuild = false;
+  private volatile boolean cacheBuild = false;
   private List<Statement> startPointCache = Lists.newArrayList();
   private List<Statement> endPointCache = Lists.newArrayList();
-  private Multimap<Statement, Statement> succsOfCache = HashMultimap.create();
-  private Multimap<Statement, Statement> predsOfCache = HashMultimap.create();
-  private List<Statement> statements = Lists.newArrayList();;
+  private Statement[] statements;
+  private List<Statement> statementList;
+  // Only built if the body changed after the method was indexed, see indexOf
+  private Map<Statement, Integer> positionOf;
+  private int[] succOffsets;
+  private int[] succTargets;
+  private Edge[] succEdges;
+  private int[] predOffsets;
+  private int[] predTargets;
 
   private JimpleMethod method;
 
   public JimpleControlFlowGraph(JimpleMethod method) {
     this.method = method;
-    this.graph = new BriefUnitGraph(method.getDelegate().getActiveBody());
   }
 
   public Collection<Statement> getStartPoints() {
@@ -39,7 +52,16 @@ public class JimpleControlFlowGraph implements ControlFlowGraph {
 
   private void buildCache() {
     if (cacheBuild) return;
-    cacheBuild = true;
+    synchronized (this) {
+      if (cacheBuild) return;
+      computeCache();
+      cacheBuild = true;
+    }
+  }
+
+  private void computeCache() {
+    // The unit graph is only needed while building, it is not retained
+    UnitGraph graph = new BriefUnitGraph(method.getDelegate().getActiveBody());
     List<Unit> heads = graph.getHeads();
     for (Unit u : heads) {
       // We add a nop statement to the body and ignore IdentityStmt ($stack14 := @caughtexception)
@@ -56,20 +78,66 @@ public class JimpleControlFlowGraph implements ControlFlowGraph {
     }
 
     UnitPatchingChain units = method.getDelegate().getActiveBody().getUnits();
+    Map<Unit, Integer> positions = new IdentityHashMap<>(units.size());
+    statements = new Statement[units.size()];
+    int succBound = 0;
+    int predBound = 0;
     for (Unit u : units) {
-      Statement first = JimpleStatement.create((Stmt) u, method);
-      statements.add(first);
-
+      int i = positions.size();
+      positions.put(u, i);
+      JimpleStatement stmt = (JimpleStatement) JimpleStatement.create((Stmt) u, method);
+      statements[i] = stmt;
+      if (stmt.getIndexInBody() != i && positionOf == null) {
+        positionOf = Maps.newHashMap();
+      }
+      succBound += graph.getSuccsOf(u).size();
+      predBound += graph.getPredsOf(u).size();
+    }
+    statementList = Collections.unmodifiableList(Arrays.asList(statements));
+    if (positionOf != null) {
+      for (int i = 0; i < statements.length; i++) {
+        positionOf.put(statements[i], i);
+      }
+    }
+    succOffsets = new int[statements.length + 1];
+    succTargets = new int[succBound];
+    predOffsets = new int[statements.length + 1];
+    predTargets = new int[predBound];
+    int succCount = 0;
+    int predCount = 0;
+    for (int i = 0; i < statements.length; i++) {
+      Unit u = ((JimpleStatement) statements[i]).getDelegate();
+      succOffsets[i] = succCount;
       for (Unit succ : graph.getSuccsOf(u)) {
-        Statement succStmt = JimpleStatement.create((Stmt) succ, method);
-        succsOfCache.put(first, succStmt);
+        succCount = addNeighbor(succTargets, succOffsets[i], succCount, positions.get(succ));
       }
-
+      predOffsets[i] = predCount;
       for (Unit pred : graph.getPredsOf(u)) {
-        Statement predStmt = JimpleStatement.create((Stmt) pred, method);
-        predsOfCache.put(first, predStmt);
+        predCount = addNeighbor(predTargets, predOffsets[i], predCount, positions.get(pred));
       }
     }
+    succOffsets[statements.length] = succCount;
+    predOffsets[statements.length] = predCount;
+    succTargets = Arrays.copyOf(succTargets, succCount);
+    predTargets = Arrays.copyOf(predTargets, predCount);
+
+    succEdges = new Edge[succCount];
+    for (int i = 0; i < statements.length; i++) {
+      for (int j = succOffsets[i]; j < succOffsets[i + 1]; j++) {
+        succEdges[j] = new Edge(statements[i], statements[succTargets[j]]);
+      }
+    }
+  }
+
+  /** Adds the neighbor to the row starting at offset unless present, returns the new size. */
+  private static int addNeighbor(int[] targets, int offset, int size, int neighbor) {
+    for (int j = offset; j < size; j++) {
+      if (targets[j] == neighbor) {
+        return size;
+      }
+    }
+    targets[size] = neighbor;
+    return size + 1;
   }
 
   public Collection<Statement> getEndPoints() {
@@ -79,16 +147,89 @@ public class JimpleControlFlowGraph implements ControlFlowGraph {
 
   public Collection<Statement> getSuccsOf(Statement curr) {
     buildCache();
-    return succsOfCache.get(curr);
+    int i = indexOf(curr);
+    if (i < 0) {
+      return Collections.emptyList();
+    }
+    return new Neighbors(succTargets, succOffsets[i], succOffsets[i + 1]);
   }
 
   public Collection<Statement> getPredsOf(Statement curr) {
     buildCache();
-    return predsOfCache.get(curr);
+    int i = indexOf(curr);
+    if (i < 0) {
+      return Collections.emptyList();
+    }
+    return new Neighbors(predTargets, predOffsets[i], predOffsets[i + 1]);
   }
 
   public List<Statement> getStatements() {
     buildCache();
-    return statements;
+    return statementList;
+  }
+
+  @Override
+  public Edge getEdge(Statement start, Statement target) {
+    buildCache();
+    int i = indexOf(start);
+    if (i >= 0) {
+      for (int j = succOffsets[i]; j < succOffsets[i + 1]; j++) {
+        if (statements[succTargets[j]] == target) {
+          return succEdges[j];
+        }
+      }
+    }
+    return new Edge(start, target);
+  }
+
+  /**
+   * The position of the statement in the unit chain, or -1 if it is not part of this graph. The
+   * statements of the method index carry their position, such that no hashing is required.
+   */
+  private int indexOf(Statement stmt) {
+    if (positionOf != null) {
+      Integer i = positionOf.get(stmt);
+      return i == null ? -1 : i;
+    }
+    if (!(stmt instanceof JimpleStatement)) {
+      return -1;
+    }
+    int i = ((JimpleStatement) stmt).getIndexInBody();
+    if (i >= 0 && i < statements.length && statements[i].equals(stmt)) {
+      return i;
+    }
+    // An equal statement that was created outside of the method index
+    JimpleStatement canonical =
+        method.getIndex().getStatement(((JimpleStatement) stmt).getDelegate());
+    i = canonical.getIndexInBody();
+    if (canonical != stmt && i >= 0 && i < statements.length && statements[i].equals(stmt)) {
+      return i;
+    }
+    return -1;
+  }
+
+  private class Neighbors extends AbstractList<Statement> {
+    private final int[] targets;
+    private final int from;
+    private final int to;
+
+    Neighbors(int[] targets, int from, int to) {
+      this.targets = targets;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Statement get(int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return statements[targets[from + index]];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
   }
 }
@@ -27,24 +27,29 @@ public class JimpleIfStatement implements IfStatement {
     return JimpleStatement.create(delegate.getTarget(), (JimpleMethod) method);
   }
 
+  private Val val(Value value) {
+    if (method instanceof JimpleMethod) {
+      return ((JimpleMethod) method).getIndex().getVal(value);
+    }
+    return new JimpleVal(value, method);
+  }
+
   @Override
   public Evaluation evaluate(Val val) {
     if (delegate.getCondition() instanceof EqExpr) {
       EqExpr eqExpr = (EqExpr) delegate.getCondition();
       Value op1 = eqExpr.getOp1();
       Value op2 = eqExpr.getOp2();
-      if ((val.equals(new JimpleVal(op1, method)) && op2.equals(NullConstant.v())
-          || (val.equals(new JimpleVal(op2, method)) && op2.equals(NullConstant.v())))) {
+      if ((val.equals(val(op1)) && op2.equals(NullConstant.v())
+          || (val.equals(val(op2)) && op2.equals(NullConstant.v())))) {
         return Evaluation.TRUE;
       }
-      if ((val.equals(new JimpleVal(IntConstant.v(0), method)) && op2.equals(IntConstant.v(0))
-          || (val.equals(new JimpleVal(IntConstant.v(1), method))
-              && op2.equals(IntConstant.v(1))))) {
+      if ((val.equals(val(IntConstant.v(0))) && op2.equals(IntConstant.v(0))
+          || (val.equals(val(IntConstant.v(1))) && op2.equals(IntConstant.v(1))))) {
         return Evaluation.TRUE;
       }
-      if ((val.equals(new JimpleVal(IntConstant.v(1), method)) && op2.equals(IntConstant.v(0))
-          || (val.equals(new JimpleVal(IntConstant.v(0), method))
-              && op2.equals(IntConstant.v(1))))) {
+      if ((val.equals(val(IntConstant.v(1))) && op2.equals(IntConstant.v(0))
+          || (val.equals(val(IntConstant.v(0))) && op2.equals(IntConstant.v(1))))) {
         return Evaluation.FALSE;
       }
     }
@@ -53,18 +58,16 @@ public class JimpleIfStatement implements IfStatement {
       NeExpr eqExpr = (NeExpr) delegate.getCondition();
       Value op1 = eqExpr.getOp1();
       Value op2 = eqExpr.getOp2();
-      if ((val.equals(new JimpleVal(op1, method)) && op2.equals(NullConstant.v())
-          || (val.equals(new JimpleVal(op2, method)) && op2.equals(NullConstant.v())))) {
+      if ((val.equals(val(op1)) && op2.equals(NullConstant.v())
+          || (val.equals(val(op2)) && op2.equals(NullConstant.v())))) {
         return Evaluation.FALSE;
       }
-      if ((val.equals(new JimpleVal(IntConstant.v(0), method)) && op2.equals(IntConstant.v(0))
-          || (val.equals(new JimpleVal(IntConstant.v(1), method))
-              && op2.equals(IntConstant.v(1))))) {
+      if ((val.equals(val(IntConstant.v(0))) && op2.equals(IntConstant.v(0))
+          || (val.equals(val(IntConstant.v(1))) && op2.equals(IntConstant.v(1))))) {
         return Evaluation.FALSE;
       }
-      if ((val.equals(new JimpleVal(IntConstant.v(1), method)) && op2.equals(IntConstant.v(0))
-          || (val.equals(new JimpleVal(IntConstant.v(0), method))
-              && op2.equals(IntConstant.v(1))))) {
+      if ((val.equals(val(IntConstant.v(1))) && op2.equals(IntConstant.v(0))
+          || (val.equals(val(IntConstant.v(0))) && op2.equals(IntConstant.v(1))))) {
         return Evaluation.TRUE;
       }
     }
@@ -77,7 +80,7 @@ public class JimpleIfStatement implements IfStatement {
       ConditionExpr c = ((ConditionExpr) delegate.getCondition());
       Value op1 = c.getOp1();
       Value op2 = c.getOp2();
-      return val.equals(new JimpleVal(op1, method)) || val.equals(new JimpleVal(op2, method));
+      return val.equals(val(op1)) || val.equals(val(op2));
     }
     return false;
   }
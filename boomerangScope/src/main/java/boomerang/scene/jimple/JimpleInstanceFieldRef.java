@@ -15,10 +15,10 @@ public class JimpleInstanceFieldRef implements InstanceFieldRef {
   }
 
   public Val getBase() {
-    return new JimpleVal(delegate.getBase(), m);
+    return m.getIndex().getVal(delegate.getBase());
   }
 
   public Field getField() {
-    return new JimpleField(delegate.getField());
+    return m.getIndex().getField(delegate.getField());
   }
 }
@@ -7,6 +7,7 @@ import boomerang.scene.Val;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.List;
+import soot.Value;
 import soot.jimple.InstanceInvokeExpr;
 import soot.jimple.SpecialInvokeExpr;
 import soot.jimple.StaticInvokeExpr;
@@ -15,7 +16,7 @@ public class JimpleInvokeExpr implements InvokeExpr {
 
   private soot.jimple.InvokeExpr delegate;
   private Method m;
-  private ArrayList<Val> cache;
+  private volatile ArrayList<Val> cache;
 
   public JimpleInvokeExpr(soot.jimple.InvokeExpr ive, Method m) {
     this.delegate = ive;
@@ -26,17 +27,20 @@ public class JimpleInvokeExpr implements InvokeExpr {
     if (delegate.getArg(index) == null) {
       return Val.zero();
     }
-    return new JimpleVal(delegate.getArg(index), m);
+    return val(delegate.getArg(index));
   }
 
   public List<Val> getArgs() {
-    if (cache == null) {
-      cache = Lists.newArrayList();
+    // Built aside and published at once, invoke expressions are shared by their statement
+    ArrayList<Val> res = cache;
+    if (res == null) {
+      res = Lists.newArrayList();
       for (int i = 0; i < delegate.getArgCount(); i++) {
-        cache.add(getArg(i));
+        res.add(getArg(i));
       }
+      cache = res;
     }
-    return cache;
+    return res;
   }
 
   public boolean isInstanceInvokeExpr() {
@@ -45,7 +49,14 @@ public class JimpleInvokeExpr implements InvokeExpr {
 
   public Val getBase() {
     InstanceInvokeExpr iie = (InstanceInvokeExpr) delegate;
-    return new JimpleVal(iie.getBase(), m);
+    return val(iie.getBase());
+  }
+
+  private Val val(Value value) {
+    if (m instanceof JimpleMethod) {
+      return ((JimpleMethod) m).getIndex().getVal(value);
+    }
+    return new JimpleVal(value, m);
   }
 
   public DeclaredMethod getMethod() {
@@ -19,9 +19,11 @@ public class JimpleMethod extends Method {
   private final SootMethod delegate;
 
   private static Interner<JimpleMethod> INTERNAL_POOL = Interners.newWeakInterner();
-  private ControlFlowGraph cfg;
-  private List<Val> parameterLocalCache;
-  private Set<Val> localCache;
+  // Lazily computed, methods are shared between solvers that may run concurrently
+  private volatile ControlFlowGraph cfg;
+  private volatile JimpleMethodIndex index;
+  private volatile List<Val> parameterLocalCache;
+  private volatile Set<Val> localCache;
 
   private JimpleMethod(SootMethod m) {
     this.delegate = m;
@@ -85,25 +87,27 @@ public class JimpleMethod extends Method {
 
   public Set<Val> getLocals() {
     if (localCache == null) {
-      localCache = Sets.newHashSet();
+      Set<Val> res = Sets.newHashSet();
       Chain<Local> locals = delegate.getActiveBody().getLocals();
       for (Local l : locals) {
-        localCache.add(new JimpleVal(l, this));
+        res.add(getIndex().getVal(l));
       }
+      localCache = res;
     }
     return localCache;
   }
 
   public Val getThisLocal() {
-    return new JimpleVal(delegate.getActiveBody().getThisLocal(), this);
+    return getIndex().getVal(delegate.getActiveBody().getThisLocal());
   }
 
   public List<Val> getParameterLocals() {
     if (parameterLocalCache == null) {
-      parameterLocalCache = Lists.newArrayList();
+      List<Val> res = Lists.newArrayList();
       for (Local v : delegate.getActiveBody().getParameterLocals()) {
-        parameterLocalCache.add(new JimpleVal(v, this));
+        res.add(getIndex().getVal(v));
       }
+      parameterLocalCache = res;
     }
     return parameterLocalCache;
   }
@@ -125,10 +129,32 @@ public class JimpleMethod extends Method {
   }
 
   public ControlFlowGraph getControlFlowGraph() {
-    if (cfg == null) {
-      cfg = new JimpleControlFlowGraph(this);
+    ControlFlowGraph res = cfg;
+    if (res == null) {
+      synchronized (this) {
+        res = cfg;
+        if (res == null) {
+          res = new JimpleControlFlowGraph(this);
+          cfg = res;
+        }
+      }
+    }
+    return res;
+  }
+
+  /** Builds the index on first access, which must follow the {@link BoomerangPretransformer}. */
+  JimpleMethodIndex getIndex() {
+    JimpleMethodIndex res = index;
+    if (res == null) {
+      synchronized (this) {
+        res = index;
+        if (res == null) {
+          res = new JimpleMethodIndex(this);
+          index = res;
+        }
+      }
     }
-    return cfg;
+    return res;
   }
 
   public String getSubSignature() {
@@ -0,0 +1,77 @@
+package boomerang.scene.jimple;
+
+import com.google.common.collect.Maps;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import soot.Body;
+import soot.Local;
+import soot.SootField;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.FieldRef;
+import soot.jimple.Stmt;
+
+/**
+ * The canonical statements, values and fields of a {@link JimpleMethod}. The index is built once
+ * from the active body of the method and is not modified afterwards, such that it can be shared by
+ * concurrently running solvers. Wrappers of the same Soot object are identical, which spares the
+ * allocations of re-wrapping on each access and lets most equality checks succeed on reference
+ * comparison. Objects that are not part of the body at the time the index is built are wrapped
+ * freshly.
+ *
+ * <p>The index captures the body as it is when the method is first accessed, it must therefore
+ * only be built after the {@link BoomerangPretransformer} has rewritten the bodies. Units the
+ * pretransformer adds later would not be part of the index.
+ */
+class JimpleMethodIndex {
+
+  private final JimpleMethod method;
+  private final Map<Value, JimpleVal> vals = Maps.newHashMap();
+  private final Map<SootField, JimpleField> fields = Maps.newHashMap();
+  private final Map<Unit, JimpleStatement> statements;
+
+  JimpleMethodIndex(JimpleMethod method) {
+    assert BoomerangPretransformer.v().isApplied()
+        : "Method index of " + method + " built before the BoomerangPretransformer was applied";
+    this.method = method;
+    Body body = method.getDelegate().getActiveBody();
+    for (Local l : body.getLocals()) {
+      vals.put(l, new JimpleVal(l, method));
+    }
+    for (Unit u : body.getUnits()) {
+      for (ValueBox box : u.getUseAndDefBoxes()) {
+        Value v = box.getValue();
+        if (!vals.containsKey(v)) {
+          vals.put(v, new JimpleVal(v, method));
+        }
+        if (v instanceof FieldRef) {
+          SootField f = ((FieldRef) v).getField();
+          if (!fields.containsKey(f)) {
+            fields.put(f, new JimpleField(f));
+          }
+        }
+      }
+    }
+    // Statements resolve their operands by the index, hence they are created last
+    statements = new IdentityHashMap<>(body.getUnits().size());
+    for (Unit u : body.getUnits()) {
+      statements.put(u, new JimpleStatement((Stmt) u, method, this, statements.size()));
+    }
+  }
+
+  JimpleStatement getStatement(Stmt stmt) {
+    JimpleStatement res = statements.get(stmt);
+    return res != null ? res : new JimpleStatement(stmt, method, this, -1);
+  }
+
+  JimpleVal getVal(Value v) {
+    JimpleVal res = vals.get(v);
+    return res != null ? res : new JimpleVal(v, method);
+  }
+
+  JimpleField getField(SootField f) {
+    JimpleField res = fields.get(f);
+    return res != null ? res : new JimpleField(f);
+  }
+}
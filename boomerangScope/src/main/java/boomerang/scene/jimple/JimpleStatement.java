@@ -21,6 +21,8 @@ import boomerang.scene.StaticFieldVal;
 import boomerang.scene.Val;
 import com.google.common.base.Joiner;
 import java.util.Collection;
+import soot.SootField;
+import soot.Value;
 import soot.jimple.ArrayRef;
 import soot.jimple.AssignStmt;
 import soot.jimple.CastExpr;
@@ -29,6 +31,7 @@ import soot.jimple.IdentityStmt;
 import soot.jimple.IfStmt;
 import soot.jimple.InstanceFieldRef;
 import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.IntConstant;
 import soot.jimple.NewExpr;
 import soot.jimple.NewMultiArrayExpr;
 import soot.jimple.ReturnStmt;
@@ -40,22 +43,141 @@ import soot.tagkit.SourceLnPosTag;
 
 public class JimpleStatement extends Statement {
 
+  private static final int ASSIGN = 1;
+  private static final int IDENTITY = 1 << 1;
+  private static final int INVOKE = 1 << 2;
+  private static final int RETURN = 1 << 3;
+  private static final int THROW = 1 << 4;
+  private static final int IF = 1 << 5;
+  private static final int FIELD_STORE = 1 << 6;
+  private static final int FIELD_LOAD = 1 << 7;
+  private static final int STATIC_FIELD_STORE = 1 << 8;
+  private static final int STATIC_FIELD_LOAD = 1 << 9;
+  private static final int ARRAY_STORE = 1 << 10;
+  private static final int ARRAY_LOAD = 1 << 11;
+  private static final int CAST = 1 << 12;
+  private static final int STRING_ALLOCATION = 1 << 13;
+  private static final int MULTI_ARRAY_ALLOCATION = 1 << 14;
+  private static final int CATCH = 1 << 15;
+
   // Wrapper for stmt so we know the method
   private final Stmt delegate;
   private final Method method;
-
-  private JimpleStatement(Stmt delegate, Method m) {
+  private final int kind;
+  // Position in the unit chain of the method, -1 if the statement is not part of the method index
+  private final int indexInBody;
+  // Operands, resolved once at construction. Null if the statement has no such operand.
+  private final Val leftOp;
+  private final Val rightOp;
+  private final Val returnOp;
+  private final InvokeExpr invokeExpr;
+  private final IfStatement ifStmt;
+  private final Pair<Val, Field> fieldStore;
+  private final Pair<Val, Field> fieldLoad;
+  private final Pair<Val, Integer> arrayBase;
+  private final Field writtenField;
+  private final StaticFieldVal staticField;
+
+  JimpleStatement(Stmt delegate, Method m, JimpleMethodIndex index, int indexInBody) {
     super(m);
     if (delegate == null) {
       throw new RuntimeException("Invalid, parameter may not be null");
     }
     this.delegate = delegate;
     this.method = m;
+    this.indexInBody = indexInBody;
+    this.kind = classify(delegate);
+    if (delegate instanceof AssignStmt) {
+      AssignStmt as = (AssignStmt) delegate;
+      leftOp = val(as.getLeftOp(), index);
+      rightOp = val(as.getRightOp(), index);
+    } else {
+      leftOp = null;
+      rightOp = null;
+    }
+    returnOp = delegate instanceof ReturnStmt ? val(((ReturnStmt) delegate).getOp(), index) : null;
+    invokeExpr = is(INVOKE) ? new JimpleInvokeExpr(delegate.getInvokeExpr(), m) : null;
+    ifStmt = is(IF) ? new JimpleIfStatement((IfStmt) delegate, m) : null;
+    fieldStore = is(FIELD_STORE) ? instanceFieldRef(leftOp, index) : null;
+    fieldLoad = is(FIELD_LOAD) ? instanceFieldRef(rightOp, index) : null;
+    if (is(ARRAY_LOAD) || is(ARRAY_STORE)) {
+      ArrayRef ref = (ArrayRef) ((JimpleVal) (is(ARRAY_LOAD) ? rightOp : leftOp)).getDelegate();
+      int i = ref.getIndex() instanceof IntConstant ? ((IntConstant) ref.getIndex()).value : -1;
+      arrayBase = new Pair<>(val(ref.getBase(), index), i);
+    } else {
+      arrayBase = null;
+    }
+    if (is(STATIC_FIELD_LOAD) || is(STATIC_FIELD_STORE)) {
+      StaticFieldRef ref =
+          (StaticFieldRef) ((JimpleVal) (is(STATIC_FIELD_LOAD) ? rightOp : leftOp)).getDelegate();
+      JimpleField field = field(ref.getField(), index);
+      staticField = new JimpleStaticFieldVal(field, m);
+      writtenField = is(STATIC_FIELD_STORE) ? field : null;
+    } else {
+      staticField = null;
+      if (is(FIELD_STORE)) {
+        writtenField = fieldStore.getY();
+      } else if (is(ARRAY_STORE)) {
+        writtenField = Field.array(arrayBase.getY());
+      } else {
+        writtenField = null;
+      }
+    }
   }
 
   public static Statement create(Stmt delegate, Method m) {
-    JimpleStatement jimpleStatement = new JimpleStatement(delegate, m);
-    return jimpleStatement;
+    if (m instanceof JimpleMethod) {
+      return ((JimpleMethod) m).getIndex().getStatement(delegate);
+    }
+    return new JimpleStatement(delegate, m, null, -1);
+  }
+
+  int getIndexInBody() {
+    return indexInBody;
+  }
+
+  private static int classify(Stmt s) {
+    int kind = 0;
+    if (s.containsInvokeExpr()) kind |= INVOKE;
+    if (s instanceof ReturnStmt) kind |= RETURN;
+    if (s instanceof ThrowStmt) kind |= THROW;
+    if (s instanceof IfStmt) kind |= IF;
+    if (s instanceof IdentityStmt) {
+      kind |= IDENTITY;
+      if (((IdentityStmt) s).getRightOp() instanceof CaughtExceptionRef) kind |= CATCH;
+    }
+    if (s instanceof AssignStmt) {
+      kind |= ASSIGN;
+      Value left = ((AssignStmt) s).getLeftOp();
+      Value right = ((AssignStmt) s).getRightOp();
+      if (left instanceof InstanceFieldRef) kind |= FIELD_STORE;
+      if (left instanceof StaticFieldRef) kind |= STATIC_FIELD_STORE;
+      if (left instanceof ArrayRef) kind |= ARRAY_STORE;
+      if (right instanceof InstanceFieldRef) kind |= FIELD_LOAD;
+      if (right instanceof StaticFieldRef) kind |= STATIC_FIELD_LOAD;
+      if (right instanceof ArrayRef) kind |= ARRAY_LOAD;
+      if (right instanceof CastExpr) kind |= CAST;
+      if (right instanceof StringConstant) kind |= STRING_ALLOCATION;
+      if (right instanceof NewMultiArrayExpr) kind |= MULTI_ARRAY_ALLOCATION;
+    }
+    return kind;
+  }
+
+  private boolean is(int flag) {
+    return (kind & flag) != 0;
+  }
+
+  private Val val(Value v, JimpleMethodIndex index) {
+    return index != null ? index.getVal(v) : new JimpleVal(v, method);
+  }
+
+  private static JimpleField field(SootField f, JimpleMethodIndex index) {
+    return index != null ? index.getField(f) : new JimpleField(f);
+  }
+
+  private Pair<Val, Field> instanceFieldRef(Val ref, JimpleMethodIndex index) {
+    InstanceFieldRef ifr = (InstanceFieldRef) ((JimpleVal) ref).getDelegate();
+    return new Pair<>(val(ifr.getBase(), index), field(ifr.getField(), index));
   }
 
   @Override
@@ -105,30 +227,18 @@ public class JimpleStatement extends Statement {
   }
 
   public boolean containsStaticFieldAccess() {
-    if (delegate instanceof AssignStmt) {
-      AssignStmt assignStmt = (AssignStmt) delegate;
-      return assignStmt.getLeftOp() instanceof StaticFieldRef
-          || assignStmt.getRightOp() instanceof StaticFieldRef;
-    }
-    return false;
+    return is(STATIC_FIELD_LOAD) || is(STATIC_FIELD_STORE);
   }
 
   public boolean containsInvokeExpr() {
-    return delegate.containsInvokeExpr();
+    return is(INVOKE);
   }
 
   public Field getWrittenField() {
-    AssignStmt as = (AssignStmt) delegate;
-    if (as.getLeftOp() instanceof StaticFieldRef) {
-      StaticFieldRef staticFieldRef = (StaticFieldRef) as.getLeftOp();
-      return new JimpleField(staticFieldRef.getField());
+    if (writtenField == null) {
+      throw new RuntimeException("Not a field or array write: " + this);
     }
-
-    if (as.getLeftOp() instanceof ArrayRef) {
-      return Field.array(getArrayBase().getY());
-    }
-    InstanceFieldRef ifr = (InstanceFieldRef) as.getLeftOp();
-    return new JimpleField(ifr.getField());
+    return writtenField;
   }
 
   public boolean isFieldWriteWithBase(Val base) {
@@ -144,9 +254,7 @@ public class JimpleStatement extends Statement {
   }
 
   public Field getLoadedField() {
-    AssignStmt as = (AssignStmt) delegate;
-    InstanceFieldRef ifr = (InstanceFieldRef) as.getRightOp();
-    return new JimpleField(ifr.getField());
+    return fieldLoad.getY();
   }
 
   public boolean isFieldLoadWithBase(Val base) {
@@ -158,19 +266,17 @@ public class JimpleStatement extends Statement {
 
   @Override
   public boolean isAssign() {
-    return delegate instanceof AssignStmt;
+    return is(ASSIGN);
   }
 
   public Val getLeftOp() {
     assert isAssign();
-    AssignStmt assignStmt = (AssignStmt) delegate;
-    return new JimpleVal(assignStmt.getLeftOp(), method);
+    return leftOp;
   }
 
   public Val getRightOp() {
     assert isAssign();
-    AssignStmt assignStmt = (AssignStmt) delegate;
-    return new JimpleVal(assignStmt.getRightOp(), method);
+    return rightOp;
   }
 
   public boolean isInstanceOfStatement(Val fact) {
@@ -184,69 +290,62 @@ public class JimpleStatement extends Statement {
   }
 
   public boolean isCast() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getRightOp() instanceof CastExpr;
+    return is(CAST);
   }
 
   public InvokeExpr getInvokeExpr() {
-    return new JimpleInvokeExpr(delegate.getInvokeExpr(), method);
+    // Soot throws for statements without an invoke expression
+    return invokeExpr != null ? invokeExpr : new JimpleInvokeExpr(delegate.getInvokeExpr(), method);
   }
 
   public boolean isReturnStmt() {
-    return delegate instanceof ReturnStmt;
+    return is(RETURN);
   }
 
   public boolean isThrowStmt() {
-    return delegate instanceof ThrowStmt;
+    return is(THROW);
   }
 
   public boolean isIfStmt() {
-    return delegate instanceof IfStmt;
+    return is(IF);
   }
 
   public IfStatement getIfStmt() {
-    return new JimpleIfStatement((IfStmt) delegate, method);
+    return ifStmt != null ? ifStmt : new JimpleIfStatement((IfStmt) delegate, method);
   }
 
   // TODO Rename to getReturnOp();
   public Val getReturnOp() {
     assert isReturnStmt();
-    ReturnStmt assignStmt = (ReturnStmt) delegate;
-    return new JimpleVal(assignStmt.getOp(), method);
+    return returnOp;
   }
 
   public boolean isMultiArrayAllocation() {
-    return (delegate instanceof AssignStmt)
-        && ((AssignStmt) delegate).getRightOp() instanceof NewMultiArrayExpr;
+    return is(MULTI_ARRAY_ALLOCATION);
   }
 
   public boolean isStringAllocation() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getRightOp() instanceof StringConstant;
+    return is(STRING_ALLOCATION);
   }
 
   public boolean isFieldStore() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getLeftOp() instanceof InstanceFieldRef;
+    return is(FIELD_STORE);
   }
 
   public boolean isArrayStore() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getLeftOp() instanceof ArrayRef;
+    return is(ARRAY_STORE);
   }
 
   public boolean isArrayLoad() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getRightOp() instanceof ArrayRef;
+    return is(ARRAY_LOAD);
   }
 
   public boolean isFieldLoad() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getRightOp() instanceof InstanceFieldRef;
+    return is(FIELD_LOAD);
   }
 
   public boolean isIdentityStmt() {
-    return delegate instanceof IdentityStmt;
+    return is(IDENTITY);
   }
 
   public Stmt getDelegate() {
@@ -396,43 +495,30 @@ public class JimpleStatement extends Statement {
 
   @Override
   public Pair<Val, Field> getFieldStore() {
-    AssignStmt ins = (AssignStmt) delegate;
-    soot.jimple.InstanceFieldRef val = (soot.jimple.InstanceFieldRef) ins.getLeftOp();
-    return new Pair<Val, Field>(
-        new JimpleVal(val.getBase(), method), new JimpleField(val.getField()));
+    return fieldStore;
   }
 
   @Override
   public Pair<Val, Field> getFieldLoad() {
-    AssignStmt ins = (AssignStmt) delegate;
-    soot.jimple.InstanceFieldRef val = (soot.jimple.InstanceFieldRef) ins.getRightOp();
-    return new Pair<Val, Field>(
-        new JimpleVal(val.getBase(), method), new JimpleField(val.getField()));
+    return fieldLoad;
   }
 
   @Override
   public boolean isStaticFieldLoad() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getRightOp() instanceof StaticFieldRef;
+    return is(STATIC_FIELD_LOAD);
   }
 
   @Override
   public boolean isStaticFieldStore() {
-    return delegate instanceof AssignStmt
-        && ((AssignStmt) delegate).getLeftOp() instanceof StaticFieldRef;
+    return is(STATIC_FIELD_STORE);
   }
 
   @Override
   public StaticFieldVal getStaticField() {
-    StaticFieldRef v;
-    if (isStaticFieldLoad()) {
-      v = (StaticFieldRef) ((AssignStmt) delegate).getRightOp();
-    } else if (isStaticFieldStore()) {
-      v = (StaticFieldRef) ((AssignStmt) delegate).getLeftOp();
-    } else {
+    if (staticField == null) {
       throw new RuntimeException("Error");
     }
-    return new JimpleStaticFieldVal(new JimpleField(v.getField()), method);
+    return staticField;
   }
 
   @Override
@@ -447,15 +533,10 @@ public class JimpleStatement extends Statement {
 
   @Override
   public Pair<Val, Integer> getArrayBase() {
-    if (isArrayLoad()) {
-      Val rightOp = getRightOp();
-      return rightOp.getArrayBase();
-    }
-    if (isArrayStore()) {
-      Val rightOp = getLeftOp();
-      return rightOp.getArrayBase();
+    if (arrayBase == null) {
+      throw new RuntimeException("Dead code");
     }
-    throw new RuntimeException("Dead code");
+    return arrayBase;
   }
 
   @Override
@@ -490,8 +571,7 @@ public class JimpleStatement extends Statement {
 
   @Override
   public boolean isCatchStmt() {
-    return delegate instanceof IdentityStmt
-        && ((IdentityStmt) delegate).getRightOp() instanceof CaughtExceptionRef;
+    return is(CATCH);
   }
 
   public boolean isUnitializedFieldStatement() {
@@ -130,7 +130,14 @@ public class JimpleVal extends Val {
 
   public Val getCastOp() {
     CastExpr cast = (CastExpr) v;
-    return new JimpleVal(cast.getOp(), m);
+    return val(cast.getOp());
+  }
+
+  private Val val(Value value) {
+    if (m instanceof JimpleMethod) {
+      return ((JimpleMethod) m).getIndex().getVal(value);
+    }
+    return new JimpleVal(value, m);
   }
 
   public boolean isInstanceFieldRef() {
@@ -143,7 +150,11 @@ public class JimpleVal extends Val {
 
   public StaticFieldVal getStaticField() {
     StaticFieldRef val = (StaticFieldRef) v;
-    return new JimpleStaticFieldVal(new JimpleField(val.getField()), m);
+    JimpleField field =
+        m instanceof JimpleMethod
+            ? ((JimpleMethod) m).getIndex().getField(val.getField())
+            : new JimpleField(val.getField());
+    return new JimpleStaticFieldVal(field, m);
   }
 
   public boolean isArrayRef() {
@@ -153,7 +164,7 @@ public class JimpleVal extends Val {
   @Override
   public Pair<Val, Integer> getArrayBase() {
     return new Pair<>(
-        new JimpleVal(((ArrayRef) v).getBase(), m),
+        val(((ArrayRef) v).getBase()),
         ((ArrayRef) v).getIndex() instanceof IntConstant
             ? ((IntConstant) ((ArrayRef) v).getIndex()).value
             : -1);
@@ -165,7 +176,7 @@ public class JimpleVal extends Val {
 
   public Val getInstanceOfOp() {
     InstanceOfExpr val = (InstanceOfExpr) v;
-    return new JimpleVal(val.getOp(), m);
+    return val(val.getOp());
   }
 
   public boolean isLengthExpr() {
@@ -174,7 +185,7 @@ public class JimpleVal extends Val {
 
   public Val getLengthOp() {
     LengthExpr val = (LengthExpr) v;
-    return new JimpleVal(val.getOp(), m);
+    return val(val.getOp());
   }
 
   public boolean isIntConstant() {
@@ -2,27 +2,222 @@ package boomerang.scene.jimple;
 
 import boomerang.scene.CallGraph;
 import boomerang.scene.Statement;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import soot.Scene;
 import soot.SootMethod;
+import soot.ValueBox;
+import soot.jimple.FieldRef;
 
+/**
+ * The call graph Soot computed. The edges are partitioned by their source method and the call
+ * sites and targets of each partition are wrapped concurrently, which is where most of the
+ * conversion time goes as wrapping a call site indexes the body of its method. The wrapped edges
+ * are then added in the iteration order of Soot's call graph. The Scene is not thread-safe, all
+ * references that indexing a body resolves are therefore resolved on the calling thread first.
+ *
+ * <p>Once converted, the call graph is compacted into a read-optimized adjacency, see {@link
+ * #compact()}. The precomputed call graph is only read by the solvers, the call graph resolved
+ * on-the-fly is a separate instance.
+ */
 public class SootCallGraph extends CallGraph {
   Logger LOGGER = LoggerFactory.getLogger(SootCallGraph.class);
+  private final ConversionStats stats;
 
   public SootCallGraph() {
-    soot.jimple.toolkits.callgraph.CallGraph callGraph = Scene.v().getCallGraph();
-    for (soot.jimple.toolkits.callgraph.Edge e : callGraph) {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public SootCallGraph(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+    }
+    Stopwatch watch = Stopwatch.createStarted();
+    Map<SootMethod, List<soot.jimple.toolkits.callgraph.Edge>> edgesBySource =
+        Maps.newLinkedHashMap();
+    int sootEdges = 0;
+    for (soot.jimple.toolkits.callgraph.Edge e : Scene.v().getCallGraph()) {
+      sootEdges++;
       if (e.src().hasActiveBody() && e.tgt().hasActiveBody() && e.srcStmt() != null) {
-        Statement callSite = JimpleStatement.create(e.srcStmt(), JimpleMethod.of(e.src()));
-        if (callSite.containsInvokeExpr()) {
-          LOGGER.trace("Call edge from {} to target method {}", callSite, e.tgt());
-          this.addEdge(new Edge(callSite, JimpleMethod.of(e.tgt())));
-        }
+        edgesBySource.computeIfAbsent(e.src(), m -> Lists.newArrayList()).add(e);
+      }
+    }
+    if (parallelism > 1) {
+      resolveFieldReferences(edgesBySource.keySet());
+    }
+    List<Edge[]> converted = convert(edgesBySource, parallelism);
+    for (Edge[] edges : converted) {
+      for (Edge edge : edges) {
+        LOGGER.trace("Call edge from {} to target method {}", edge.src(), edge.tgt());
+        this.addEdge(edge);
       }
     }
     for (SootMethod m : Scene.v().getEntryPoints()) {
       if (m.hasActiveBody()) this.addEntryPoint(JimpleMethod.of(m));
     }
+    long conversionMillis = watch.elapsed(TimeUnit.MILLISECONDS);
+    compact();
+    stats =
+        new ConversionStats(
+            sootEdges,
+            size(),
+            edgesBySource.size(),
+            parallelism,
+            conversionMillis,
+            watch.elapsed(TimeUnit.MILLISECONDS) - conversionMillis,
+            getEstimatedAdjacencyBytes());
+    LOGGER.debug("{}", stats);
+  }
+
+  /** The metrics of the conversion of Soot's call graph. */
+  public ConversionStats getConversionStats() {
+    return stats;
+  }
+
+  /**
+   * Resolving a field reference may add a phantom field to the Scene. Once resolved, the concurrent
+   * indexing of the callers only reads from the Scene.
+   */
+  private static void resolveFieldReferences(Collection<SootMethod> callers) {
+    for (SootMethod m : callers) {
+      for (ValueBox box : m.getActiveBody().getUseAndDefBoxes()) {
+        if (box.getValue() instanceof FieldRef) {
+          ((FieldRef) box.getValue()).getField();
+        }
+      }
+    }
+  }
+
+  private static List<Edge[]> convert(
+      Map<SootMethod, List<soot.jimple.toolkits.callgraph.Edge>> edgesBySource, int parallelism) {
+    List<Edge[]> converted = Lists.newArrayListWithCapacity(edgesBySource.size());
+    if (parallelism == 1) {
+      for (Map.Entry<SootMethod, List<soot.jimple.toolkits.callgraph.Edge>> e :
+          edgesBySource.entrySet()) {
+        converted.add(convert(e.getKey(), e.getValue()));
+      }
+      return converted;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<Future<Edge[]>> futures = Lists.newArrayListWithCapacity(edgesBySource.size());
+      for (Map.Entry<SootMethod, List<soot.jimple.toolkits.callgraph.Edge>> e :
+          edgesBySource.entrySet()) {
+        futures.add(pool.submit((Callable<Edge[]>) () -> convert(e.getKey(), e.getValue())));
+      }
+      for (Future<Edge[]> future : futures) {
+        converted.add(future.get());
+      }
+      return converted;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while converting the call graph", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Converting the call graph failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Wraps the call edges out of one method, edges whose call site has no invoke are dropped. */
+  private static Edge[] convert(
+      SootMethod src, List<soot.jimple.toolkits.callgraph.Edge> sootEdges) {
+    JimpleMethod caller = JimpleMethod.of(src);
+    List<Edge> edges = Lists.newArrayListWithCapacity(sootEdges.size());
+    for (soot.jimple.toolkits.callgraph.Edge e : sootEdges) {
+      Statement callSite = JimpleStatement.create(e.srcStmt(), caller);
+      if (callSite.containsInvokeExpr()) {
+        edges.add(new Edge(callSite, JimpleMethod.of(e.tgt())));
+      }
+    }
+    return edges.toArray(new Edge[0]);
+  }
+
+  /** The edge counts, times and memory of the conversion of Soot's call graph. */
+  public static class ConversionStats {
+    private final int sootEdges;
+    private final int edges;
+    private final int callers;
+    private final int parallelism;
+    private final long conversionMillis;
+    private final long compactionMillis;
+    private final long adjacencyBytes;
+
+    private ConversionStats(
+        int sootEdges,
+        int edges,
+        int callers,
+        int parallelism,
+        long conversionMillis,
+        long compactionMillis,
+        long adjacencyBytes) {
+      this.sootEdges = sootEdges;
+      this.edges = edges;
+      this.callers = callers;
+      this.parallelism = parallelism;
+      this.conversionMillis = conversionMillis;
+      this.compactionMillis = compactionMillis;
+      this.adjacencyBytes = adjacencyBytes;
+    }
+
+    /** The number of edges of Soot's call graph. */
+    public int getSootEdges() {
+      return sootEdges;
+    }
+
+    /**
+     * The number of converted edges. Edges of methods without body and of call sites without an
+     * invoke expression are dropped.
+     */
+    public int getEdges() {
+      return edges;
+    }
+
+    /** The number of methods whose outgoing edges were converted. */
+    public int getCallers() {
+      return callers;
+    }
+
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    public long getConversionMillis() {
+      return conversionMillis;
+    }
+
+    public long getCompactionMillis() {
+      return compactionMillis;
+    }
+
+    /** An estimate of the memory of the read-optimized adjacency, in bytes. */
+    public long getAdjacencyBytes() {
+      return adjacencyBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Converted %s of %s call edges from %s methods in %sms using %s threads, compacted in"
+              + " %sms to %s bytes",
+          edges,
+          sootEdges,
+          callers,
+          conversionMillis,
+          parallelism,
+          compactionMillis,
+          adjacencyBytes);
+    }
   }
 }
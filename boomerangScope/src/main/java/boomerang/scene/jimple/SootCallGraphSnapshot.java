@@ -0,0 +1,331 @@
+package boomerang.scene.jimple;
+
+import boomerang.scene.CallGraph;
+import boomerang.scene.CallGraph.Edge;
+import boomerang.scene.Method;
+import boomerang.scene.Statement;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import soot.MethodOrMethodContext;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.util.queue.QueueReader;
+
+/**
+ * A call graph stored on disk, such that later runs on the same input skip the call graph
+ * construction of Soot. The snapshot stores the reachable methods by signature, the entry points
+ * and each call edge as its source method, the position of the call site in the unit chain of the
+ * source method and its target method. The statements, control flow graphs and static field
+ * indices are wrappers of Soot objects and are rebuilt lazily from the bodies as usual.
+ *
+ * <p>Snapshots are keyed by a hash of the inputs of the call graph construction, see {@link
+ * #key(String, Collection, String, String)}, and a version of the format. A warm start looks as
+ * follows:
+ *
+ * <pre>
+ * Scene.v().loadNecessaryClasses();
+ * String key = SootCallGraphSnapshot.key(classPath, Scene.v().getEntryPoints(), mainClass, "cha");
+ * Optional&lt;SootCallGraphSnapshot&gt; snapshot = SootCallGraphSnapshot.read(file, key);
+ * Optional&lt;CallGraph&gt; restored = Optional.empty();
+ * if (snapshot.isPresent()) {
+ *   BoomerangPretransformer.v().apply(snapshot.get().getMethods());
+ *   restored = snapshot.get().toCallGraph();
+ * }
+ * if (restored.isPresent()) {
+ *   callGraph = restored.get();
+ * } else {
+ *   PackManager.v().getPack("cg").apply();
+ *   BoomerangPretransformer.v().apply();
+ *   callGraph = new SootCallGraph();
+ *   SootCallGraphSnapshot.write(callGraph, key, file);
+ * }
+ * </pre>
+ *
+ * The positions of the call sites refer to the transformed bodies, hence the methods of a snapshot
+ * must be transformed before the call graph is restored.
+ */
+public class SootCallGraphSnapshot {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SootCallGraphSnapshot.class);
+  private static final int MAGIC = 0x53504453;
+  static final int VERSION = 1;
+
+  private final String[] signatures;
+  private final int[] entryPoints;
+  // Triples of source method, position of the call site and target method
+  private final int[] edges;
+  private SootMethod[] methods;
+
+  private SootCallGraphSnapshot(String[] signatures, int[] entryPoints, int[] edges) {
+    this.signatures = signatures;
+    this.entryPoints = entryPoints;
+    this.edges = edges;
+  }
+
+  /**
+   * A hash of the inputs that determine the call graph: the contents of all entries of the class
+   * path in order, the entry points, the main class and the call graph algorithm, e.g., "cha" or
+   * "spark". Directories are hashed by the relative paths and contents of the files they contain.
+   *
+   * @param mainClass the main class, or null if none is set
+   */
+  public static String key(
+      String classPath,
+      Collection<SootMethod> entryPoints,
+      String mainClass,
+      String callGraphAlgorithm)
+      throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String entry : classPath.split(File.pathSeparator)) {
+      hashFile(new File(entry), "", hasher);
+    }
+    List<String> signatures = Lists.newArrayList();
+    for (SootMethod m : entryPoints) {
+      signatures.add(m.getSignature());
+    }
+    Collections.sort(signatures);
+    hasher.putInt(signatures.size());
+    for (String signature : signatures) {
+      hasher.putString(signature, StandardCharsets.UTF_8);
+    }
+    hasher.putBoolean(mainClass != null);
+    hasher.putString(Strings.nullToEmpty(mainClass), StandardCharsets.UTF_8);
+    hasher.putString(callGraphAlgorithm, StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  private static void hashFile(File file, String relativePath, Hasher hasher) throws IOException {
+    hasher.putString(relativePath, StandardCharsets.UTF_8);
+    if (file.isDirectory()) {
+      String[] children = file.list();
+      Arrays.sort(children);
+      for (String child : children) {
+        hashFile(new File(file, child), relativePath + "/" + child, hasher);
+      }
+    } else if (file.isFile()) {
+      hasher.putLong(file.length());
+      Files.asByteSource(file).copyTo(Funnels.asOutputStream(hasher));
+    } else {
+      hasher.putLong(-1);
+    }
+  }
+
+  /**
+   * Writes the call graph, which must have been converted from Soot's current call graph, e.g., by
+   * {@link SootCallGraph}.
+   */
+  public static void write(CallGraph callGraph, String key, File file) throws IOException {
+    Map<SootMethod, Integer> ids = Maps.newLinkedHashMap();
+    if (Scene.v().hasCallGraph()) {
+      QueueReader<MethodOrMethodContext> reachable = Scene.v().getReachableMethods().listener();
+      while (reachable.hasNext()) {
+        SootMethod m = reachable.next().method();
+        if (m.hasActiveBody()) {
+          id(m, ids);
+        }
+      }
+    }
+    List<Integer> entryPoints = Lists.newArrayList();
+    for (Method m : callGraph.getEntryPoints()) {
+      entryPoints.add(id(((JimpleMethod) m).getDelegate(), ids));
+    }
+    List<int[]> edges = Lists.newArrayListWithCapacity(callGraph.size());
+    for (Edge e : callGraph.getEdges()) {
+      SootMethod src = ((JimpleMethod) e.src().getMethod()).getDelegate();
+      SootMethod tgt = ((JimpleMethod) e.tgt()).getDelegate();
+      edges.add(new int[] {id(src, ids), positionOf((JimpleStatement) e.src()), id(tgt, ids)});
+    }
+    // Grouped by source method, such that each body is traversed once when restoring
+    edges.sort(Comparator.comparingInt(e -> e[0]));
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeString(key, out);
+      out.writeInt(ids.size());
+      for (SootMethod m : ids.keySet()) {
+        writeString(m.getSignature(), out);
+      }
+      out.writeInt(entryPoints.size());
+      for (int id : entryPoints) {
+        out.writeInt(id);
+      }
+      out.writeInt(edges.size());
+      for (int[] edge : edges) {
+        out.writeInt(edge[0]);
+        out.writeInt(edge[1]);
+        out.writeInt(edge[2]);
+      }
+    }
+    LOGGER.debug("Wrote {} methods and {} call edges to {}", ids.size(), edges.size(), file);
+  }
+
+  private static int id(SootMethod m, Map<SootMethod, Integer> ids) {
+    Integer id = ids.get(m);
+    if (id == null) {
+      id = ids.size();
+      ids.put(m, id);
+    }
+    return id;
+  }
+
+  private static int positionOf(JimpleStatement stmt) {
+    if (stmt.getIndexInBody() >= 0) {
+      return stmt.getIndexInBody();
+    }
+    int i = 0;
+    for (Unit u : ((JimpleMethod) stmt.getMethod()).getDelegate().getActiveBody().getUnits()) {
+      if (u == stmt.getDelegate()) {
+        return i;
+      }
+      i++;
+    }
+    throw new IllegalArgumentException("Call site is not part of its method: " + stmt);
+  }
+
+  private static void writeString(String s, DataOutputStream out) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads the snapshot stored in the file. Returns no snapshot if there is no such file, if it was
+   * written by another version or for another key, or if it is truncated or refers to methods it
+   * does not contain.
+   */
+  public static Optional<SootCallGraphSnapshot> read(File file, String key) throws IOException {
+    if (!file.isFile()) {
+      return Optional.empty();
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+        LOGGER.debug("Ignoring call graph snapshot {} of another format or version", file);
+        return Optional.empty();
+      }
+      if (!readString(in).equals(key)) {
+        LOGGER.debug("Ignoring call graph snapshot {} of another input", file);
+        return Optional.empty();
+      }
+      String[] signatures = new String[readLength(in, 4)];
+      for (int i = 0; i < signatures.length; i++) {
+        signatures[i] = readString(in);
+      }
+      int[] entryPoints = new int[readLength(in, 4)];
+      for (int i = 0; i < entryPoints.length; i++) {
+        entryPoints[i] = readIndex(in, signatures.length);
+      }
+      int[] edges = new int[3 * readLength(in, 12)];
+      for (int i = 0; i < edges.length; i += 3) {
+        edges[i] = readIndex(in, signatures.length);
+        edges[i + 1] = readIndex(in, Integer.MAX_VALUE);
+        edges[i + 2] = readIndex(in, signatures.length);
+      }
+      return Optional.of(new SootCallGraphSnapshot(signatures, entryPoints, edges));
+    } catch (BufferUnderflowException | IllegalStateException e) {
+      LOGGER.debug("Ignoring corrupt call graph snapshot {}: {}", file, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private static String readString(MappedByteBuffer in) {
+    byte[] bytes = new byte[readLength(in, 1)];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Reads the length of a sequence and checks that the rest of the file can hold the sequence. */
+  private static int readLength(MappedByteBuffer in, int bytesPerElement) {
+    int length = in.getInt();
+    if (length < 0 || (long) length * bytesPerElement > in.remaining()) {
+      throw new IllegalStateException("Invalid length " + length);
+    }
+    return length;
+  }
+
+  private static int readIndex(MappedByteBuffer in, int bound) {
+    int index = in.getInt();
+    if (index < 0 || index >= bound) {
+      throw new IllegalStateException("Index " + index + " out of bounds " + bound);
+    }
+    return index;
+  }
+
+  /**
+   * The methods of the snapshot, their bodies are retrieved from Soot. These are the methods to
+   * hand to {@link BoomerangPretransformer#apply(java.util.Collection)}.
+   */
+  public List<SootMethod> getMethods() {
+    if (methods == null) {
+      SootMethod[] res = new SootMethod[signatures.length];
+      for (int i = 0; i < signatures.length; i++) {
+        if (!Scene.v().containsMethod(signatures[i])) {
+          throw new RuntimeException("Snapshot does not match the scene, missing " + signatures[i]);
+        }
+        res[i] = Scene.v().getMethod(signatures[i]);
+        res[i].retrieveActiveBody();
+      }
+      methods = res;
+    }
+    return Arrays.asList(methods);
+  }
+
+  /**
+   * The call graph of the snapshot, its methods must have been transformed before. Returns no call
+   * graph if a call site is not an invoke statement of its transformed method.
+   */
+  public Optional<CallGraph> toCallGraph() {
+    List<SootMethod> methods = getMethods();
+    CallGraph callGraph = new CallGraph();
+    int src = -1;
+    JimpleMethod caller = null;
+    Unit[] units = null;
+    for (int i = 0; i < edges.length; i += 3) {
+      if (edges[i] != src) {
+        src = edges[i];
+        caller = JimpleMethod.of(methods.get(src));
+        units = caller.getDelegate().getActiveBody().getUnits().toArray(new Unit[0]);
+      }
+      if (edges[i + 1] >= units.length || !((Stmt) units[edges[i + 1]]).containsInvokeExpr()) {
+        LOGGER.debug("Snapshot does not match the body of {}", caller);
+        return Optional.empty();
+      }
+      Statement callSite = JimpleStatement.create((Stmt) units[edges[i + 1]], caller);
+      callGraph.addEdge(new Edge(callSite, JimpleMethod.of(methods.get(edges[i + 2]))));
+    }
+    for (int id : entryPoints) {
+      callGraph.addEntryPoint(JimpleMethod.of(methods.get(id)));
+    }
+    LOGGER.debug(
+        "Restored {} methods and {} call edges from snapshot", methods.size(), edges.length / 3);
+    return Optional.of(callGraph);
+  }
+}
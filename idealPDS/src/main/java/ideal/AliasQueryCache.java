@@ -0,0 +1,73 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package ideal;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The allocation sites of the alias queries IDEal issues at potential strong updates, shared by
+ * the {@link IDEALSeedSolver}s of one {@link IDEALAnalysis}, see {@link
+ * IDEALAnalysisDefinition#shareAliasQueries()}. The allocation sites of a backward query, i.e., a
+ * statement and a fact, do not depend on the seed that issued it, such that the seeds that reach
+ * the same potential strong update, e.g., a call to close() in a utility method, solve it once.
+ *
+ * <p>The cache requires the precomputed call graph to be the call graph the solvers use. With an
+ * on-the-fly call graph, each seed resolves its own call graph and the allocation sites of a query
+ * depend on the seed, see {@link IDEALAnalysis}. The solvers only read the precomputed call graph,
+ * hence the entries remain valid for the run of the analysis. A new analysis starts with an empty
+ * cache. The cache is safe for use by concurrently analyzed seeds.
+ */
+class AliasQueryCache {
+  private final Map<BackwardQuery, Set<ForwardQuery>> allocationSites = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /** Returns the allocation sites of the query, or null if they are not cached. */
+  Set<ForwardQuery> get(BackwardQuery query) {
+    Set<ForwardQuery> res = allocationSites.get(query);
+    if (res == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return res;
+  }
+
+  /** Caches the allocation sites of a query that was solved to completion. */
+  void put(BackwardQuery query, Set<ForwardQuery> sites) {
+    allocationSites.putIfAbsent(query, ImmutableSet.copyOf(sites));
+  }
+
+  int size() {
+    return allocationSites.size();
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "AliasQueryCache (queries: %s, hits: %s, misses: %s)", size(), hits.get(), misses.get());
+  }
+}
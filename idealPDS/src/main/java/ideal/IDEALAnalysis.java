@@ -19,10 +19,14 @@ import boomerang.scene.AnalysisScope;
 import boomerang.scene.ControlFlowGraph.Edge;
 import com.google.common.base.Stopwatch;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import typestate.TransitionFunction;
@@ -37,8 +41,10 @@ public class IDEALAnalysis<W extends Weight> {
   protected final IDEALAnalysisDefinition<W> analysisDefinition;
   private final AnalysisScope seedFactory;
   private int seedCount;
-  private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = new HashMap<>();
-  private Set<WeightedForwardQuery<W>> timedoutSeeds = new HashSet<>();
+  private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = new ConcurrentHashMap<>();
+  private Set<WeightedForwardQuery<W>> timedoutSeeds = ConcurrentHashMap.newKeySet();
+  // Null unless the seeds share their alias queries
+  private final AliasQueryCache aliasQueryCache;
 
   public IDEALAnalysis(final IDEALAnalysisDefinition<W> analysisDefinition) {
     this.analysisDefinition = analysisDefinition;
@@ -50,6 +56,19 @@ public class IDEALAnalysis<W extends Weight> {
             return analysisDefinition.generate(stmt);
           }
         };
+    this.aliasQueryCache = createAliasQueryCache();
+  }
+
+  // Each solver resolves its own on-the-fly call graph, the seeds only share the precomputed one
+  private AliasQueryCache createAliasQueryCache() {
+    if (!analysisDefinition.shareAliasQueries()) {
+      return null;
+    }
+    if (analysisDefinition.boomerangOptions().onTheFlyCallGraph()) {
+      LOGGER.warn("Alias queries are not shared with an on-the-fly call graph");
+      return null;
+    }
+    return new AliasQueryCache();
   }
 
   public void run() {
@@ -59,25 +78,102 @@ public class IDEALAnalysis<W extends Weight> {
 
     if (initialSeeds.isEmpty()) LOGGER.info("No seeds found!");
     else LOGGER.info("Analysing {} seeds!", initialSeeds.size());
-    for (Query s : initialSeeds) {
-      if (!(s instanceof WeightedForwardQuery)) continue;
-      WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
-      seedCount++;
-      LOGGER.info("Analyzing {}", seed);
-      Stopwatch watch = Stopwatch.createStarted();
-      analysisTime.put(seed, watch);
-      run(seed);
-      watch.stop();
-      LOGGER.debug(
-          "Analyzed (finished,timedout): \t ({},{}) of {} seeds",
-          (seedCount - timedoutSeeds.size()),
-          timedoutSeeds.size(),
-          initialSeeds.size());
+    int threads = analysisDefinition.numberOfThreads();
+    if (threads > 1) {
+      runInParallel(initialSeeds, threads);
+    } else {
+      for (Query s : initialSeeds) {
+        if (!(s instanceof WeightedForwardQuery)) continue;
+        WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
+        seedCount++;
+        LOGGER.info("Analyzing {}", seed);
+        Stopwatch watch = Stopwatch.createStarted();
+        analysisTime.put(seed, watch);
+        run(seed);
+        watch.stop();
+        logProgress(initialSeeds.size());
+      }
+    }
+    if (aliasQueryCache != null) {
+      LOGGER.debug("{}", aliasQueryCache);
+    }
+  }
+
+  /**
+   * Analyzes the seeds on a fixed number of threads. Each seed is solved by its own {@link
+   * IDEALSeedSolver} and is subject to its own timeout. At most two seeds per thread are pending
+   * at any time, and all results are reported to the {@link IDEALResultHandler} from the calling
+   * thread.
+   */
+  private void runInParallel(Collection<Query> initialSeeds, int threads) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CompletionService<SeedResult> completionService = new ExecutorCompletionService<>(executor);
+    int maxPending = 2 * threads;
+    int pending = 0;
+    try {
+      for (Query s : initialSeeds) {
+        if (!(s instanceof WeightedForwardQuery)) continue;
+        @SuppressWarnings("unchecked")
+        WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
+        if (pending == maxPending) {
+          report(completionService, initialSeeds.size());
+          pending--;
+        }
+        seedCount++;
+        LOGGER.info("Analyzing {}", seed);
+        completionService.submit(
+            () -> {
+              Stopwatch watch = Stopwatch.createStarted();
+              analysisTime.put(seed, watch);
+              ForwardBoomerangResults<W> res = solve(seed);
+              watch.stop();
+              return new SeedResult(seed, res);
+            });
+        pending++;
+      }
+      while (pending > 0) {
+        report(completionService, initialSeeds.size());
+        pending--;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void report(CompletionService<SeedResult> completionService, int totalSeeds) {
+    SeedResult result;
+    try {
+      result = completionService.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while analyzing seeds", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Analyzing a seed failed", e.getCause());
     }
+    // The result handler of the analysis definition is a raw type
+    @SuppressWarnings("unchecked")
+    IDEALResultHandler<W> resultHandler = analysisDefinition.getResultHandler();
+    resultHandler.report(result.seed, result.results);
+    logProgress(totalSeeds);
+  }
+
+  private void logProgress(int totalSeeds) {
+    LOGGER.debug(
+        "Analyzed (finished,timedout): \t ({},{}) of {} seeds",
+        (seedCount - timedoutSeeds.size()),
+        timedoutSeeds.size(),
+        totalSeeds);
   }
 
   public ForwardBoomerangResults<W> run(ForwardQuery seed) {
-    IDEALSeedSolver<W> idealAnalysis = new IDEALSeedSolver<W>(analysisDefinition, seed);
+    ForwardBoomerangResults<W> res = solve(seed);
+    analysisDefinition.getResultHandler().report((WeightedForwardQuery) seed, res);
+    return res;
+  }
+
+  private ForwardBoomerangResults<W> solve(ForwardQuery seed) {
+    IDEALSeedSolver<W> idealAnalysis =
+        new IDEALSeedSolver<W>(analysisDefinition, seed, aliasQueryCache);
     ForwardBoomerangResults<W> res;
     try {
       res = idealAnalysis.run();
@@ -85,7 +181,6 @@ public class IDEALAnalysis<W extends Weight> {
       res = (ForwardBoomerangResults<W>) e.getLastResults();
       timedoutSeeds.add((WeightedForwardQuery) seed);
     }
-    analysisDefinition.getResultHandler().report((WeightedForwardQuery) seed, res);
     return res;
   }
 
@@ -106,4 +201,14 @@ public class IDEALAnalysis<W extends Weight> {
   public boolean isTimedout(WeightedForwardQuery<TransitionFunction> key) {
     return timedoutSeeds.contains(key);
   }
+
+  private class SeedResult {
+    private final WeightedForwardQuery<W> seed;
+    private final ForwardBoomerangResults<W> results;
+
+    private SeedResult(WeightedForwardQuery<W> seed, ForwardBoomerangResults<W> results) {
+      this.seed = seed;
+      this.results = results;
+    }
+  }
 }
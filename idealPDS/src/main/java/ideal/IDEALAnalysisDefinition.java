@@ -49,6 +49,39 @@ public abstract class IDEALAnalysisDefinition<W extends Weight> {
     return true;
   }
 
+  /**
+   * The number of threads used to analyze the seeds. With more than one thread, seeds are
+   * analyzed concurrently, each seed by its own solvers, and the result handler is invoked from
+   * the thread that runs the analysis.
+   */
+  public int numberOfThreads() {
+    return 1;
+  }
+
+  /**
+   * Whether the second phase of a seed, which propagates the weights, reuses the solvers of the
+   * first phase. Only the solver of the seed is recomputed, the solvers of the aliases, the
+   * backward queries and the call graph discovered in the first phase are retained. Requires
+   * {@link BoomerangOptions#allowMultipleQueries()}, the timeout of the Boomerang options then
+   * bounds both phases together. Seeds whose flows were imported by the solvers of aliases are
+   * solved from scratch in the second phase.
+   */
+  public boolean reuseObjectFlowInValueFlow() {
+    return false;
+  }
+
+  /**
+   * Whether the seeds share the results of the alias queries issued at potential strong updates.
+   * A seed that reaches a potential strong update another seed already checked solves the cached
+   * allocation sites instead of the backward query. The cached allocation sites are solved as
+   * roots, which may flow to more callers than the backward query would have allowed. Only
+   * applies to the precomputed call graph, i.e., if {@link BoomerangOptions#onTheFlyCallGraph()}
+   * is disabled, as each seed resolves its own on-the-fly call graph.
+   */
+  public boolean shareAliasQueries() {
+    return false;
+  }
+
   public String toString() {
     String str = "====== IDEal Analysis Options ======";
     // str += "\nEdge Functions:\t\t" + edgeFunctions();
@@ -58,11 +58,15 @@ public class IDEALSeedSolver<W extends Weight> {
   private final IDEALWeightFunctions<W> idealWeightFunctions;
   private final W one;
   private final WeightedBoomerang<W> phase1Solver;
-  private final WeightedBoomerang<W> phase2Solver;
+  private WeightedBoomerang<W> phase2Solver;
+  private Phases phase;
   private final Stopwatch analysisStopwatch = Stopwatch.createUnstarted();
   private Multimap<Node<Edge, Val>, Edge> affectedStrongUpdateStmt = HashMultimap.create();
   private Set<Node<Edge, Val>> weakUpdates = Sets.newHashSet();
   private int killedRules;
+  // Null unless the alias queries are shared with the other seeds
+  private final AliasQueryCache aliasQueryCache;
+  private final Set<BackwardQuery> solvedAliasQueries = Sets.newHashSet();
 
   private final class AddIndirectFlowAtCallSite implements WPAUpdateListener<Edge, INode<Val>, W> {
     private final Edge callSite;
@@ -150,8 +154,7 @@ public class IDEALSeedSolver<W extends Weight> {
         BackwardQuery query =
             BackwardQuery.make(
                 new Edge(u, strongUpdateNode.stmt().getStart()), strongUpdateNode.fact());
-        BackwardBoomerangResults<W> queryResults = boomerang.solve(query);
-        Set<ForwardQuery> queryAllocationSites = queryResults.getAllocationSites().keySet();
+        Set<ForwardQuery> queryAllocationSites = solveAliasQuery(boomerang, query);
         setWeakUpdateIfNecessary();
         injectAliasesAtStrongUpdates(queryAllocationSites);
         injectAliasesAtStrongUpdatesAtCallStack(queryAllocationSites);
@@ -269,14 +272,21 @@ public class IDEALSeedSolver<W extends Weight> {
   };
 
   public IDEALSeedSolver(IDEALAnalysisDefinition<W> analysisDefinition, ForwardQuery seed) {
+    this(analysisDefinition, seed, null);
+  }
+
+  IDEALSeedSolver(
+      IDEALAnalysisDefinition<W> analysisDefinition,
+      ForwardQuery seed,
+      AliasQueryCache aliasQueryCache) {
     this.analysisDefinition = analysisDefinition;
     this.seed = seed;
+    this.aliasQueryCache = aliasQueryCache;
     this.idealWeightFunctions =
         new IDEALWeightFunctions<W>(
             analysisDefinition.weightFunctions(), analysisDefinition.enableStrongUpdates());
     this.one = analysisDefinition.weightFunctions().getOne();
-    this.phase1Solver = createSolver(Phases.ObjectFlow);
-    this.phase2Solver = createSolver(Phases.ValueFlow);
+    this.phase1Solver = createSolver();
   }
 
   public ForwardBoomerangResults<W> run() {
@@ -289,6 +299,7 @@ public class IDEALSeedSolver<W extends Weight> {
       throw new IDEALSeedTimeout(this, this.phase1Solver, resultPhase1);
     }
     LOGGER.debug("Starting Phase 2 of IDEal");
+    this.phase2Solver = valueFlowSolver();
     ForwardBoomerangResults<W> resultPhase2 = runPhase(this.phase2Solver, Phases.ValueFlow);
     if (resultPhase2.isTimedout()) {
       if (analysisStopwatch.isRunning()) {
@@ -300,7 +311,63 @@ public class IDEALSeedSolver<W extends Weight> {
     return resultPhase2;
   }
 
-  private WeightedBoomerang<W> createSolver(Phases phase) {
+  /**
+   * The solver of the second phase. If configured, the solver of the first phase is reused and only
+   * the solver of the seed is recomputed, the weights of the seed differ in both phases and strong
+   * updates kill rules of the seed only. The first phase is not reused if other solvers imported
+   * flows of the seed, these flows ignore the strong updates of the second phase.
+   */
+  private WeightedBoomerang<W> valueFlowSolver() {
+    if (reusesObjectFlow()) {
+      if (!phase1Solver.isImportedByOtherSolvers(seed) && phase1Solver.discardSolver(seed)) {
+        return phase1Solver;
+      }
+      LOGGER.debug("Other queries depend on seed {}, solving phase 2 from scratch", seed);
+      phase1Solver.unregisterAllListeners();
+    }
+    return createSolver();
+  }
+
+  /**
+   * The allocation sites of an alias query. If the query is cached, the cached allocation sites are
+   * solved instead of the query. Otherwise the query is solved and, once the first phase is
+   * completed, its allocation sites are cached, see {@link #cacheAliasQueries(WeightedBoomerang)}.
+   */
+  private Set<ForwardQuery> solveAliasQuery(WeightedBoomerang<W> boomerang, BackwardQuery query) {
+    if (aliasQueryCache != null) {
+      Set<ForwardQuery> allocationSites = aliasQueryCache.get(query);
+      if (allocationSites != null) {
+        for (ForwardQuery allocationSite : allocationSites) {
+          boomerang.solveAllocationSite(allocationSite);
+        }
+        return allocationSites;
+      }
+      solvedAliasQueries.add(query);
+    }
+    return boomerang.solve(query).getAllocationSites().keySet();
+  }
+
+  /**
+   * Caches the allocation sites of the alias queries this seed solved. The allocation sites are
+   * only complete once the solvers reached their fixed point, i.e., when the first phase
+   * terminated without a timeout, but before the listeners of the solvers are unregistered.
+   */
+  private void cacheAliasQueries(WeightedBoomerang<W> boomerang) {
+    for (BackwardQuery query : solvedAliasQueries) {
+      BackwardBoomerangResults<W> results = boomerang.solve(query, false);
+      if (!results.isTimedout()) {
+        aliasQueryCache.put(query, results.getAllocationSites().keySet());
+      }
+    }
+    solvedAliasQueries.clear();
+  }
+
+  private boolean reusesObjectFlow() {
+    return analysisDefinition.reuseObjectFlowInValueFlow()
+        && phase1Solver.getOptions().allowMultipleQueries();
+  }
+
+  private WeightedBoomerang<W> createSolver() {
     return new WeightedBoomerang<W>(
         analysisDefinition.callGraph(),
         analysisDefinition.getDataFlowScope(),
@@ -365,6 +432,7 @@ public class IDEALSeedSolver<W extends Weight> {
   private ForwardBoomerangResults<W> runPhase(
       final WeightedBoomerang<W> boomerang, final Phases phase) {
     analysisStopwatch.start();
+    this.phase = phase;
     idealWeightFunctions.setPhase(phase);
 
     if (phase.equals(Phases.ValueFlow)) {
@@ -382,11 +450,17 @@ public class IDEALSeedSolver<W extends Weight> {
               .registerListener(new TriggerBackwardQuery(seedSolver, boomerang, curr));
         });
     ForwardBoomerangResults<W> res = boomerang.solve(seed);
+    if (phase.equals(Phases.ObjectFlow) && !res.isTimedout()) {
+      cacheAliasQueries(boomerang);
+    }
     analysisStopwatch.stop();
     if (LOGGER.isDebugEnabled()) {
       boomerang.printAllForwardCallAutomatonFlow();
     }
-    boomerang.unregisterAllListeners();
+    // The solvers of the first phase keep their listeners if the second phase reuses them
+    if (phase.equals(Phases.ValueFlow) || !reusesObjectFlow()) {
+      boomerang.unregisterAllListeners();
+    }
     return res;
   }
 
@@ -19,35 +19,62 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
 import typestate.finiteautomata.Transition;
 import wpds.impl.Weight;
 
+/**
+ * A typestate weight: a set of state machine transitions together with the statements at which
+ * they were last changed. Instances created through {@link TransitionFunctionFactory#of(Set, Set)}
+ * and the results of {@link #extendWith(Weight)} and {@link #combineWith(Weight)} on them are
+ * hash-consed by that factory, equal weights are represented by a single instance and the results
+ * of extend and combine are memoized.
+ */
 public class TransitionFunction extends Weight {
 
   private final Set<ITransition> value;
 
   private final String rep;
 
-  private static TransitionFunction one;
+  private static final TransitionFunction one = new TransitionFunction("ONE");
+
+  private static final TransitionFunction zero = new TransitionFunction("ZERO");
 
-  private static TransitionFunction zero;
+  private final Set<Edge> stateChangeStatements;
 
-  private Set<Edge> stateChangeStatements;
+  // The factory this weight is canonical in, null if it is not hash-consed
+  private final TransitionFunctionFactory factory;
+
+  private int hashCode;
 
   public TransitionFunction(Set<? extends ITransition> trans, Set<Edge> stateChangeStatements) {
-    this.stateChangeStatements = stateChangeStatements;
-    this.value = new HashSet<>(trans);
-    this.rep = null;
+    this(trans, stateChangeStatements, null);
   }
 
   public TransitionFunction(ITransition trans, Set<Edge> stateChangeStatements) {
     this(new HashSet<>(Collections.singleton(trans)), stateChangeStatements);
   }
 
+  TransitionFunction(
+      Collection<? extends ITransition> trans,
+      Set<Edge> stateChangeStatements,
+      TransitionFunctionFactory factory) {
+    this.stateChangeStatements = stateChangeStatements;
+    this.value = new HashSet<>(trans);
+    this.rep = null;
+    this.factory = factory;
+  }
+
   private TransitionFunction(String rep) {
     this.value = Sets.newHashSet();
     this.rep = rep;
     this.stateChangeStatements = Sets.newHashSet();
+    this.factory = null;
+  }
+
+  // ONE and ZERO are shared by all factories
+  boolean isCanonicalIn(TransitionFunctionFactory factory) {
+    return rep != null || this.factory == factory;
   }
 
   public Collection<ITransition> values() {
@@ -66,6 +93,15 @@ public class TransitionFunction extends Weight {
       return zero();
     }
     TransitionFunction func = (TransitionFunction) other;
+    TransitionFunctionFactory factory = this.factory == null ? func.factory : this.factory;
+    if (factory == null) {
+      return computeExtendWith(func, null);
+    }
+    return factory.extend(this, func);
+  }
+
+  TransitionFunction computeExtendWith(
+      TransitionFunction func, TransitionFunctionFactory factory) {
     Set<ITransition> otherTransitions = func.value;
     Set<ITransition> ress = new HashSet<>();
     Set<Edge> newStateChangeStatements = new HashSet<>();
@@ -78,7 +114,7 @@ public class TransitionFunction extends Weight {
           ress.add(second);
           newStateChangeStatements.addAll(func.stateChangeStatements);
         } else if (first.to().equals(second.from())) {
-          ress.add(new Transition(first.from(), second.to()));
+          ress.add(transition(factory, first.from(), second.to()));
           newStateChangeStatements.addAll(func.stateChangeStatements);
         }
       }
@@ -95,32 +131,43 @@ public class TransitionFunction extends Weight {
       return one();
     }
     TransitionFunction func = (TransitionFunction) other;
-    if (other.equals(one()) || this.equals(one())) {
-      Set<ITransition> transitions = new HashSet<>((other.equals(one()) ? value : func.value));
+    TransitionFunctionFactory factory = this.factory == null ? func.factory : this.factory;
+    if (factory == null) {
+      return computeCombineWith(func, null);
+    }
+    return factory.combine(this, func);
+  }
+
+  TransitionFunction computeCombineWith(
+      TransitionFunction func, TransitionFunctionFactory factory) {
+    if (func.equals(one()) || this.equals(one())) {
+      Set<ITransition> transitions = new HashSet<>((func.equals(one()) ? value : func.value));
       Set<ITransition> idTransitions = Sets.newHashSet();
       for (ITransition t : transitions) {
-        idTransitions.add(new Transition(t.from(), t.from()));
+        idTransitions.add(transition(factory, t.from(), t.from()));
       }
       transitions.addAll(idTransitions);
       return new TransitionFunction(
           transitions,
           Sets.newHashSet(
-              (other.equals(one()) ? stateChangeStatements : func.stateChangeStatements)));
+              (func.equals(one()) ? stateChangeStatements : func.stateChangeStatements)));
     }
     Set<ITransition> transitions = new HashSet<>(func.value);
     transitions.addAll(value);
     HashSet<Edge> newStateChangeStmts = Sets.newHashSet(stateChangeStatements);
     newStateChangeStmts.addAll(func.stateChangeStatements);
     return new TransitionFunction(transitions, newStateChangeStmts);
-  };
+  }
+
+  private static Transition transition(TransitionFunctionFactory factory, State from, State to) {
+    return factory == null ? new Transition(from, to) : factory.transition(from, to);
+  }
 
   public static TransitionFunction one() {
-    if (one == null) one = new TransitionFunction("ONE");
     return one;
   }
 
   public static TransitionFunction zero() {
-    if (zero == null) zero = new TransitionFunction("ZERO");
     return zero;
   }
 
@@ -131,10 +178,12 @@ public class TransitionFunction extends Weight {
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((rep == null) ? 0 : rep.hashCode());
     result = prime * result + ((value == null) ? 0 : value.hashCode());
+    hashCode = result;
     return result;
   }
 
@@ -144,6 +193,7 @@ public class TransitionFunction extends Weight {
     if (obj == null) return false;
     if (getClass() != obj.getClass()) return false;
     TransitionFunction other = (TransitionFunction) obj;
+    if (hashCode() != other.hashCode()) return false;
     if (rep == null) {
       if (other.rep != null) return false;
     } else if (!rep.equals(other.rep)) return false;
@@ -0,0 +1,144 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package typestate;
+
+import boomerang.scene.ControlFlowGraph.Edge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.HashSet;
+import java.util.Set;
+import typestate.finiteautomata.ITransition;
+import typestate.finiteautomata.State;
+import typestate.finiteautomata.Transition;
+
+/**
+ * Hash-conses the {@link Transition}s and {@link TransitionFunction}s of one analysis and memoizes
+ * extend and combine of the weights it created. Each {@link
+ * typestate.finiteautomata.TypeStateMachineWeightFunctions} owns a factory, the tables are
+ * released together with the analysis. Canonical instances are held weakly, the memo is bounded.
+ */
+public class TransitionFunctionFactory {
+
+  private static final int MEMO_SIZE = 100000;
+
+  private final Interner<Transition> transitions = Interners.newWeakInterner();
+
+  // Canonical weights, keyed by transitions and state change statements
+  private final Cache<Key, TransitionFunction> canonicalInstances =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  private final Cache<Operands, TransitionFunction> memo =
+      CacheBuilder.newBuilder().maximumSize(MEMO_SIZE).build();
+
+  /** Returns the canonical transition between the two states. */
+  public Transition transition(State from, State to) {
+    return transitions.intern(new Transition(from, to));
+  }
+
+  /** Returns the canonical weight for the given transitions and state change statements. */
+  public TransitionFunction of(Set<? extends ITransition> trans, Set<Edge> stateChangeStatements) {
+    return canonicalize(new TransitionFunction(trans, new HashSet<>(stateChangeStatements)));
+  }
+
+  TransitionFunction extend(TransitionFunction left, TransitionFunction right) {
+    return memoize(canonicalize(left), canonicalize(right), true);
+  }
+
+  TransitionFunction combine(TransitionFunction left, TransitionFunction right) {
+    return memoize(canonicalize(left), canonicalize(right), false);
+  }
+
+  private TransitionFunction memoize(
+      TransitionFunction left, TransitionFunction right, boolean extend) {
+    Operands key = new Operands(left, right, extend);
+    TransitionFunction res = memo.getIfPresent(key);
+    if (res == null) {
+      res =
+          canonicalize(
+              extend ? left.computeExtendWith(right, this) : left.computeCombineWith(right, this));
+      memo.put(key, res);
+    }
+    return res;
+  }
+
+  private TransitionFunction canonicalize(TransitionFunction func) {
+    if (func.isCanonicalIn(this)) {
+      return func;
+    }
+    Key key = new Key(new HashSet<>(func.values()), func.getLastStateChangeStatements());
+    TransitionFunction candidate = new TransitionFunction(key.transitions, key.statements, this);
+    TransitionFunction existing = canonicalInstances.asMap().putIfAbsent(key, candidate);
+    return existing == null ? candidate : existing;
+  }
+
+  long size() {
+    return canonicalInstances.size();
+  }
+
+  /**
+   * Identifies a weight by its transitions and its state change statements. {@link
+   * TransitionFunction#equals(Object)} ignores the latter, two weights that differ only in their
+   * state change statements must not be merged though. The key must not reference the weight, the
+   * weight could not be collected otherwise.
+   */
+  private static class Key {
+    private final Set<ITransition> transitions;
+    private final Set<Edge> statements;
+
+    private Key(Set<ITransition> transitions, Set<Edge> statements) {
+      this.transitions = transitions;
+      this.statements = statements;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * transitions.hashCode() + statements.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return transitions.equals(other.transitions) && statements.equals(other.statements);
+    }
+  }
+
+  /** Operands of a memoized extend or combine, canonical weights are compared by identity. */
+  private static class Operands {
+    private final TransitionFunction left;
+    private final TransitionFunction right;
+    private final boolean extend;
+
+    private Operands(TransitionFunction left, TransitionFunction right, boolean extend) {
+      this.left = left;
+      this.right = right;
+      this.extend = extend;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 31 * System.identityHashCode(left) + System.identityHashCode(right);
+      return extend ? result : ~result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Operands)) return false;
+      Operands other = (Operands) obj;
+      return left == other.left && right == other.right && extend == other.extend;
+    }
+  }
+}
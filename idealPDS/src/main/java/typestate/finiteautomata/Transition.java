@@ -15,6 +15,7 @@ public class Transition implements ITransition {
   private final State from;
   private final State to;
   private final String rep;
+  private int hashCode;
 
   public Transition(State from, State to) {
     this.from = from;
@@ -38,11 +39,13 @@ public class Transition implements ITransition {
 
   @Override
   public int hashCode() {
+    if (hashCode != 0) return hashCode;
     final int prime = 31;
     int result = 1;
     result = prime * result + ((from == null) ? 0 : from.hashCode());
     result = prime * result + ((rep == null) ? 0 : rep.hashCode());
     result = prime * result + ((to == null) ? 0 : to.hashCode());
+    hashCode = result;
     return result;
   }
 
@@ -69,10 +72,9 @@ public class Transition implements ITransition {
     return "" + from + " -> " + to;
   }
 
-  private static Transition instance;
+  private static final Transition instance = new Transition("ID -> ID");
 
   public static Transition identity() {
-    if (instance == null) instance = new Transition("ID -> ID");
     return instance;
   }
 }
@@ -14,18 +14,21 @@ package typestate.finiteautomata;
 import boomerang.WeightedForwardQuery;
 import boomerang.scene.AllocVal;
 import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.DeclaredMethod;
 import boomerang.scene.InvokeExpr;
 import boomerang.scene.Statement;
 import boomerang.scene.Val;
 import com.google.common.base.Joiner;
-import com.google.common.collect.Collections2;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import soot.Scene;
@@ -33,6 +36,7 @@ import soot.SootClass;
 import sync.pds.solver.WeightFunctions;
 import sync.pds.solver.nodes.Node;
 import typestate.TransitionFunction;
+import typestate.TransitionFunctionFactory;
 import typestate.finiteautomata.MatcherTransition.Parameter;
 import typestate.finiteautomata.MatcherTransition.Type;
 
@@ -41,9 +45,31 @@ public abstract class TypeStateMachineWeightFunctions
   private static final Logger LOGGER =
       LoggerFactory.getLogger(TypeStateMachineWeightFunctions.class);
   public Set<MatcherTransition> transition = new HashSet<>();
+  // Transitions whose matcher accepts the declared method, computed once per declared method
+  private final Map<DeclaredMethod, List<MatcherTransition>> matchingTransitions =
+      new ConcurrentHashMap<>();
+  // Hash-conses the weights of this analysis
+  private final TransitionFunctionFactory weights = new TransitionFunctionFactory();
 
   public void addTransition(MatcherTransition trans) {
     transition.add(trans);
+    matchingTransitions.clear();
+  }
+
+  List<MatcherTransition> getTransitionsMatching(DeclaredMethod method) {
+    List<MatcherTransition> res = matchingTransitions.get(method);
+    if (res != null) {
+      return res;
+    }
+    res = Lists.newArrayList();
+    for (MatcherTransition trans : transition) {
+      if (trans.matches(method)) {
+        res.add(trans);
+      }
+    }
+    res = res.isEmpty() ? Collections.emptyList() : res;
+    matchingTransitions.put(method, res);
+    return res;
   }
 
   @Override
@@ -57,16 +83,7 @@ public abstract class TypeStateMachineWeightFunctions
   }
 
   public TransitionFunction push(Node<Edge, Val> curr, Node<Edge, Val> succ, Edge push) {
-    return getMatchingTransitions(
-        succ.stmt(),
-        succ.fact(),
-        push,
-        Collections2.filter(
-            transition,
-            input ->
-                input.getType().equals(Type.OnCall)
-                    || input.getType().equals(Type.OnCallOrOnCallToReturn)),
-        Type.OnCall);
+    return getMatchingTransitions(succ.stmt(), succ.fact(), push, Type.OnCall);
   }
 
   @Override
@@ -82,10 +99,9 @@ public abstract class TypeStateMachineWeightFunctions
     Set<Transition> res = Sets.newHashSet();
     if (invokeExpr.isInstanceInvokeExpr()) {
       if (invokeExpr.getBase().equals(succ.fact())) {
-        for (MatcherTransition trans : transition) {
-          if (trans.matches(invokeExpr.getMethod())
-              && (trans.getType().equals(Type.OnCallToReturn)
-                  || trans.getType().equals(Type.OnCallOrOnCallToReturn))) {
+        for (MatcherTransition trans : getTransitionsMatching(invokeExpr.getMethod())) {
+          if (trans.getType().equals(Type.OnCallToReturn)
+              || trans.getType().equals(Type.OnCallOrOnCallToReturn)) {
             res.add(trans);
           }
         }
@@ -94,38 +110,35 @@ public abstract class TypeStateMachineWeightFunctions
     if (!res.isEmpty()) {
       LOGGER.trace("Typestate transition at {} to {}, [{}]", succ.stmt(), res, Type.OnCallToReturn);
     }
-    return (res.isEmpty()
-        ? getOne()
-        : new TransitionFunction(res, Collections.singleton(succ.stmt())));
+    return (res.isEmpty() ? getOne() : weights.of(res, Collections.singleton(succ.stmt())));
   }
 
   private TransitionFunction getMatchingTransitions(
-      Edge edge,
-      Val node,
-      Edge transitionEdge,
-      Collection<MatcherTransition> filteredTrans,
-      Type type) {
+      Edge edge, Val node, Edge transitionEdge, Type type) {
     Statement transitionStmt = transitionEdge.getStart();
+    if (!transitionStmt.containsInvokeExpr()) return getOne();
+    List<MatcherTransition> matchingTrans =
+        getTransitionsMatching(transitionStmt.getInvokeExpr().getMethod());
+    if (matchingTrans.isEmpty()) return getOne();
     Set<ITransition> res = new HashSet<>();
-    if (filteredTrans.isEmpty() || !transitionStmt.containsInvokeExpr()) return getOne();
-    for (MatcherTransition trans : filteredTrans) {
-      if (trans.matches(transitionStmt.getInvokeExpr().getMethod())) {
+    for (MatcherTransition trans : matchingTrans) {
+      if (trans.getType().equals(type) || trans.getType().equals(Type.OnCallOrOnCallToReturn)) {
         LOGGER.trace(
             "Found potential transition at {}, now checking if parameter match", transitionStmt);
         Parameter param = trans.getParam();
         if (param.equals(Parameter.This) && edge.getMethod().isThisLocal(node))
-          res.add(new Transition(trans.from(), trans.to()));
+          res.add(weights.transition(trans.from(), trans.to()));
         if (param.equals(Parameter.Param1) && edge.getMethod().getParameterLocal(0).equals(node))
-          res.add(new Transition(trans.from(), trans.to()));
+          res.add(weights.transition(trans.from(), trans.to()));
         if (param.equals(Parameter.Param2) && edge.getMethod().getParameterLocal(1).equals(node))
-          res.add(new Transition(trans.from(), trans.to()));
+          res.add(weights.transition(trans.from(), trans.to()));
       }
     }
 
     if (res.isEmpty()) return getOne();
 
     LOGGER.debug("Typestate transition at {} to {}, [{}]", transitionStmt, res, type);
-    return new TransitionFunction(res, Collections.singleton(transitionEdge));
+    return weights.of(res, Collections.singleton(transitionEdge));
   }
 
   protected List<SootClass> getSubclassesOf(String className) {
@@ -190,8 +203,9 @@ public abstract class TypeStateMachineWeightFunctions
   public abstract Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(Edge stmt);
 
   public TransitionFunction initialTransition() {
-    return new TransitionFunction(
-        new Transition(initialState(), initialState()), Collections.emptySet());
+    return weights.of(
+        Collections.singleton(weights.transition(initialState(), initialState())),
+        Collections.emptySet());
   }
 
   protected abstract State initialState();
@@ -107,6 +107,11 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
               public boolean allowMultipleQueries() {
                 return true;
               }
+
+              @Override
+              public boolean shareAutomatonContent() {
+                return IDEALTestingFramework.this.shareAutomatonContent();
+              }
             };
           }
 
@@ -115,6 +120,21 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
             return callGraph;
           }
 
+          @Override
+          public int numberOfThreads() {
+            return IDEALTestingFramework.this.numberOfThreads();
+          }
+
+          @Override
+          public boolean reuseObjectFlowInValueFlow() {
+            return IDEALTestingFramework.this.reuseObjectFlowInValueFlow();
+          }
+
+          @Override
+          public boolean shareAliasQueries() {
+            return IDEALTestingFramework.this.shareAliasQueries();
+          }
+
           @Override
           protected DataFlowScope getDataFlowScope() {
             return dataFlowScope;
@@ -122,6 +142,26 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
         });
   }
 
+  /** The number of threads the seeds are analyzed on, see {@link IDEALAnalysisDefinition}. */
+  protected int numberOfThreads() {
+    return 1;
+  }
+
+  /** See {@link IDEALAnalysisDefinition#reuseObjectFlowInValueFlow()}. */
+  protected boolean reuseObjectFlowInValueFlow() {
+    return false;
+  }
+
+  /** See {@link BoomerangOptions#shareAutomatonContent()}. */
+  protected boolean shareAutomatonContent() {
+    return false;
+  }
+
+  /** See {@link IDEALAnalysisDefinition#shareAliasQueries()}. */
+  protected boolean shareAliasQueries() {
+    return false;
+  }
+
   @Override
   protected SceneTransformer createAnalysisTransformer() throws ImprecisionException {
     return new SceneTransformer() {
@@ -0,0 +1,141 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package typestate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.Statement;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.Test;
+import typestate.finiteautomata.State;
+import typestate.finiteautomata.Transition;
+
+public class TransitionFunctionTest {
+
+  private static final State OPEN = new TestState("OPEN");
+  private static final State CLOSED = new TestState("CLOSED");
+  private static final Edge EDGE = new Edge(Statement.epsilon(), Statement.epsilon());
+
+  @Test
+  public void transitionsAreHashConsed() {
+    TransitionFunctionFactory factory = new TransitionFunctionFactory();
+    Transition transition = factory.transition(OPEN, CLOSED);
+    assertSame(transition, factory.transition(OPEN, CLOSED));
+    assertNotSame(transition, new TransitionFunctionFactory().transition(OPEN, CLOSED));
+  }
+
+  @Test
+  public void weightsAreHashConsed() {
+    TransitionFunctionFactory factory = new TransitionFunctionFactory();
+    TransitionFunction weight = factory.of(transitions(factory, OPEN, CLOSED), edges());
+    assertSame(weight, factory.of(transitions(factory, OPEN, CLOSED), edges()));
+    // Weights that differ only in their state change statements are equal but not merged
+    TransitionFunction changed =
+        factory.of(transitions(factory, OPEN, CLOSED), Collections.singleton(EDGE));
+    assertEquals(weight, changed);
+    assertNotSame(weight, changed);
+    assertEquals(Collections.singleton(EDGE), changed.getLastStateChangeStatements());
+    // Results of extend and combine are canonical
+    TransitionFunction close = factory.of(transitions(factory, OPEN, CLOSED), edges());
+    TransitionFunction stay = factory.of(transitions(factory, CLOSED, CLOSED), edges());
+    assertSame(close.extendWith(stay), factory.of(transitions(factory, OPEN, CLOSED), edges()));
+    assertEquals(3, factory.size());
+  }
+
+  @Test
+  public void memoizedResultsEqualUnmemoizedResults() {
+    TransitionFunctionFactory factory = new TransitionFunctionFactory();
+    State[] states = {OPEN, CLOSED};
+    for (State from : states) {
+      for (State to : states) {
+        for (State from2 : states) {
+          for (State to2 : states) {
+            TransitionFunction left = factory.of(transitions(factory, from, to), edges());
+            TransitionFunction right =
+                factory.of(transitions(factory, from2, to2), Collections.singleton(EDGE));
+            TransitionFunction plainLeft =
+                new TransitionFunction(new Transition(from, to), edges());
+            TransitionFunction plainRight =
+                new TransitionFunction(new Transition(from2, to2), Collections.singleton(EDGE));
+            for (int i = 0; i < 2; i++) {
+              assertResult(plainLeft.extendWith(plainRight), left.extendWith(right));
+              assertResult(plainLeft.combineWith(plainRight), left.combineWith(right));
+              assertResult(
+                  plainLeft.combineWith(TransitionFunction.one()),
+                  left.combineWith(TransitionFunction.one()));
+            }
+            assertSame(left.extendWith(right), left.extendWith(right));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void oneAndZeroAreShared() {
+    TransitionFunctionFactory factory = new TransitionFunctionFactory();
+    TransitionFunction weight = factory.of(transitions(factory, OPEN, CLOSED), edges());
+    assertSame(weight, weight.extendWith(TransitionFunction.one()));
+    assertSame(weight, TransitionFunction.one().extendWith(weight));
+    assertSame(TransitionFunction.zero(), weight.extendWith(TransitionFunction.zero()));
+    assertSame(weight, weight.combineWith(TransitionFunction.zero()));
+  }
+
+  private static void assertResult(Object expected, Object actual) {
+    TransitionFunction exp = (TransitionFunction) expected;
+    TransitionFunction act = (TransitionFunction) actual;
+    assertEquals(exp, act);
+    assertEquals(exp.getLastStateChangeStatements(), act.getLastStateChangeStatements());
+  }
+
+  private static Set<Transition> transitions(
+      TransitionFunctionFactory factory, State from, State to) {
+    return Collections.singleton(factory.transition(from, to));
+  }
+
+  private static Set<Edge> edges() {
+    return Sets.newHashSet();
+  }
+
+  private static class TestState implements State {
+    private final String name;
+
+    private TestState(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean isErrorState() {
+      return false;
+    }
+
+    @Override
+    public boolean isInitialState() {
+      return false;
+    }
+
+    @Override
+    public boolean isAccepting() {
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package typestate.finiteautomata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import boomerang.WeightedForwardQuery;
+import boomerang.scene.ControlFlowGraph.Edge;
+import boomerang.scene.DeclaredMethod;
+import boomerang.scene.WrappedClass;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import typestate.TransitionFunction;
+import typestate.finiteautomata.MatcherTransition.Parameter;
+import typestate.finiteautomata.MatcherTransition.Type;
+
+public class MatcherTransitionTest {
+
+  private static final State INIT = new TestState("INIT");
+  private static final State DONE = new TestState("DONE");
+
+  // Patterns of the state machines of the typestate analysis
+  private static final List<String> PATTERNS =
+      Lists.newArrayList(
+          ".*open.*",
+          ".*close.*",
+          ".* connect.*",
+          ".* (setDoInput|setDoOutput|getRequestProperty).*",
+          "void <init>.*",
+          "int read\\(\\)");
+
+  private static final List<String> SUB_SIGNATURES =
+      Lists.newArrayList(
+          "void close()",
+          "void open(java.io.File)",
+          "void reopen()",
+          "void connect()",
+          "void disconnect()",
+          "void setDoInput(boolean)",
+          "java.lang.String getRequestProperty(java.lang.String)",
+          "void <init>()",
+          "void <init>(java.io.File)",
+          "int read()",
+          "int read(byte[])",
+          "");
+
+  @Test
+  public void precompiledMatchersAgreeWithUncompiledMatching() {
+    for (String pattern : PATTERNS) {
+      for (boolean negate : new boolean[] {false, true}) {
+        MatcherTransition trans =
+            new MatcherTransition(INIT, pattern, negate, Parameter.This, DONE, Type.OnCall);
+        for (String subSignature : SUB_SIGNATURES) {
+          boolean expected = Pattern.matches(pattern, subSignature) != negate;
+          assertEquals(
+              pattern + (negate ? " (negated) " : " ") + subSignature,
+              expected,
+              trans.matches(new TestMethod(subSignature)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void memoizedMatchesAgreeWithUnmemoizedMatching() {
+    TestWeightFunctions functions = new TestWeightFunctions();
+    for (String pattern : PATTERNS) {
+      functions.addTransition(
+          new MatcherTransition(INIT, pattern, Parameter.This, DONE, Type.OnCall));
+      functions.addTransition(
+          new MatcherTransition(DONE, pattern, true, Parameter.This, DONE, Type.OnCallToReturn));
+    }
+    for (String subSignature : SUB_SIGNATURES) {
+      Set<MatcherTransition> expected = Sets.newHashSet();
+      for (String pattern : PATTERNS) {
+        if (Pattern.matches(pattern, subSignature)) {
+          expected.add(new MatcherTransition(INIT, pattern, Parameter.This, DONE, Type.OnCall));
+        } else {
+          expected.add(
+              new MatcherTransition(
+                  DONE, pattern, true, Parameter.This, DONE, Type.OnCallToReturn));
+        }
+      }
+      DeclaredMethod method = new TestMethod(subSignature);
+      List<MatcherTransition> matching = functions.getTransitionsMatching(method);
+      assertEquals(subSignature, expected, Sets.newHashSet(matching));
+      assertSame(matching, functions.getTransitionsMatching(method));
+    }
+  }
+
+  @Test
+  public void addedTransitionsInvalidateTheMemo() {
+    TestWeightFunctions functions = new TestWeightFunctions();
+    functions.addTransition(
+        new MatcherTransition(INIT, ".*open.*", Parameter.This, DONE, Type.OnCall));
+    DeclaredMethod close = new TestMethod("void close()");
+    assertTrue(functions.getTransitionsMatching(close).isEmpty());
+    MatcherTransition closing =
+        new MatcherTransition(INIT, ".*close.*", Parameter.This, DONE, Type.OnCall);
+    functions.addTransition(closing);
+    assertEquals(Collections.singletonList(closing), functions.getTransitionsMatching(close));
+  }
+
+  private static class TestWeightFunctions extends TypeStateMachineWeightFunctions {
+    @Override
+    public Collection<WeightedForwardQuery<TransitionFunction>> generateSeed(Edge stmt) {
+      return Collections.emptySet();
+    }
+
+    @Override
+    protected State initialState() {
+      return INIT;
+    }
+  }
+
+  private static class TestMethod extends DeclaredMethod {
+    private final String subSignature;
+
+    private TestMethod(String subSignature) {
+      super(null);
+      this.subSignature = subSignature;
+    }
+
+    @Override
+    public boolean isNative() {
+      return false;
+    }
+
+    @Override
+    public String getSubSignature() {
+      return subSignature;
+    }
+
+    @Override
+    public String getName() {
+      return subSignature;
+    }
+
+    @Override
+    public boolean isStatic() {
+      return false;
+    }
+
+    @Override
+    public boolean isConstructor() {
+      return subSignature.contains("<init>");
+    }
+
+    @Override
+    public String getSignature() {
+      return "<Test: " + subSignature + ">";
+    }
+
+    @Override
+    public WrappedClass getDeclaringClass() {
+      return null;
+    }
+  }
+
+  private static class TestState implements State {
+    private final String name;
+
+    private TestState(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean isErrorState() {
+      return false;
+    }
+
+    @Override
+    public boolean isInitialState() {
+      return this == INIT;
+    }
+
+    @Override
+    public boolean isAccepting() {
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
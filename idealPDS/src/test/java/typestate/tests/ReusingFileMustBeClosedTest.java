@@ -0,0 +1,29 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package typestate.tests;
+
+/**
+ * Runs the tests of {@link FileMustBeClosedTest} with the value-flow phase reusing the solvers of
+ * the object-flow phase.
+ */
+public class ReusingFileMustBeClosedTest extends FileMustBeClosedTest {
+
+  @Override
+  protected boolean reuseObjectFlowInValueFlow() {
+    return true;
+  }
+
+  @Override
+  public String getTestCaseClassName() {
+    return FileMustBeClosedTest.class.getName();
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * ***************************************************************************** Copyright (c) 2018
+ * Fraunhofer IEM, Paderborn, Germany. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * <p>SPDX-License-Identifier: EPL-2.0
+ *
+ * <p>Contributors: Johannes Spaeth - initial API and implementation
+ * *****************************************************************************
+ */
+package typestate.tests;
+
+import boomerang.WeightedForwardQuery;
+import boomerang.results.ForwardBoomerangResults;
+import boomerang.scene.CallGraph;
+import boomerang.scene.CallGraph.Edge;
+import boomerang.scene.Method;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import test.IDEALTestingFramework;
+import typestate.TransitionFunction;
+import typestate.finiteautomata.TypeStateMachineWeightFunctions;
+import typestate.impl.statemachines.FileMustBeClosedStateMachine;
+import typestate.test.helper.File;
+
+/**
+ * Analyzes each test twice with the seeds sharing their alias queries. The first analysis runs on
+ * a call graph without the calls to {@link #close(File)}, which are added before the second
+ * analysis. The alias queries at the strong update in close(File) are only solved by the second
+ * analysis, which must not observe the alias queries of the first one.
+ */
+public class SharedAliasQueriesGrowingCallGraphTest extends IDEALTestingFramework {
+
+  @Override
+  protected TypeStateMachineWeightFunctions getStateMachine() {
+    return new FileMustBeClosedStateMachine();
+  }
+
+  @Override
+  protected boolean shareAliasQueries() {
+    return true;
+  }
+
+  @Override
+  protected Map<
+          WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>>
+      executeAnalysis() {
+    CallGraph complete = callGraph;
+    callGraph = new CallGraph();
+    List<Edge> calls = Lists.newArrayList();
+    for (Edge e : complete.getEdges()) {
+      // Only the static helper, File.close() is an instance method
+      if (e.tgt().getName().equals("close") && e.tgt().isStatic()) {
+        calls.add(e);
+      } else {
+        callGraph.addEdge(e);
+      }
+    }
+    for (Method m : complete.getEntryPoints()) {
+      callGraph.addEntryPoint(m);
+    }
+    createAnalysis().run();
+    for (Edge e : calls) {
+      callGraph.addEdge(e);
+    }
+    return super.executeAnalysis();
+  }
+
+  @Test
+  public void closeAlias() {
+    File file = new File();
+    File alias = file;
+    file.open();
+    close(alias);
+    mustBeInAcceptingState(file);
+  }
+
+  @Test
+  public void closeTwoFiles() {
+    File first = new File();
+    first.open();
+    File second = new File();
+    second.open();
+    close(first);
+    close(second);
+    mustBeInAcceptingState(first);
+    mustBeInAcceptingState(second);
+  }
+
+  private static void close(File file) {
+    File alias = file;
+    alias.close();
+  }
+}